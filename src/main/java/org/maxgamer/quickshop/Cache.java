@@ -19,39 +19,57 @@
 
 package org.maxgamer.quickshop;
 
-import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheStats;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.maxgamer.quickshop.api.shop.Shop;
 import org.maxgamer.quickshop.shop.SimpleShopManager;
+import org.maxgamer.quickshop.util.Util;
+import org.maxgamer.quickshop.util.collection.LongObjectHashMap;
+import org.maxgamer.quickshop.util.location.PackedPosition;
 
-import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Cache is a utilities to quick access shops on large network with Caffeine Cache Library
+ * Cache is a utilities to quick access shops on large network.
+ * <p>
+ * Lookups are keyed by packed block coordinates and bounded by a LRU policy. Both found and not found
+ * results are cached, the entries of a chunk are invalidated when the chunk unloaded, or a shop created
+ * or removed in/next to that chunk.
  *
  * @author Ghost_chu
  */
 public class Cache {
     private final QuickShop plugin;
-    private final com.google.common.cache.Cache<Location, BoxedShop> accessCaching = CacheBuilder
-            .newBuilder()
-            .initialCapacity(5000)
-            .expireAfterAccess(120, TimeUnit.MINUTES)
-            .recordStats()
-            .build();
+    private final Map<String, WorldCache> worlds = new HashMap<>();
+    private final int maximumSize;
+    private final long expireNanos;
+    // Most recently used at head
+    private Entry head;
+    private Entry tail;
+    private int size;
+    private long hitCount;
+    private long missCount;
+    private long totalLoadTime;
+    private long evictionCount;
 
     public Cache(QuickShop plugin) {
         this.plugin = plugin;
+        this.maximumSize = Math.max(16, plugin.getConfig().getInt("caching-maximum-size", 50000));
+        this.expireNanos = TimeUnit.SECONDS.toNanos(Math.max(1, plugin.getConfig().getInt("caching-expire-time", 600)));
     }
 
-    public @NotNull CacheStats getStats() {
-        return accessCaching.stats();
+    public synchronized @NotNull CacheStats getStats() {
+        return new CacheStats(hitCount, missCount, missCount, 0, totalLoadTime, evictionCount);
     }
 
+    public synchronized int size() {
+        return size;
+    }
 
     /**
      * Gets shop from plugin caching
@@ -62,63 +80,279 @@ public class Cache {
      */
     @Nullable
     public Shop find(@NotNull Location location, boolean attached) {
-        BoxedShop boxedShop = accessCaching.getIfPresent(location);
-        //Cache is invalid, generated a new one
-        if (boxedShop == null || !boxedShop.isValid()) {
-            Shop shop;
-            if (attached) {
-                shop = ((SimpleShopManager) plugin.getShopManager()).findShopIncludeAttached(location, false);
-            } else {
-                shop = plugin.getShopManager().getShop(location);
+        World world = location.getWorld();
+        if (world == null) {
+            return load(location, attached);
+        }
+        String worldName = world.getName();
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+        long now = System.nanoTime();
+        Shop cached = null;
+        synchronized (this) {
+            Entry entry = getEntry(worldName, x, y, z);
+            if (entry != null && now - entry.createdAt < expireNanos && entry.isKnown(attached)) {
+                Shop shop = entry.getShop(attached);
+                if (shop == null) {
+                    hitCount++;
+                    moveToHead(entry);
+                    return null;
+                }
+                if (!shop.isDeleted()) {
+                    cached = shop;
+                }
             }
-            setCache(location, shop);
-            return shop;
+        }
+        // The container may be removed without BlockBreakEvent (explosion, piston, WorldEdit...), check the block type of shop
+        if (cached != null && Util.isShoppables(cached.getLocation().getBlock().getType())) {
+            synchronized (this) {
+                hitCount++;
+                Entry entry = getEntry(worldName, x, y, z);
+                if (entry != null) {
+                    moveToHead(entry);
+                }
+            }
+            return cached;
+        }
+        synchronized (this) {
+            missCount++;
+        }
+        // Load outside the lock, finding shops may call events
+        Shop shop = load(location, attached);
+        synchronized (this) {
+            totalLoadTime += System.nanoTime() - now;
+            store(worldName, x, y, z, attached, shop, now);
+        }
+        return shop;
+    }
+
+    @Nullable
+    private Shop load(@NotNull Location location, boolean attached) {
+        if (attached) {
+            return ((SimpleShopManager) plugin.getShopManager()).findShopIncludeAttached(location, false);
         } else {
-            //Cache is valid
-            return boxedShop.getShop();
+            return plugin.getShopManager().getShop(location);
         }
     }
 
     /**
-     * Update and invalidate the caching
+     * Update the caching of attached shop lookup
      *
      * @param location The location that you want to update
-     * @param shop     null for invalidate and Shop object for update
+     * @param shop     The shop, null means no shop there
+     */
+    public synchronized void setCache(@NotNull Location location, @Nullable Shop shop) {
+        World world = location.getWorld();
+        if (world == null) {
+            return;
+        }
+        store(world.getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ(), true, shop, System.nanoTime());
+    }
+
+    public synchronized void invalidate(@NotNull Location location) {
+        World world = location.getWorld();
+        if (world == null) {
+            return;
+        }
+        Entry entry = getEntry(world.getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        if (entry != null) {
+            removeEntry(entry);
+        }
+    }
+
+    /**
+     * Invalidates all cached lookups in the chunk
+     *
+     * @param world  The world name
+     * @param chunkX The chunk x
+     * @param chunkZ The chunk z
      */
-    public void setCache(@NotNull Location location, @Nullable Shop shop) {
-        accessCaching.put(location, new BoxedShop(shop));
+    public synchronized void invalidateChunk(@NotNull String world, int chunkX, int chunkZ) {
+        WorldCache worldCache = worlds.get(world);
+        if (worldCache == null) {
+            return;
+        }
+        Entry entry = worldCache.chunks.get(PackedPosition.chunk(chunkX, chunkZ));
+        while (entry != null) {
+            Entry next = entry.chunkNext;
+            removeEntry(entry);
+            entry = next;
+        }
     }
 
-    public void invalidate(@NotNull Location location) {
-        accessCaching.invalidate(location);
+    /**
+     * Invalidates the lookups may affected by a shop or container changed at given block.
+     * Signs and second halves are next to the container, so the chunks of neighbor blocks are also invalidated.
+     *
+     * @param world  The world name
+     * @param blockX The block x
+     * @param blockZ The block z
+     */
+    public synchronized void invalidateAround(@NotNull String world, int blockX, int blockZ) {
+        if (!worlds.containsKey(world)) {
+            return;
+        }
+        for (int chunkX = (blockX - 1) >> 4; chunkX <= (blockX + 1) >> 4; chunkX++) {
+            for (int chunkZ = (blockZ - 1) >> 4; chunkZ <= (blockZ + 1) >> 4; chunkZ++) {
+                invalidateChunk(world, chunkX, chunkZ);
+            }
+        }
     }
 
+    public synchronized void invalidateAll() {
+        worlds.clear();
+        head = null;
+        tail = null;
+        size = 0;
+    }
 
-    private static class BoxedShop {
-        @Nullable
-        private final WeakReference<Shop> shopWeakRef;
+    @Nullable
+    private Entry getEntry(@NotNull String world, int x, int y, int z) {
+        WorldCache worldCache = worlds.get(world);
+        if (worldCache == null) {
+            return null;
+        }
+        return worldCache.blocks.get(PackedPosition.block(x, y, z));
+    }
 
-        public BoxedShop(Shop shop) {
-            if (shop != null) {
-                this.shopWeakRef = new WeakReference<>(shop);
+    private void store(@NotNull String world, int x, int y, int z, boolean attached, @Nullable Shop shop, long now) {
+        WorldCache worldCache = worlds.computeIfAbsent(world, k -> new WorldCache());
+        long position = PackedPosition.block(x, y, z);
+        Entry entry = worldCache.blocks.get(position);
+        if (entry == null) {
+            entry = new Entry(worldCache, position, PackedPosition.chunkOfBlock(x, z), now);
+            worldCache.blocks.put(position, entry);
+            Entry chunkHead = worldCache.chunks.put(entry.chunk, entry);
+            if (chunkHead != null) {
+                entry.chunkNext = chunkHead;
+                chunkHead.chunkPrev = entry;
+            }
+            linkHead(entry);
+            size++;
+        } else {
+            if (now - entry.createdAt >= expireNanos) {
+                entry.reset(now);
+            }
+            moveToHead(entry);
+        }
+        entry.setShop(attached, shop);
+        while (size > maximumSize && tail != null) {
+            removeEntry(tail);
+            evictionCount++;
+        }
+    }
+
+    private void removeEntry(@NotNull Entry entry) {
+        WorldCache worldCache = entry.world;
+        worldCache.blocks.remove(entry.position);
+        if (entry.chunkPrev == null) {
+            if (entry.chunkNext == null) {
+                worldCache.chunks.remove(entry.chunk);
             } else {
-                shopWeakRef = null;
+                worldCache.chunks.put(entry.chunk, entry.chunkNext);
             }
+        } else {
+            entry.chunkPrev.chunkNext = entry.chunkNext;
         }
+        if (entry.chunkNext != null) {
+            entry.chunkNext.chunkPrev = entry.chunkPrev;
+        }
+        entry.chunkPrev = null;
+        entry.chunkNext = null;
+        unlink(entry);
+        size--;
+    }
 
+    private void linkHead(@NotNull Entry entry) {
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        head = entry;
+        if (tail == null) {
+            tail = entry;
+        }
+    }
+
+    private void unlink(@NotNull Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            head = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        } else {
+            tail = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    private void moveToHead(@NotNull Entry entry) {
+        if (head == entry) {
+            return;
+        }
+        unlink(entry);
+        linkHead(entry);
+    }
+
+    private static class WorldCache {
+        private final LongObjectHashMap<Entry> blocks = new LongObjectHashMap<>(256);
+        // Head of the entries chain of every chunk
+        private final LongObjectHashMap<Entry> chunks = new LongObjectHashMap<>(64);
+    }
+
+    private static class Entry {
+        private final WorldCache world;
+        private final long position;
+        private final long chunk;
+        private long createdAt;
+        private Entry prev;
+        private Entry next;
+        private Entry chunkPrev;
+        private Entry chunkNext;
+        @Nullable
+        private Shop shop;
+        private boolean shopKnown;
         @Nullable
-        public Shop getShop() {
-            return shopWeakRef == null ? null : shopWeakRef.get();
+        private Shop attachedShop;
+        private boolean attachedShopKnown;
+
+        private Entry(@NotNull WorldCache world, long position, long chunk, long createdAt) {
+            this.world = world;
+            this.position = position;
+            this.chunk = chunk;
+            this.createdAt = createdAt;
         }
 
-        public boolean isValid() {
-            if (shopWeakRef != null) {
-                Shop shop = shopWeakRef.get();
-                if (shop != null) {
-                    return shop.isValid();
-                }
+        private boolean isKnown(boolean attached) {
+            return attached ? attachedShopKnown : shopKnown;
+        }
+
+        @Nullable
+        private Shop getShop(boolean attached) {
+            return attached ? attachedShop : shop;
+        }
+
+        private void setShop(boolean attached, @Nullable Shop shop) {
+            if (attached) {
+                this.attachedShop = shop;
+                this.attachedShopKnown = true;
+            } else {
+                this.shop = shop;
+                this.shopKnown = true;
             }
-            return false;
+        }
+
+        private void reset(long now) {
+            this.createdAt = now;
+            this.shop = null;
+            this.shopKnown = false;
+            this.attachedShop = null;
+            this.attachedShopKnown = false;
         }
     }
 }
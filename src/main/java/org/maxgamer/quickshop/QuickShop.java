@@ -74,6 +74,7 @@ import org.maxgamer.quickshop.database.DatabaseManager;
 import org.maxgamer.quickshop.database.MySQLCore;
 import org.maxgamer.quickshop.database.SQLiteCore;
 import org.maxgamer.quickshop.database.SimpleDatabaseHelper;
+import org.maxgamer.quickshop.economy.CachingEconomyCore;
 import org.maxgamer.quickshop.economy.Economy_GemsEconomy;
 import org.maxgamer.quickshop.economy.Economy_TNE;
 import org.maxgamer.quickshop.economy.Economy_Vault;
@@ -92,6 +93,7 @@ import org.maxgamer.quickshop.listener.PlayerListener;
 import org.maxgamer.quickshop.listener.PluginListener;
 import org.maxgamer.quickshop.listener.ShopProtectionListener;
 import org.maxgamer.quickshop.listener.SignListener;
+import org.maxgamer.quickshop.listener.StockTrackerListener;
 import org.maxgamer.quickshop.listener.WorldListener;
 import org.maxgamer.quickshop.listener.worldedit.WorldEditAdapter;
 import org.maxgamer.quickshop.localization.text.SimpleTextManager;
@@ -103,7 +105,6 @@ import org.maxgamer.quickshop.shop.SimpleShopManager;
 import org.maxgamer.quickshop.shop.VirtualDisplayItem;
 import org.maxgamer.quickshop.util.GameVersion;
 import org.maxgamer.quickshop.util.HttpUtil;
-import org.maxgamer.quickshop.util.JsonUtil;
 import org.maxgamer.quickshop.util.MsgUtil;
 import org.maxgamer.quickshop.util.PermissionChecker;
 import org.maxgamer.quickshop.util.PlayerFinder;
@@ -284,6 +285,9 @@ public class QuickShop extends JavaPlugin implements QuickShopAPI {
     @Getter
     private SignUpdateWatcher signUpdateWatcher;
     @Getter
+    @Nullable
+    private ShopProtectionListener shopProtectionListener;
+    @Getter
     private ShopContainerWatcher shopContainerWatcher;
     @Getter
     private @Deprecated
@@ -542,13 +546,44 @@ public class QuickShop extends JavaPlugin implements QuickShopAPI {
             return;
         }
         if (loggingLocation == 0) {
-            this.getLogWatcher().log(JsonUtil.getGson().toJson(eventObject));
+            //Serialized by the log task
+            this.getLogWatcher().logEvent(eventObject);
         } else {
             getDatabaseHelper().insertHistoryRecord(eventObject);
         }
 
     }
 
+    /**
+     * Creates the tax account in Vault if it doesn't exist
+     *
+     * @param vault The Vault economy
+     * @param tax   The tax account
+     */
+    private void ensureTaxAccount(@NotNull Economy_Vault vault, @NotNull OfflinePlayer tax) {
+        try {
+            if (vault.isValid()) {
+                if (!Objects.requireNonNull(vault.getVault()).hasAccount(tax)) {
+                    try {
+                        Util.debugLog("Tax account not exists! Creating...");
+                        getLogger().warning("QuickShop detected tax account not exists, we're trying to create one. If you see any errors, please change tax-account in config.yml to server owner in-game username");
+                        if (vault.getVault().createPlayerAccount(tax)) {
+                            getLogger().info("Tax account created.");
+                        } else {
+                            getLogger().warning("Cannot to create tax-account,  please change tax-account in config.yml to server owner in-game username");
+                        }
+                    } catch (Exception ignored) {
+                    }
+                    if (!vault.getVault().hasAccount(tax)) {
+                        getLogger().warning("Tax account's player never played this server before and failed to create one, that may cause server lagg or economy system error, you should change that name. But if this warning not cause any issues, you can safety ignore this.");
+                    }
+                }
+            }
+        } catch (Exception ignored) {
+            Util.debugLog("Failed to fix account issue.");
+        }
+    }
+
     /**
      * Tries to load the economy and its core. If this fails, it will try to use vault. If that fails,
      * it will return false.
@@ -568,37 +603,19 @@ public class QuickShop extends JavaPlugin implements QuickShopAPI {
                     economy = new Economy_Vault(this);
                     Util.debugLog("Now using the Vault economy system.");
                     if (getConfig().getDouble("tax", 0.0d) > 0) {
-                        try {
-                            String taxAccount = getConfig().getString("tax-account", "tax");
-                            if (!taxAccount.isEmpty()) {
-                                OfflinePlayer tax;
-                                if (Util.isUUID(taxAccount)) {
-                                    tax = PlayerFinder.findOfflinePlayerByUUID(UUID.fromString(taxAccount));
-                                } else {
-                                    tax = PlayerFinder.findOfflinePlayerByUUID(PlayerFinder.findUUIDByName(Objects.requireNonNull(taxAccount), true, true));
-                                }
-                                Economy_Vault vault = (Economy_Vault) economy;
-                                if (vault.isValid()) {
-                                    if (!Objects.requireNonNull(vault.getVault()).hasAccount(tax)) {
-                                        try {
-                                            Util.debugLog("Tax account not exists! Creating...");
-                                            getLogger().warning("QuickShop detected tax account not exists, we're trying to create one. If you see any errors, please change tax-account in config.yml to server owner in-game username");
-                                            if (vault.getVault().createPlayerAccount(tax)) {
-                                                getLogger().info("Tax account created.");
-                                            } else {
-                                                getLogger().warning("Cannot to create tax-account,  please change tax-account in config.yml to server owner in-game username");
-                                            }
-                                        } catch (Exception ignored) {
-                                        }
-                                        if (!vault.getVault().hasAccount(tax)) {
-                                            getLogger().warning("Tax account's player never played this server before and failed to create one, that may cause server lagg or economy system error, you should change that name. But if this warning not cause any issues, you can safety ignore this.");
-                                        }
+                        String taxAccount = getConfig().getString("tax-account", "tax");
+                        if (!taxAccount.isEmpty()) {
+                            Economy_Vault vault = (Economy_Vault) economy;
+                            if (Util.isUUID(taxAccount)) {
+                                ensureTaxAccount(vault, PlayerFinder.findOfflinePlayerByUUID(UUID.fromString(taxAccount)));
+                            } else {
+                                // Resolved in background, don't block the startup by web request
+                                PlayerFinder.findPlayerProfileByNameAsync(taxAccount).thenAccept(profile -> {
+                                    if (profile != null) {
+                                        Util.mainThreadRun(() -> ensureTaxAccount(vault, profile.getOfflinePlayer()));
                                     }
-
-                                }
+                                });
                             }
-                        } catch (Exception ignored) {
-                            Util.debugLog("Failed to fix account issue.");
                         }
                     }
                     break;
@@ -622,6 +639,9 @@ public class QuickShop extends JavaPlugin implements QuickShopAPI {
                 return false;
             }
             economy = ServiceInjector.getEconomy(economy);
+            if (getConfig().getBoolean("economy-cache.enable", true)) {
+                economy = new CachingEconomyCore(this, economy);
+            }
         } catch (Throwable e) {
             this.getSentryErrorReporter().ignoreThrow();
             getLogger().log(Level.WARNING, "Something going wrong when loading up economy system", e);
@@ -684,8 +704,22 @@ public class QuickShop extends JavaPlugin implements QuickShopAPI {
         if (StringUtils.isEmpty(this.currency)) {
             this.currency = null;
         }
+        LogWatcher previousLogWatcher = logWatcher;
+        boolean logWatcherScheduled = false;
+        if (previousLogWatcher != null) {
+            previousLogWatcher.close();
+            try {
+                previousLogWatcher.cancel();
+                logWatcherScheduled = true;
+            } catch (IllegalStateException ignored) {
+                //Not scheduled yet, will be scheduled when enabling
+            }
+        }
         if (this.getConfig().getBoolean("logging.enable")) {
             logWatcher = new LogWatcher(this, new File(getDataFolder(), "qs.log"));
+            if (logWatcherScheduled) {
+                timerTaskList.add(logWatcher.runTaskTimerAsynchronously(this, 10, 10));
+            }
         } else {
             logWatcher = null;
         }
@@ -762,6 +796,10 @@ public class QuickShop extends JavaPlugin implements QuickShopAPI {
             VirtualDisplayItem.VirtualDisplayItemManager.unload();
         }
 
+        if (economy instanceof CachingEconomyCore) {
+            Util.debugLog("Applying queued tax deposits...");
+            ((CachingEconomyCore) economy).shutdown();
+        }
         Util.debugLog("Cleaning up database queues...");
         if (this.getDatabaseManager() != null) {
             this.getDatabaseManager().unInit();
@@ -804,6 +842,8 @@ public class QuickShop extends JavaPlugin implements QuickShopAPI {
         HandlerList.unregisterAll(this);
         Util.debugLog("Unregistering plugin services...");
         getServer().getServicesManager().unregisterAll(this);
+        Util.debugLog("Saving player profile cache...");
+        PlayerFinder.shutdown();
         Util.debugLog("Shutdown okhttp client...");
         HttpUtil.shutdown();
         Util.debugLog("Cleanup...");
@@ -982,6 +1022,7 @@ public class QuickShop extends JavaPlugin implements QuickShopAPI {
         }
 
         /* Initalize the Utils */
+        PlayerFinder.init(this);
         this.loadItemMatcher();
         Util.initialize();
         try {
@@ -1048,7 +1089,7 @@ public class QuickShop extends JavaPlugin implements QuickShopAPI {
             this.shopCache = null;
         }
 
-        signUpdateWatcher = new SignUpdateWatcher();
+        signUpdateWatcher = new SignUpdateWatcher(this);
         shopContainerWatcher = new ShopContainerWatcher();
         /* Load all shops. */
         shopLoader = new ShopLoader(this);
@@ -1067,8 +1108,10 @@ public class QuickShop extends JavaPlugin implements QuickShopAPI {
         // Listeners - We decide which one to use at runtime
         new ChatListener(this).register();
         new ChunkListener(this).register();
+        new StockTrackerListener(this).register();
         new CustomInventoryListener(this).register();
-        new ShopProtectionListener(this, this.shopCache).register();
+        this.shopProtectionListener = new ShopProtectionListener(this, this.shopCache);
+        this.shopProtectionListener.register();
         new PluginListener(this).register();
         InternalListener internalListener = new InternalListener(this);
         internalListener.register();
@@ -1135,6 +1178,7 @@ public class QuickShop extends JavaPlugin implements QuickShopAPI {
         if (getConfig().getBoolean("shop.ongoing-fee.enable")) {
             ongoingFeeWatcher = new OngoingFeeWatcher(this);
             timerTaskList.add(ongoingFeeWatcher.runTaskTimerAsynchronously(this, 0, getConfig().getInt("shop.ongoing-fee.ticks")));
+            timerTaskList.add(ongoingFeeWatcher.getChargeProcessor().runTaskTimerAsynchronously(this, 1, 1));
             getLogger().info("Ongoing fee feature is enabled.");
         }
         integrationHelper.searchAndRegisterPlugins();
@@ -2237,6 +2281,69 @@ public class QuickShop extends JavaPlugin implements QuickShopAPI {
             getConfig().set("include-offlineplayer-for-command", false);
             getConfig().set("config-version", ++selectedVersion);
         }
+        if (selectedVersion == 163) {
+            getConfig().set("caching-maximum-size", 50000);
+            getConfig().set("caching-expire-time", 600);
+            getConfig().set("config-version", ++selectedVersion);
+        }
+        if (selectedVersion == 164) {
+            getConfig().set("database.queue-max-batch-size", 500);
+            getConfig().set("config-version", ++selectedVersion);
+        }
+        if (selectedVersion == 165) {
+            getConfig().set("database.pool.min-size", 2);
+            getConfig().set("database.pool.max-size", 8);
+            getConfig().set("database.pool.max-lifetime", 1800);
+            getConfig().set("database.pool.idle-timeout", 600);
+            getConfig().set("database.pool.borrow-timeout", 30);
+            getConfig().set("database.pool.validation-interval", 30);
+            getConfig().set("database.pool.validation-timeout", 5);
+            getConfig().set("config-version", ++selectedVersion);
+        }
+        if (selectedVersion == 166) {
+            getConfig().set("shop-loader.fetch-size", 1000);
+            getConfig().set("shop-loader.decode-threads", 0);
+            getConfig().set("shop-loader.tick-budget", 10);
+            getConfig().set("config-version", ++selectedVersion);
+        }
+        if (selectedVersion == 167) {
+            getConfig().set("shop-loader.lazy.enable", false);
+            getConfig().set("shop-loader.lazy.idle-time", 1800);
+            getConfig().set("config-version", ++selectedVersion);
+        }
+        if (selectedVersion == 168) {
+            getConfig().set("shop.sign-update-tick-budget", 5);
+            getConfig().set("config-version", ++selectedVersion);
+        }
+        if (selectedVersion == 169) {
+            getConfig().set("shop.ongoing-fee.tick-budget", 5);
+            getConfig().set("shop.ongoing-fee.max-retries", 3);
+            getConfig().set("shop.ongoing-fee.retry-delay", 1200);
+            getConfig().set("config-version", ++selectedVersion);
+        }
+        if (selectedVersion == 170) {
+            getConfig().set("logging.buffer-size", 8192);
+            getConfig().set("logging.rotate-interval", 24);
+            getConfig().set("config-version", ++selectedVersion);
+        }
+        if (selectedVersion == 171) {
+            getConfig().set("logging.history-retention-days", 90);
+            getConfig().set("config-version", ++selectedVersion);
+        }
+        if (selectedVersion == 172) {
+            getConfig().set("shop.protection-checking-cache-ttl", 1000);
+            getConfig().set("config-version", ++selectedVersion);
+        }
+        if (selectedVersion == 173) {
+            getConfig().set("shop.offline-messages-page-size", 10);
+            getConfig().set("config-version", ++selectedVersion);
+        }
+        if (selectedVersion == 174) {
+            getConfig().set("economy-cache.enable", true);
+            getConfig().set("economy-cache.balance-ttl", 1000);
+            getConfig().set("economy-cache.tax-flush-interval", 0);
+            getConfig().set("config-version", ++selectedVersion);
+        }
         //Fix broken maximum-digits-in-price option
         if (getConfig().isSet("maximum-digits-in-price")) {
             int maximumDigitsInPrice = getConfig().getInt("maximum-digits-in-price", -1);
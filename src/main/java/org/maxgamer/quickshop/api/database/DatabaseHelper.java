@@ -54,6 +54,22 @@ public interface DatabaseHelper {
      */
     void cleanMessageForPlayer(@NotNull UUID player);
 
+    /**
+     * Delete the transaction messages of specific player that saved before given time
+     *
+     * @param player The player
+     * @param before The time, inclusive
+     */
+    void cleanMessageForPlayer(@NotNull UUID player, long before);
+
+    /**
+     * Move the transaction messages saved under a legacy player name to the player's uuid
+     *
+     * @param legacyOwner The player name
+     * @param owner       The player uuid
+     */
+    void updateMessageOwner(@NotNull String legacyOwner, @NotNull UUID owner);
+
     /**
      * Create a shop data record sand save into database
      *
@@ -88,6 +104,26 @@ public interface DatabaseHelper {
      */
     WarpedResultSet selectAllMessages() throws SQLException;
 
+    /**
+     * Select the amount of messages saved for every owner, columns are owner and amount
+     *
+     * @return Query result set
+     * @throws SQLException Any errors related to SQL Errors
+     */
+    WarpedResultSet selectMessageCounts() throws SQLException;
+
+    /**
+     * Select a page of messages saved for specific player, newest first
+     *
+     * @param player The player
+     * @param before Only the messages saved before this time, inclusive
+     * @param offset The rows to skip
+     * @param limit  The max rows of page
+     * @return Query result set
+     * @throws SQLException Any errors related to SQL Errors
+     */
+    WarpedResultSet selectMessages(@NotNull UUID player, long before, int offset, int limit) throws SQLException;
+
     /**
      * Select specific table content
      *
@@ -104,6 +140,39 @@ public interface DatabaseHelper {
      */
     WarpedResultSet selectAllShops() throws SQLException;
 
+    /**
+     * Select all shops that saved in the database, fetching rows by pages
+     *
+     * @param fetchSize The rows fetched from database per round trip
+     * @return Query result set
+     * @throws SQLException Any errors related to SQL Errors
+     */
+    default WarpedResultSet selectAllShops(int fetchSize) throws SQLException {
+        return selectAllShops();
+    }
+
+    /**
+     * Select the position, owner and unlimited columns of all shops, used to build the lazy loading index
+     *
+     * @param fetchSize The rows fetched from database per round trip
+     * @return Query result set
+     * @throws SQLException Any errors related to SQL Errors
+     */
+    WarpedResultSet selectShopIndex(int fetchSize) throws SQLException;
+
+    /**
+     * Select the shops in given area
+     *
+     * @param world The world name
+     * @param minX  The min block x, inclusive
+     * @param minZ  The min block z, inclusive
+     * @param maxX  The max block x, inclusive
+     * @param maxZ  The max block z, inclusive
+     * @return Query result set
+     * @throws SQLException Any errors related to SQL Errors
+     */
+    WarpedResultSet selectShopsInArea(@NotNull String world, int minX, int minZ, int maxX, int maxZ) throws SQLException;
+
     /**
      * Create a transaction message record and save into database
      *
@@ -163,4 +232,23 @@ public interface DatabaseHelper {
      */
     void insertHistoryRecord(Object rec);
 
+    /**
+     * Select a page of history records, newest first
+     *
+     * @param query  The filters
+     * @param offset The rows to skip
+     * @param limit  The max rows of page
+     * @return Query result set
+     * @throws SQLException Any errors related to SQL Errors
+     */
+    WarpedResultSet selectHistory(@NotNull HistoryQuery query, int offset, int limit) throws SQLException;
+
+    /**
+     * Move the history records older than given time into archive table.
+     * It runs on the calling thread, don't call it on the main thread.
+     *
+     * @param before The time
+     */
+    void archiveHistory(long before);
+
 }
@@ -0,0 +1,71 @@
+/*
+ * This file is a part of project QuickShop, the name is HistoryQuery.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.maxgamer.quickshop.api.database;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * The filters of history query, the null filters are ignored
+ */
+@Builder
+@Getter
+public class HistoryQuery {
+    /**
+     * The simple class name of log container, e.g. ShopPurchaseLog
+     */
+    @Nullable
+    private final String type;
+    @Nullable
+    private final String world;
+    /**
+     * The shop position, only used when world set
+     */
+    @Nullable
+    private final Integer x;
+    @Nullable
+    private final Integer y;
+    @Nullable
+    private final Integer z;
+    @Nullable
+    private final UUID owner;
+    /**
+     * The player did the action, e.g. the trader or creator
+     */
+    @Nullable
+    private final UUID actor;
+    /**
+     * The item type name
+     */
+    @Nullable
+    private final String item;
+    /**
+     * The min time, inclusive
+     */
+    @Nullable
+    private final Long from;
+    /**
+     * The max time, exclusive
+     */
+    @Nullable
+    private final Long to;
+}
@@ -53,6 +53,20 @@ public interface EconomyCore {
      */
     boolean deposit(@NotNull OfflinePlayer trader, double amount, @NotNull World world, @Nullable String currency);
 
+    /**
+     * Deposits money the account doesn't need at once, such as tax.
+     * The implementation may merge the deposits to same account and apply them later.
+     *
+     * @param trader   The player to give money to
+     * @param amount   The amount to give them
+     * @param currency The currency name
+     * @param world    The transaction world
+     * @return True if success or queued
+     */
+    default boolean depositDeferred(@NotNull OfflinePlayer trader, double amount, @NotNull World world, @Nullable String currency) {
+        return deposit(trader, amount, world, currency);
+    }
+
     /**
      * Formats the given number... E.g. 50.5 becomes $50.5 Dollars, or 50 Dollars 5 Cents
      *
@@ -187,7 +187,7 @@ public class EconomyTransaction {
             return false;
         }
         steps = TransactionSteps.TAX;
-        if (tax > 0 && taxer != null && !core.deposit(taxer, tax, world, currency)) {
+        if (tax > 0 && taxer != null && !core.depositDeferred(taxer, tax, world, currency)) {
             this.lastError = "Failed to deposit tax account: " + tax + ". LastError: " + core.getLastError();
             callback.onTaxFailed(this);
             //Tax never should failed.
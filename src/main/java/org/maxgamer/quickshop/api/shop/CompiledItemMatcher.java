@@ -0,0 +1,37 @@
+/*
+ * This file is a part of project QuickShop, the name is CompiledItemMatcher.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.api.shop;
+
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A ItemMatcher bound to one original ItemStack, created by {@link ItemMatcher#compile(ItemStack)}.
+ * Reuse it when testing many ItemStacks against same original, e.g. counting a inventory.
+ */
+public interface CompiledItemMatcher {
+    /**
+     * Tests the ItemStack is matches the original ItemStack, amounts are ignored
+     *
+     * @param tester The ItemStack will test matches with original itemstack.
+     * @return The result of tests
+     */
+    boolean matches(@Nullable ItemStack tester);
+}
@@ -51,4 +51,26 @@ public interface ItemMatcher {
      * @return The result of tests
      */
     boolean matches(@Nullable ItemStack original, @Nullable ItemStack tester);
+
+    /**
+     * Compiles a matcher for given original ItemStack, the result must be same as {@link #matches(ItemStack, ItemStack)}
+     * with both ItemStacks in amount 1.
+     * Providers can override it to precompute the original once.
+     *
+     * @param original The original ItemStack, later changes to it won't affect the compiled matcher
+     * @return The compiled matcher
+     */
+    @NotNull
+    default CompiledItemMatcher compile(@NotNull ItemStack original) {
+        ItemStack prototype = original.clone();
+        prototype.setAmount(1);
+        return tester -> {
+            if (tester == null) {
+                return matches(prototype, null);
+            }
+            ItemStack copy = tester.clone();
+            copy.setAmount(1);
+            return matches(prototype, copy);
+        };
+    }
 }
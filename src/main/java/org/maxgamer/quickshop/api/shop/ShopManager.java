@@ -21,6 +21,7 @@ package org.maxgamer.quickshop.api.shop;
 
 import org.bukkit.Chunk;
 import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
@@ -225,6 +226,50 @@ public interface ShopManager {
      */
     @NotNull List<Shop> getShopsInWorld(@NotNull World world);
 
+    /**
+     * Gets the shops owned by the player, include unloaded.
+     * <p>
+     * The collection is a read-only view backed by the index, it costs nothing to get,
+     * copy it if you're going to modify the shops while iterating.
+     *
+     * @param owner The owner
+     * @return The read-only view of shops owned by the player
+     */
+    @NotNull Collection<Shop> getShopsByOwner(@NotNull UUID owner);
+
+    /**
+     * Gets the shops in the world, include unloaded.
+     * <p>
+     * The collection is a read-only view backed by the index, it costs nothing to get,
+     * copy it if you're going to modify the shops while iterating.
+     *
+     * @param world The name of the world (case sensitive)
+     * @return The read-only view of shops in the world
+     */
+    @NotNull Collection<Shop> getShopsByWorld(@NotNull String world);
+
+    /**
+     * Gets the shops trading the item type, include unloaded.
+     * <p>
+     * The collection is a read-only view backed by the index, it costs nothing to get,
+     * copy it if you're going to modify the shops while iterating.
+     *
+     * @param material The item type
+     * @return The read-only view of shops trading the item type
+     */
+    @NotNull Collection<Shop> getShopsByItemType(@NotNull Material material);
+
+    /**
+     * Gets the shops using the currency, include unloaded.
+     * <p>
+     * The collection is a read-only view backed by the index, it costs nothing to get,
+     * copy it if you're going to modify the shops while iterating.
+     *
+     * @param currency The currency name, null for the default currency
+     * @return The read-only view of shops using the currency
+     */
+    @NotNull Collection<Shop> getShopsByCurrency(@Nullable String currency);
+
     @Deprecated
     double getTax(@NotNull Shop shop, @NotNull Player p);
 
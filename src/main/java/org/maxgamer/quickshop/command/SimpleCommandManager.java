@@ -214,7 +214,7 @@ public class SimpleCommandManager implements CommandManager, TabCompleter, Comma
                 CommandContainer.builder()
                         .prefix("fetchmessage")
                         .permission("quickshop.fetchmessage")
-                        .executor(new SubCommand_FetchMessage())
+                        .executor(new SubCommand_FetchMessage(plugin))
                         .build());
         registerCmd(
                 CommandContainer.builder()
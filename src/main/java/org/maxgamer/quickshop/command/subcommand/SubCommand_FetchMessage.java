@@ -22,16 +22,22 @@ package org.maxgamer.quickshop.command.subcommand;
 import lombok.AllArgsConstructor;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
+import org.maxgamer.quickshop.QuickShop;
 import org.maxgamer.quickshop.api.command.CommandHandler;
 import org.maxgamer.quickshop.util.MsgUtil;
 import org.maxgamer.quickshop.util.Util;
 
 @AllArgsConstructor
 public class SubCommand_FetchMessage implements CommandHandler<Player> {
+    private final QuickShop plugin;
 
     @Override
     public void onCommand(@NotNull Player sender, @NotNull String commandLabel, @NotNull String[] cmdArg) {
-        Util.mainThreadRun(() -> MsgUtil.flush(sender));
+        Util.mainThreadRun(() -> {
+            if (!MsgUtil.flush(sender)) {
+                plugin.text().of(sender, "nothing-to-flush").send();
+            }
+        });
     }
 
 
@@ -46,13 +46,13 @@ public class SubCommand_RemoveAll implements CommandHandler<CommandSender> {
     @Override
     public void onCommand(@NotNull CommandSender sender, @NotNull String commandLabel, @NotNull String[] cmdArg) {
         if (cmdArg.length == 1) {
-            //copy it first
-            List<Shop> tempList = new ArrayList<>(plugin.getShopManager().getAllShops());
             PlayerFinder.PlayerProfile shopOwner = PlayerFinder.findPlayerProfileByName(cmdArg[0], false, plugin.isIncludeOfflinePlayer());
             if (shopOwner == null) {
                 plugin.text().of(sender, "unknown-player").send();
                 return;
             }
+            //copy it first, deleting shop will modify the owner index
+            List<Shop> tempList = new ArrayList<>(plugin.getShopManager().getShopsByOwner(shopOwner.getUuid()));
 
             int i = 0;
             if (sender instanceof OfflinePlayer && !shopOwner.getUuid().equals(((OfflinePlayer) sender).getUniqueId())) { //Non-self shop
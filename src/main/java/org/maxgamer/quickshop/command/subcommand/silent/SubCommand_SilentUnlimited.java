@@ -23,7 +23,6 @@ import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.maxgamer.quickshop.QuickShop;
 import org.maxgamer.quickshop.api.shop.Shop;
-import org.maxgamer.quickshop.shop.SimpleShopManager;
 import org.maxgamer.quickshop.util.MsgUtil;
 
 public class SubCommand_SilentUnlimited extends SubCommand_SilentBase {
@@ -42,7 +41,7 @@ public class SubCommand_SilentUnlimited extends SubCommand_SilentBase {
             plugin.text().of(sender, "command.toggle-unlimited.unlimited").send();
             if (plugin.getConfig().getBoolean("unlimited-shop-owner-change")) {
                 plugin.getShopManager().migrateOwnerToUnlimitedShopOwner(shop);
-                plugin.text().of(sender, "unlimited-shop-owner-changed", ((SimpleShopManager) plugin.getShopManager()).getCacheUnlimitedShopAccount().getName()).send();
+                plugin.text().of(sender, "unlimited-shop-owner-changed", shop.ownerName(true)).send();
             }
             return;
         }
@@ -57,6 +57,15 @@ public abstract class AbstractDatabaseCore {
 
     }
 
+    /**
+     * Called when a connection released by user
+     *
+     * @param connection The released connection
+     */
+    void releaseConnection(@NotNull DatabaseConnection connection) {
+        signalForNewConnection();
+    }
+
     public String getTablePrefix() {
         return "";
     }
@@ -0,0 +1,285 @@
+/*
+ * This file is a part of project QuickShop, the name is AbstractPooledDatabaseCore.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.database;
+
+import lombok.Getter;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * DatabaseCore with a connection pool.
+ * <p>
+ * Idle connections are kept in a lock-free deque, borrowing only takes a permit and polls the deque.
+ * Connections are validated, retired (max-lifetime) and shrunk (idle-timeout) in background,
+ * instead of checking the connection on every borrow.
+ */
+public abstract class AbstractPooledDatabaseCore extends AbstractDatabaseCore {
+    private final Deque<DatabaseConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    @Getter
+    private final int minSize;
+    @Getter
+    private final int maxSize;
+    private final long maxLifetime;
+    private final long idleTimeout;
+    private final long borrowTimeout;
+    private final int validationTimeoutSeconds;
+    private final long validationInterval;
+    @Nullable
+    private volatile ScheduledExecutorService maintainer;
+    private volatile boolean closed;
+
+    @Getter
+    private final AtomicLong borrowCount = new AtomicLong();
+    @Getter
+    private final AtomicLong borrowTimeoutCount = new AtomicLong();
+    @Getter
+    private final AtomicLong createdCount = new AtomicLong();
+    @Getter
+    private final AtomicLong closedCount = new AtomicLong();
+    private final AtomicLong totalBorrowWaitNanos = new AtomicLong();
+
+    /**
+     * Create the pool by settings
+     *
+     * @param settings The pool settings section, null to use defaults
+     */
+    protected AbstractPooledDatabaseCore(@Nullable ConfigurationSection settings) {
+        if (settings == null) {
+            settings = new MemoryConfiguration();
+        }
+        this.maxSize = Math.max(1, settings.getInt("max-size", 8));
+        this.minSize = Math.max(0, Math.min(maxSize, settings.getInt("min-size", 2)));
+        this.maxLifetime = TimeUnit.SECONDS.toMillis(settings.getLong("max-lifetime", 1800));
+        this.idleTimeout = TimeUnit.SECONDS.toMillis(settings.getLong("idle-timeout", 600));
+        this.borrowTimeout = TimeUnit.SECONDS.toMillis(Math.max(1, settings.getLong("borrow-timeout", 30)));
+        this.validationInterval = TimeUnit.SECONDS.toMillis(Math.max(1, settings.getLong("validation-interval", 30)));
+        this.validationTimeoutSeconds = Math.max(1, settings.getInt("validation-timeout", 5));
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Opens a new physical connection to database
+     *
+     * @return The connection
+     * @throws SQLException Failed to connect
+     */
+    @NotNull
+    protected abstract Connection openConnection() throws SQLException;
+
+    @Override
+    @NotNull
+    DatabaseConnection getConnection() {
+        // No synchronized here, the permits and idle deque already thread-safe
+        DatabaseConnection databaseConnection = getConnection0();
+        databaseConnection.markUsing();
+        return databaseConnection;
+    }
+
+    @Override
+    DatabaseConnection getConnection0() {
+        if (closed) {
+            throw new IllegalStateException("The connection pool already closed");
+        }
+        if (maintainer == null) {
+            startMaintainer();
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+                borrowTimeoutCount.incrementAndGet();
+                throw new IllegalStateException("Timed out after " + borrowTimeout + "ms waiting for a database connection, " + getActiveConnections() + " connections are in use");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a database connection", e);
+        }
+        totalBorrowWaitNanos.addAndGet(System.nanoTime() - start);
+        borrowCount.incrementAndGet();
+        try {
+            DatabaseConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isRetired(connection, System.currentTimeMillis())) {
+                    discard(connection);
+                    continue;
+                }
+                return connection;
+            }
+            return create();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    void releaseConnection(@NotNull DatabaseConnection connection) {
+        connection.setLastReleased(System.currentTimeMillis());
+        if (closed || isRetired(connection, connection.getLastReleased())) {
+            discard(connection);
+        } else {
+            // Most recently used first, so the tail connections can become idle and shrink
+            idle.offerFirst(connection);
+        }
+        permits.release();
+    }
+
+    private boolean isRetired(@NotNull DatabaseConnection connection, long now) {
+        return connection.isBroken() || (maxLifetime > 0 && now - connection.getCreatedAt() > maxLifetime);
+    }
+
+    @NotNull
+    private DatabaseConnection create() {
+        try {
+            DatabaseConnection connection = new DatabaseConnection(this, openConnection());
+            totalConnections.incrementAndGet();
+            createdCount.incrementAndGet();
+            return connection;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to create a new connection", e);
+        }
+    }
+
+    private void discard(@NotNull DatabaseConnection connection) {
+        totalConnections.decrementAndGet();
+        closedCount.incrementAndGet();
+        connection.close();
+    }
+
+    private synchronized void startMaintainer() {
+        if (maintainer != null || closed) {
+            return;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "QuickShop-DatabasePool-" + getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintainer = executor;
+        executor.scheduleWithFixedDelay(this::maintain, validationInterval, validationInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Validates the idle connections, closes the retired and timed out ones, and fills the pool up to min size.
+     */
+    private void maintain() {
+        try {
+            List<DatabaseConnection> snapshot = new ArrayList<>(idle);
+            long now = System.currentTimeMillis();
+            for (DatabaseConnection connection : snapshot) {
+                // Take a permit so the validating connection is counted as in use
+                if (!permits.tryAcquire()) {
+                    break;
+                }
+                try {
+                    if (!idle.remove(connection)) {
+                        // Borrowed after snapshot
+                        continue;
+                    }
+                    boolean timedOut = idleTimeout > 0 && now - connection.getLastReleased() > idleTimeout && totalConnections.get() > minSize;
+                    if (timedOut || isRetired(connection, now) || !connection.validate(validationTimeoutSeconds)) {
+                        discard(connection);
+                    } else {
+                        idle.offerLast(connection);
+                    }
+                } finally {
+                    permits.release();
+                }
+            }
+            while (!closed && totalConnections.get() < minSize && permits.tryAcquire()) {
+                try {
+                    DatabaseConnection connection = create();
+                    connection.setLastReleased(System.currentTimeMillis());
+                    idle.offerLast(connection);
+                } finally {
+                    permits.release();
+                }
+            }
+        } catch (Exception e) {
+            getPlugin().getLogger().log(Level.WARNING, "Failed to maintain the database connection pool", e);
+        }
+    }
+
+    @Override
+    void close() {
+        closed = true;
+        synchronized (this) {
+            ScheduledExecutorService executor = maintainer;
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        // Wait until the borrowed connections are finished
+        try {
+            if (permits.tryAcquire(maxSize, borrowTimeout, TimeUnit.MILLISECONDS)) {
+                permits.release(maxSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        DatabaseConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            discard(connection);
+        }
+    }
+
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    public int getActiveConnections() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public int getWaitingThreads() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Gets average time waiting for a connection permit
+     *
+     * @return The average wait time in milliseconds
+     */
+    public double getAverageBorrowWait() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0 : totalBorrowWaitNanos.get() / 1_000_000D / borrows;
+    }
+}
@@ -26,6 +26,8 @@ public class DatabaseConnection implements AutoCloseable {
 
     private final Connection connection;
     private final AbstractDatabaseCore databaseCore;
+    private final long createdAt = System.currentTimeMillis();
+    private volatile long lastReleased = createdAt;
     private volatile boolean using;
 
     public DatabaseConnection(AbstractDatabaseCore databaseCore, Connection connection) {
@@ -44,6 +46,48 @@ public class DatabaseConnection implements AutoCloseable {
         }
     }
 
+    /**
+     * Checks the connection with given timeout, used by background validation
+     *
+     * @param timeoutSeconds The timeout in seconds
+     * @return Is valid
+     */
+    synchronized boolean validate(int timeoutSeconds) {
+        try {
+            return !connection.isClosed() && connection.isValid(timeoutSeconds);
+        } catch (SQLException ignored) {
+            return false;
+        } catch (AbstractMethodError ignored) {
+            //driver not supported
+            return true;
+        }
+    }
+
+    /**
+     * Checks the connection closed without talking to database
+     *
+     * @return Is the connection closed
+     */
+    boolean isBroken() {
+        try {
+            return connection.isClosed();
+        } catch (SQLException ignored) {
+            return true;
+        }
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    long getLastReleased() {
+        return lastReleased;
+    }
+
+    void setLastReleased(long lastReleased) {
+        this.lastReleased = lastReleased;
+    }
+
     @Override
     public synchronized void close() {
         try {
@@ -57,7 +101,9 @@ public class DatabaseConnection implements AutoCloseable {
             }
         } catch (SQLException ignored) {
         } finally {
-            release();
+            // Don't hand the closed connection back to core
+            using = false;
+            databaseCore.signalForNewConnection();
         }
     }
 
@@ -81,7 +127,7 @@ public class DatabaseConnection implements AutoCloseable {
     public synchronized void release() {
         if (using) {
             using = false;
-            databaseCore.signalForNewConnection();
+            databaseCore.releaseConnection(this);
         } else {
             throw new ConnectionIsNotUsingException();
         }
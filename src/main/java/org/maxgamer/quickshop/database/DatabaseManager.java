@@ -37,8 +37,14 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 /**
@@ -46,7 +52,27 @@ import java.util.logging.Level;
  */
 public class DatabaseManager implements Reloadable {
 
-    private final Queue<DatabaseTask> sqlQueue = new LinkedBlockingQueue<>();
+    private final BlockingDeque<DatabaseTask> sqlQueue = new LinkedBlockingDeque<>();
+
+    /**
+     * The latest queued task of every merge key
+     */
+    private final Map<String, DatabaseTask> pendingMerges = new ConcurrentHashMap<>();
+
+    @Getter
+    private final AtomicLong coalescedTasks = new AtomicLong();
+    @Getter
+    private final AtomicLong executedTasks = new AtomicLong();
+    @Getter
+    private final AtomicLong executedBatches = new AtomicLong();
+    @Getter
+    private volatile int lastBatchSize;
+    @Getter
+    private volatile int maxObservedBatchSize;
+    @Getter
+    private volatile long lastFlushTime;
+    @Getter
+    private volatile long maxFlushTime;
 
     @NotNull
     @Getter
@@ -57,7 +83,13 @@ public class DatabaseManager implements Reloadable {
 
     @NotNull
     private final WarningSender warningSender;
+    /**
+     * Called before each queue flush, used to move the buffered tasks into queue
+     */
+    private final List<Runnable> flushHooks = new CopyOnWriteArrayList<>();
+    @Getter
     private boolean useQueue;
+    private int maxBatchSize;
     @Nullable
     private BukkitTask task;
 
@@ -79,6 +111,7 @@ public class DatabaseManager implements Reloadable {
 
     private void init() throws ConnectionException {
         this.useQueue = plugin.getConfig().getBoolean("database.queue");
+        this.maxBatchSize = Math.max(1, plugin.getConfig().getInt("database.queue-max-batch-size", 500));
         if (task != null) {
             task.cancel();
             plugin.getDatabaseManager().runTask();
@@ -160,10 +193,46 @@ public class DatabaseManager implements Reloadable {
         return match; // Uh, wtf.
     }
 
+    /**
+     * Gets the amount of tasks waiting in queue
+     *
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        return sqlQueue.size();
+    }
+
+    /**
+     * Polls next task that need to be executed, the superseded tasks will be skipped.
+     *
+     * @return The task, null if queue is empty
+     */
+    @Nullable
+    private DatabaseTask pollTask() {
+        while (true) {
+            DatabaseTask task = sqlQueue.poll();
+            if (task == null) {
+                return null;
+            }
+            if (task.isSuperseded()) {
+                coalescedTasks.incrementAndGet();
+                continue;
+            }
+            if (task.getMergeKey() != null) {
+                pendingMerges.remove(task.getMergeKey(), task);
+            }
+            return task;
+        }
+    }
+
     /**
      * Internal method, runTasks in queue.
+     * The continuous tasks with same statement will be executed in one batch.
      */
     private synchronized void runTask() { // synchronized for QUICKSHOP-WX
+        for (Runnable flushHook : flushHooks) {
+            flushHook.run();
+        }
         if (sqlQueue.isEmpty()) {
             return;
         }
@@ -174,19 +243,45 @@ public class DatabaseManager implements Reloadable {
             //start our commit
             connection.setAutoCommit(false);
             Timer ctimer = new Timer(true);
+            List<DatabaseTask> batch = new ArrayList<>();
+            DatabaseTask next = null;
             while (true) {
                 if (!dbconnection.isValid()) {
+                    if (next != null) {
+                        sqlQueue.offerFirst(next);
+                    }
                     warningSender.sendWarn("Database connection may lost, we are trying reconnecting, if this message appear too many times, you should check your database file(sqlite) and internet connection(mysql).");
                     return; // Waiting next crycle and hope it success reconnected.
                 }
 
                 Timer timer = new Timer(true);
-                DatabaseTask task = sqlQueue.poll();
-                if (task == null) {
+                DatabaseTask first = next != null ? next : pollTask();
+                next = null;
+                if (first == null) {
                     break;
                 }
+                batch.clear();
+                batch.add(first);
+                // Keep the queue order, only merge the tasks next to each other
+                while (batch.size() < maxBatchSize) {
+                    DatabaseTask task = pollTask();
+                    if (task == null) {
+                        break;
+                    }
+                    if (!task.getStatement().equals(first.getStatement())) {
+                        next = task;
+                        break;
+                    }
+                    batch.add(task);
+                }
 
-                task.run(connection);
+                DatabaseTask.runBatch(connection, batch);
+                executedTasks.addAndGet(batch.size());
+                executedBatches.incrementAndGet();
+                lastBatchSize = batch.size();
+                if (batch.size() > maxObservedBatchSize) {
+                    maxObservedBatchSize = batch.size();
+                }
                 long tookTime = timer.stopAndGetTimePassed();
                 if (tookTime > 300) {
                     warningSender.sendWarn(
@@ -200,6 +295,10 @@ public class DatabaseManager implements Reloadable {
                 connection.setAutoCommit(true);
             }
             long tookTime = ctimer.stopAndGetTimePassed();
+            lastFlushTime = tookTime;
+            if (tookTime > maxFlushTime) {
+                maxFlushTime = tookTime;
+            }
             if (tookTime > 5500) {
                 warningSender.sendWarn(
                         "Database performance warning: It took too long time ("
@@ -215,15 +314,15 @@ public class DatabaseManager implements Reloadable {
         } finally {
             dbconnection.release();
         }
+    }
 
-//        try {
-//            this.database.getConnection().commit();
-//        } catch (SQLException e) {
-//            try {
-//                this.database.getConnection().rollback();
-//            } catch (SQLException ignored) {
-//            }
-//        }
+    /**
+     * Executes the queued tasks now, call it off the server thread before reading the rows may still in queue
+     */
+    public void flushQueue() {
+        if (useQueue) {
+            runTask();
+        }
     }
 
     /**
@@ -244,12 +343,27 @@ public class DatabaseManager implements Reloadable {
      */
     public void addDelayTask(DatabaseTask task) {
         if (useQueue) {
+            if (task.getMergeKey() != null) {
+                DatabaseTask previous = pendingMerges.put(task.getMergeKey(), task);
+                if (previous != null) {
+                    previous.supersede();
+                }
+            }
             sqlQueue.offer(task);
         } else {
             runInstantTask(task);
         }
     }
 
+    /**
+     * Registers a hook called before each queue flush
+     *
+     * @param flushHook The hook
+     */
+    public void addFlushHook(@NotNull Runnable flushHook) {
+        flushHooks.add(flushHook);
+    }
+
     /**
      * Unload the DatabaseManager, run at onDisable()
      */
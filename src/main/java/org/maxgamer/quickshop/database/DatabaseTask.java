@@ -20,34 +20,124 @@
 package org.maxgamer.quickshop.database;
 
 
+import lombok.Getter;
 import lombok.ToString;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
 
 @ToString()
 public class DatabaseTask {
 
     private final static Task EMPTY_TASK = ps -> {
     };
+    @Getter
     private final String statement;
     private final Task task;
+    /**
+     * Queued tasks with same merge key are collapsed, only the latest one will be executed
+     */
+    @Getter
+    @Nullable
+    private final String mergeKey;
+    @ToString.Exclude
+    private volatile boolean superseded;
 
     public DatabaseTask(String statement, Task task) {
+        this(statement, null, task);
+    }
+
+    public DatabaseTask(String statement, @Nullable String mergeKey, Task task) {
         this.statement = statement;
+        this.mergeKey = mergeKey;
         this.task = task;
     }
 
     public DatabaseTask(String statement) {
-        this.statement = statement;
-        this.task = EMPTY_TASK;
+        this(statement, null, EMPTY_TASK);
     }
 
+    /**
+     * Executes the tasks that share same statement in one JDBC batch.
+     * If the batch failed, it will be rolled back and tasks will be executed one by one,
+     * so only the broken tasks get failed.
+     *
+     * @param connection The connection
+     * @param tasks      The tasks, all tasks must have the same statement
+     */
+    static void runBatch(@NotNull Connection connection, @NotNull List<DatabaseTask> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        if (tasks.size() == 1) {
+            tasks.get(0).run(connection);
+            return;
+        }
+        List<DatabaseTask> batched = new ArrayList<>(tasks.size());
+        Savepoint savepoint = null;
+        try (PreparedStatement ps = connection.prepareStatement(tasks.get(0).statement)) {
+            for (DatabaseTask databaseTask : tasks) {
+                try {
+                    databaseTask.task.edit(ps);
+                    ps.addBatch();
+                    batched.add(databaseTask);
+                } catch (SQLException e) {
+                    ps.clearParameters();
+                    databaseTask.task.onFailed(e);
+                }
+            }
+            if (batched.isEmpty()) {
+                return;
+            }
+            if (!connection.getAutoCommit()) {
+                savepoint = connection.setSavepoint();
+            }
+            ps.executeBatch();
+        } catch (SQLException e) {
+            if (batched.isEmpty()) {
+                // Failed before any task added, e.g. prepare the statement
+                tasks.forEach(databaseTask -> databaseTask.task.onFailed(e));
+                return;
+            }
+            if (savepoint == null) {
+                // Some of them may executed already, cannot retry safely
+                batched.forEach(databaseTask -> databaseTask.task.onFailed(e));
+                return;
+            }
+            try {
+                connection.rollback(savepoint);
+            } catch (SQLException rollbackException) {
+                batched.forEach(databaseTask -> databaseTask.task.onFailed(e));
+                return;
+            }
+            batched.forEach(databaseTask -> databaseTask.run(connection));
+            return;
+        }
+        if (savepoint != null) {
+            try {
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException ignored) {
+            }
+        }
+        batched.forEach(databaseTask -> databaseTask.task.onSuccess());
+    }
+
+    boolean isSuperseded() {
+        return superseded;
+    }
+
+    void supersede() {
+        this.superseded = true;
+    }
 
     public void run(@NotNull Connection connection) {
-        try (PreparedStatement ps = connection.prepareStatement(statement)) { //TODO Use addBatch to improve performance
+        try (PreparedStatement ps = connection.prepareStatement(statement)) {
             task.edit(ps);
             ps.execute();
             task.onSuccess();
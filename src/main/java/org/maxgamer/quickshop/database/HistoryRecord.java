@@ -0,0 +1,233 @@
+/*
+ * This file is a part of project QuickShop, the name is HistoryRecord.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.maxgamer.quickshop.database;
+
+import lombok.Getter;
+import me.lucko.helper.serialize.BlockPosition;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.maxgamer.quickshop.api.shop.ShopInfoStorage;
+import org.maxgamer.quickshop.api.shop.ShopModerator;
+import org.maxgamer.quickshop.shop.SimpleShopModerator;
+import org.maxgamer.quickshop.util.JsonUtil;
+import org.maxgamer.quickshop.util.Util;
+import org.maxgamer.quickshop.util.logging.container.EconomyTransactionLog;
+import org.maxgamer.quickshop.util.logging.container.OngoingFeeLog;
+import org.maxgamer.quickshop.util.logging.container.PlayerEconomyPreCheckLog;
+import org.maxgamer.quickshop.util.logging.container.ShopCreationLog;
+import org.maxgamer.quickshop.util.logging.container.ShopModeratorChangedLog;
+import org.maxgamer.quickshop.util.logging.container.ShopPriceChangedLog;
+import org.maxgamer.quickshop.util.logging.container.ShopPurchaseLog;
+import org.maxgamer.quickshop.util.logging.container.ShopRemoveLog;
+import org.maxgamer.quickshop.util.logging.container.ShopStackingStatusChangeLog;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.UUID;
+
+/**
+ * The typed columns of a row in history table, mapped from the log containers.
+ * <p>
+ * The columns not applicable for the log type are null, the whole log is kept in data column as JSON.
+ */
+@Getter
+public class HistoryRecord {
+    static final String COLUMNS = "time, type, world, x, y, z, owner, actor, item, amount, total, data";
+    static final String PLACEHOLDERS = "?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?";
+
+    private final long time;
+    private final String type;
+    private final Object record;
+    @Nullable
+    private String world;
+    @Nullable
+    private Integer x;
+    @Nullable
+    private Integer y;
+    @Nullable
+    private Integer z;
+    @Nullable
+    private UUID owner;
+    @Nullable
+    private UUID actor;
+    @Nullable
+    private String item;
+    @Nullable
+    private Integer amount;
+    @Nullable
+    private Double total;
+
+    private HistoryRecord(long time, @NotNull Object record) {
+        this.time = time;
+        this.type = record.getClass().getSimpleName();
+        this.record = record;
+    }
+
+    /**
+     * Maps the log container to typed columns
+     *
+     * @param time   The time of log
+     * @param record The log container
+     * @return The history record
+     */
+    @NotNull
+    public static HistoryRecord of(long time, @NotNull Object record) {
+        HistoryRecord history = new HistoryRecord(time, record);
+        if (record instanceof ShopPurchaseLog) {
+            ShopPurchaseLog log = (ShopPurchaseLog) record;
+            history.shop(log.getShop());
+            history.actor = log.getTrader();
+            history.item = itemKey(log.getItemStack());
+            history.amount = log.getAmount();
+            history.total = log.getBalance();
+        } else if (record instanceof EconomyTransactionLog) {
+            EconomyTransactionLog log = (EconomyTransactionLog) record;
+            history.actor = log.getFrom();
+            history.owner = log.getTo();
+            history.total = log.getAmount();
+        } else if (record instanceof ShopPriceChangedLog) {
+            ShopPriceChangedLog log = (ShopPriceChangedLog) record;
+            history.shop(log.getShop());
+            history.total = log.getNewPrice();
+        } else if (record instanceof ShopCreationLog) {
+            ShopCreationLog log = (ShopCreationLog) record;
+            history.shop(log.getShop());
+            history.actor = log.getCreator();
+        } else if (record instanceof ShopRemoveLog) {
+            ShopRemoveLog log = (ShopRemoveLog) record;
+            history.shop(log.getShop());
+            history.actor = log.getPlayer();
+        } else if (record instanceof ShopModeratorChangedLog) {
+            ShopModeratorChangedLog log = (ShopModeratorChangedLog) record;
+            history.shop(log.getShop());
+            if (log.getModerator() != null) {
+                history.owner = log.getModerator().getOwner();
+            }
+        } else if (record instanceof ShopStackingStatusChangeLog) {
+            ShopStackingStatusChangeLog log = (ShopStackingStatusChangeLog) record;
+            history.world = log.getRawDatabaseInfo().getWorld();
+            history.x = log.getRawDatabaseInfo().getX();
+            history.y = log.getRawDatabaseInfo().getY();
+            history.z = log.getRawDatabaseInfo().getZ();
+        } else if (record instanceof PlayerEconomyPreCheckLog) {
+            PlayerEconomyPreCheckLog log = (PlayerEconomyPreCheckLog) record;
+            history.actor = log.getPlayer();
+            history.total = log.getHolding();
+        } else if (record instanceof OngoingFeeLog) {
+            OngoingFeeLog log = (OngoingFeeLog) record;
+            history.owner = log.getOwner();
+            history.actor = log.getOwner();
+            history.total = log.getAmount();
+        }
+        return history;
+    }
+
+    private void shop(@Nullable ShopInfoStorage shop) {
+        if (shop == null) {
+            return;
+        }
+        BlockPosition position = shop.getPosition();
+        this.world = shop.getWorld();
+        if (position != null) {
+            this.x = position.getX();
+            this.y = position.getY();
+            this.z = position.getZ();
+        }
+        if (shop.getModerator() != null) {
+            try {
+                ShopModerator moderator = SimpleShopModerator.deserialize(shop.getModerator());
+                this.owner = moderator.getOwner();
+            } catch (RuntimeException e) {
+                Util.debugLog("Failed to read shop owner for history: " + e.getMessage());
+            }
+        }
+        if (this.item == null) {
+            this.item = itemKey(shop.getItem());
+        }
+    }
+
+    /**
+     * Reads the material name from the ItemStack YAML created by {@link Util#serialize(ItemStack)}
+     * without deserializing the whole item, only the top-level type key of the item is used.
+     */
+    @Nullable
+    static String itemKey(@Nullable String itemConfig) {
+        if (itemConfig == null) {
+            return null;
+        }
+        int indent = -1;
+        for (String line : itemConfig.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int lineIndent = line.indexOf(trimmed);
+            if (indent == -1) {
+                // The keys of item are one level below the item root key
+                if (lineIndent == 0 && trimmed.endsWith(":")) {
+                    continue;
+                }
+                indent = lineIndent;
+            }
+            if (lineIndent == indent && trimmed.startsWith("type:")) {
+                String type = trimmed.substring(5).trim();
+                if (type.length() > 1 && (type.charAt(0) == '\'' || type.charAt(0) == '"')) {
+                    type = type.substring(1, type.length() - 1);
+                }
+                return type.isEmpty() ? null : type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Binds the columns in {@link #COLUMNS} order
+     *
+     * @param ps The statement
+     * @throws SQLException Throws if any exception throws
+     */
+    void bind(@NotNull PreparedStatement ps) throws SQLException {
+        ps.setLong(1, time);
+        ps.setString(2, type);
+        ps.setString(3, world);
+        setInteger(ps, 4, x);
+        setInteger(ps, 5, y);
+        setInteger(ps, 6, z);
+        ps.setString(7, owner == null ? null : owner.toString());
+        ps.setString(8, actor == null ? null : actor.toString());
+        ps.setString(9, item);
+        setInteger(ps, 10, amount);
+        if (total == null) {
+            ps.setNull(11, Types.DOUBLE);
+        } else {
+            ps.setDouble(11, total);
+        }
+        ps.setString(12, JsonUtil.getGson().toJson(record));
+    }
+
+    private static void setInteger(@NotNull PreparedStatement ps, int index, @Nullable Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+}
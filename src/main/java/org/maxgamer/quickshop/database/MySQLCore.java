@@ -23,17 +23,14 @@ import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.maxgamer.quickshop.QuickShop;
 
+import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
-public class MySQLCore extends AbstractDatabaseCore {
+public class MySQLCore extends AbstractPooledDatabaseCore {
 
-    private static final int MAX_CONNECTIONS = 8;
-    private final List<DatabaseConnection> POOL = new ArrayList<>();
     /**
      * The connection properties... user, pass, autoReconnect..
      */
@@ -58,6 +55,7 @@ public class MySQLCore extends AbstractDatabaseCore {
             @NotNull String port,
             @NotNull String tablePrefix,
             boolean useSSL, Map<String, String> options) {
+        super(plugin.getConfig().getConfigurationSection("database.pool"));
         this.plugin = plugin;
         this.tablePrefix = tablePrefix;
         info = new Properties();
@@ -66,19 +64,17 @@ public class MySQLCore extends AbstractDatabaseCore {
         info.setProperty("password", pass);
         info.setProperty("useUnicode", "true");
         info.setProperty("characterEncoding", "utf8");
+        // Let the driver send the queued batches as multi-row statements
+        info.setProperty("rewriteBatchedStatements", "true");
+        // Let the statements with fetch size stream rows instead of reading whole table into memory
+        info.setProperty("useCursorFetch", "true");
         for (Map.Entry<String, String> entry : options.entrySet()) {
             info.setProperty(entry.getKey(), entry.getValue());
         }
         //info.setProperty("maxReconnects", "65535");
         // info.setProperty("failOverReadOnly", "false");
         info.setProperty("useSSL", String.valueOf(useSSL));
-        if (false) { //TODO Option for addBatch to improve performance
-            info.setProperty("rewriteBatchedStatements", "true");
-        }
         this.url = "jdbc:mysql://" + host + ":" + port + "/" + database;
-        for (int i = 0; i < MAX_CONNECTIONS; i++) {
-            POOL.add(null);
-        }
     }
 
     @Override
@@ -87,56 +83,8 @@ public class MySQLCore extends AbstractDatabaseCore {
     }
 
     @Override
-    synchronized void close() {
-        for (DatabaseConnection databaseConnection : POOL) {
-            if (databaseConnection == null || !databaseConnection.isValid()) {
-                continue;
-            }
-            if (!databaseConnection.isUsing()) {
-                databaseConnection.close();
-            } else {
-                //Wait until the connection is finished
-                try {
-                    Thread.sleep(2000);
-                } catch (InterruptedException ignored) {
-                } finally {
-                    close();
-                }
-            }
-        }
-    }
-
-    @Override
-    synchronized protected DatabaseConnection getConnection0() {
-        for (int i = 0; i < MAX_CONNECTIONS; i++) {
-            DatabaseConnection connection = POOL.get(i);
-            // If we have a current connection, fetch it
-            if (connection == null) {
-                return genConnection(i);
-            } else if (!connection.isUsing()) {
-                if (connection.isValid()) {
-                    return connection;
-                } else {
-                    // Else, it is invalid, return another connection.
-                    connection.close();
-                    return genConnection(i);
-                }
-            }
-
-        }
-        //If all connection is unusable, wait a moment
-        waitForConnection();
-        return getConnection0();
-    }
-
-    synchronized private DatabaseConnection genConnection(int index) {
-        try {
-            DatabaseConnection connection = new DatabaseConnection(this, DriverManager.getConnection(this.url, info));
-            POOL.set(index, connection);
-            return connection;
-        } catch (SQLException e) {
-            throw new RuntimeException("Unable to create a new connection", e);
-        }
+    protected @NotNull Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(this.url, info);
     }
 
     @Override
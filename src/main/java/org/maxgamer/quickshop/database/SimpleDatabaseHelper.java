@@ -21,23 +21,30 @@ package org.maxgamer.quickshop.database;
 
 import org.bukkit.Location;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.maxgamer.quickshop.QuickShop;
 import org.maxgamer.quickshop.api.database.DatabaseHelper;
+import org.maxgamer.quickshop.api.database.HistoryQuery;
 import org.maxgamer.quickshop.api.shop.Shop;
 import org.maxgamer.quickshop.api.shop.ShopModerator;
-import org.maxgamer.quickshop.util.JsonUtil;
 import org.maxgamer.quickshop.util.Util;
 import org.maxgamer.quickshop.util.reload.ReloadResult;
 import org.maxgamer.quickshop.util.reload.ReloadStatus;
 import org.maxgamer.quickshop.util.reload.Reloadable;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 
@@ -53,10 +60,19 @@ public class SimpleDatabaseHelper implements DatabaseHelper, Reloadable {
     @NotNull
     private final QuickShop plugin;
 
+    /**
+     * The history records waiting to be queued, they are queued together so written in one batch
+     */
+    private final Queue<PendingHistory> pendingHistory = new ConcurrentLinkedQueue<>();
+
+    @Nullable
+    private BukkitTask archiveTask;
+
     public SimpleDatabaseHelper(@NotNull QuickShop plugin, @NotNull DatabaseManager manager) throws SQLException {
         this.plugin = plugin;
         this.manager = manager;
         plugin.getReloadManager().register(this);
+        manager.addFlushHook(this::flushHistory);
         init();
     }
 
@@ -73,7 +89,24 @@ public class SimpleDatabaseHelper implements DatabaseHelper, Reloadable {
         if (!manager.hasTable(manager.getDatabase().getTablePrefix() + "external_cache")) {
             createExternalCacheTable();
         }
+        if (!manager.hasTable(manager.getDatabase().getTablePrefix() + "history")) {
+            createHistoryTable("history", true);
+        }
+        if (!manager.hasTable(manager.getDatabase().getTablePrefix() + "history_archive")) {
+            createHistoryTable("history_archive", false);
+        }
         checkColumns();
+        if (archiveTask != null) {
+            archiveTask.cancel();
+            archiveTask = null;
+        }
+        long retentionDays = plugin.getConfig().getLong("logging.history-retention-days", 90);
+        if (retentionDays > 0) {
+            // Archive once shortly after start, then daily
+            archiveTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin,
+                    () -> archiveHistory(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays)),
+                    20L * 60, 20L * 60 * 60 * 24);
+        }
     }
 
     /**
@@ -109,6 +142,30 @@ public class SimpleDatabaseHelper implements DatabaseHelper, Reloadable {
         createColumn("logs", "data", new DataType(DataTypeMapping.LONGTEXT, null, ""));
     }
 
+    /**
+     * Creates the structured history table, the archive table shares same columns
+     *
+     * @param table      The table name without prefix
+     * @param fullIndexes Create the lookup indexes, otherwise only the time index
+     */
+    private void createHistoryTable(@NotNull String table, boolean fullIndexes) {
+        String prefix = manager.getDatabase().getTablePrefix();
+        String createTable = "CREATE TABLE " + prefix + table
+                + " (time BIGINT(32) NOT NULL, type VARCHAR(64) NOT NULL, world VARCHAR(128), x INTEGER(32), y INTEGER(32), z INTEGER(32),"
+                + " owner VARCHAR(36), actor VARCHAR(36), item VARCHAR(128), amount INTEGER(32), total DOUBLE, data LONGTEXT)";
+        if (manager.getDatabase() instanceof MySQLCore) {
+            createTable += " CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci";
+        }
+        manager.runInstantTask(new DatabaseTask(createTable + ";"));
+        manager.runInstantTask(new DatabaseTask("CREATE INDEX " + prefix + table + "_time ON " + prefix + table + " (time)"));
+        if (fullIndexes) {
+            manager.runInstantTask(new DatabaseTask("CREATE INDEX " + prefix + table + "_shop ON " + prefix + table + " (world, x, y, z, time)"));
+            manager.runInstantTask(new DatabaseTask("CREATE INDEX " + prefix + table + "_owner ON " + prefix + table + " (owner, time)"));
+            manager.runInstantTask(new DatabaseTask("CREATE INDEX " + prefix + table + "_actor ON " + prefix + table + " (actor, time)"));
+            manager.runInstantTask(new DatabaseTask("CREATE INDEX " + prefix + table + "_item ON " + prefix + table + " (item, time)"));
+        }
+    }
+
     private void createExternalCacheTable() {
         String createTable = "CREATE TABLE " + manager.getDatabase().getTablePrefix()
                 + "external_cache  (x INTEGER(32) NOT NULL, y  INTEGER(32) NOT NULL, z  INTEGER(32) NOT NULL, world VARCHAR(128) NOT NULL, PRIMARY KEY (x, y, z, world));";
@@ -138,11 +195,16 @@ public class SimpleDatabaseHelper implements DatabaseHelper, Reloadable {
         manager.runInstantTask(new DatabaseTask("ALTER TABLE " + manager.getDatabase().getTablePrefix() + "shops MODIFY COLUMN price double(32,2) NOT NULL AFTER owner", checkTask));
         // V3.4.3
         manager.runInstantTask(new DatabaseTask("ALTER TABLE " + manager.getDatabase().getTablePrefix() + "messages MODIFY COLUMN time BIGINT(32) NOT NULL AFTER message", checkTask));
+        // Fails if already exists
+        manager.runInstantTask(new DatabaseTask("CREATE INDEX " + manager.getDatabase().getTablePrefix() + "messages_owner ON " + manager.getDatabase().getTablePrefix() + "messages (owner, time)", checkTask));
+        manager.runInstantTask(new DatabaseTask("CREATE INDEX " + manager.getDatabase().getTablePrefix() + "messages_time ON " + manager.getDatabase().getTablePrefix() + "messages (time)", checkTask));
         //Extra column
         createColumn("shops", "extra", new DataType(DataTypeMapping.LONGTEXT, null, ""));
         createColumn("shops", "currency", new DataType(DataTypeMapping.TEXT));
         createColumn("shops", "disableDisplay", new DataType(DataTypeMapping.INT, null, -1));
         createColumn("shops", "taxAccount", new DataType(DataTypeMapping.VARCHAR, 255));
+        // Binary form of itemConfig, itemConfig is kept for fallback and downgrade
+        createColumn("shops", "itemBinary", new DataType(DataTypeMapping.LONGBLOB));
 
 
         if (manager.getDatabase() instanceof MySQLCore) {
@@ -207,10 +269,28 @@ public class SimpleDatabaseHelper implements DatabaseHelper, Reloadable {
         manager.addDelayTask(new DatabaseTask(sqlString, (ps) -> ps.setString(1, player.toString())));
     }
 
+    @Override
+    public void cleanMessageForPlayer(@NotNull UUID player, long before) {
+        String sqlString = "DELETE FROM " + manager.getDatabase().getTablePrefix() + "messages WHERE owner = ? AND time <= ?";
+        manager.addDelayTask(new DatabaseTask(sqlString, (ps) -> {
+            ps.setString(1, player.toString());
+            ps.setLong(2, before);
+        }));
+    }
+
+    @Override
+    public void updateMessageOwner(@NotNull String legacyOwner, @NotNull UUID owner) {
+        String sqlString = "UPDATE " + manager.getDatabase().getTablePrefix() + "messages SET owner = ? WHERE owner = ?";
+        manager.addDelayTask(new DatabaseTask(sqlString, (ps) -> {
+            ps.setString(1, owner.toString());
+            ps.setString(2, legacyOwner);
+        }));
+    }
+
     @Override
     public void createShop(@NotNull Shop shop, @Nullable Runnable onSuccess, @Nullable Consumer<SQLException> onFailed) {
         removeShop(shop); //First purge old exist shop before create new shop.
-        String sqlString = "INSERT INTO " + manager.getDatabase().getTablePrefix() + "shops (owner, price, itemConfig, x, y, z, world, unlimited, type, extra) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String sqlString = "INSERT INTO " + manager.getDatabase().getTablePrefix() + "shops (owner, price, itemConfig, x, y, z, world, unlimited, type, extra, itemBinary) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         manager.addDelayTask(new DatabaseTask(sqlString, new DatabaseTask.Task() {
             @Override
             public void edit(PreparedStatement ps) throws SQLException {
@@ -232,6 +312,7 @@ public class SimpleDatabaseHelper implements DatabaseHelper, Reloadable {
                 ps.setInt(8, shop.isUnlimited() ? 1 : 0);
                 ps.setInt(9, shop.getShopType().toID());
                 ps.setString(10, shop.saveExtraToYaml());
+                ps.setBytes(11, Util.serializeToBytes(shop.getItem()));
             }
 
             @Override
@@ -288,6 +369,22 @@ public class SimpleDatabaseHelper implements DatabaseHelper, Reloadable {
         return selectTable("messages");
     }
 
+    @Override
+    public SimpleWarpedResultSet selectMessageCounts() throws SQLException {
+        return executeQuery("SELECT owner, COUNT(*) AS amount FROM " + manager.getDatabase().getTablePrefix() + "messages GROUP BY owner", ps -> {
+        });
+    }
+
+    @Override
+    public SimpleWarpedResultSet selectMessages(@NotNull UUID player, long before, int offset, int limit) throws SQLException {
+        return executeQuery("SELECT message, time FROM " + manager.getDatabase().getTablePrefix() + "messages WHERE owner = ? AND time <= ? ORDER BY time DESC LIMIT ? OFFSET ?", ps -> {
+            ps.setString(1, player.toString());
+            ps.setLong(2, before);
+            ps.setInt(3, Math.max(1, limit));
+            ps.setInt(4, Math.max(0, offset));
+        });
+    }
+
     @Override
     public SimpleWarpedResultSet selectTable(String table) throws SQLException {
         DatabaseConnection databaseConnection = manager.getDatabase().getConnection();
@@ -303,6 +400,59 @@ public class SimpleDatabaseHelper implements DatabaseHelper, Reloadable {
         return selectTable("shops");
     }
 
+    @Override
+    public SimpleWarpedResultSet selectAllShops(int fetchSize) throws SQLException {
+        return executeQuery("SELECT * FROM " + manager.getDatabase().getTablePrefix() + "shops", ps -> ps.setFetchSize(fetchSize));
+    }
+
+    @Override
+    public SimpleWarpedResultSet selectShopIndex(int fetchSize) throws SQLException {
+        return executeQuery("SELECT x, y, z, world, owner, unlimited FROM " + manager.getDatabase().getTablePrefix() + "shops", ps -> ps.setFetchSize(fetchSize));
+    }
+
+    @Override
+    public SimpleWarpedResultSet selectShopsInArea(@NotNull String world, int minX, int minZ, int maxX, int maxZ) throws SQLException {
+        return executeQuery("SELECT * FROM " + manager.getDatabase().getTablePrefix() + "shops WHERE world = ? AND x >= ? AND x <= ? AND z >= ? AND z <= ?", ps -> {
+            ps.setString(1, world);
+            ps.setInt(2, minX);
+            ps.setInt(3, maxX);
+            ps.setInt(4, minZ);
+            ps.setInt(5, maxZ);
+        });
+    }
+
+    /**
+     * Executes the query and wraps the result, the statement and connection are released
+     * by the result, or here if the query failed.
+     *
+     * @param sql    The query
+     * @param binder The binder sets the parameters of statement
+     * @return The result
+     * @throws SQLException Throws if any exception throws
+     */
+    @NotNull
+    private SimpleWarpedResultSet executeQuery(@NotNull String sql, @NotNull DatabaseTask.Task binder) throws SQLException {
+        DatabaseConnection databaseConnection = manager.getDatabase().getConnection();
+        PreparedStatement ps = null;
+        try {
+            ps = databaseConnection.get().prepareStatement(sql);
+            binder.edit(ps);
+            ResultSet resultSet = ps.executeQuery();
+            //Resource closes will complete in this class
+            return new SimpleWarpedResultSet(ps, resultSet, databaseConnection);
+        } catch (SQLException | RuntimeException e) {
+            if (ps != null) {
+                try {
+                    ps.close();
+                } catch (SQLException closeException) {
+                    e.addSuppressed(closeException);
+                }
+            }
+            databaseConnection.release();
+            throw e;
+        }
+    }
+
     @Override
     public void saveOfflineTransactionMessage(@NotNull UUID player, @NotNull String message, long time) {
 
@@ -377,9 +527,11 @@ public class SimpleDatabaseHelper implements DatabaseHelper, Reloadable {
                            double price, int x, int y, int z, @NotNull String world, @NotNull String extra,
                            @Nullable String currency, boolean disableDisplay, @Nullable String taxAccount) {
         String sqlString = "UPDATE " + manager.getDatabase().getTablePrefix() + "shops SET owner = ?, itemConfig = ?, unlimited = ?, type = ?, price = ?," +
-                " extra = ?, currency = ?, disableDisplay = ?, taxAccount = ?" +
+                " extra = ?, currency = ?, disableDisplay = ?, taxAccount = ?, itemBinary = ?" +
                 " WHERE x = ? AND y = ? and z = ? and world = ?";
-        manager.addDelayTask(new DatabaseTask(sqlString, ps -> {
+        // Every update writes the whole shop, so only the latest one in queue is needed
+        String mergeKey = "updateShop:" + world + ":" + x + ":" + y + ":" + z;
+        manager.addDelayTask(new DatabaseTask(sqlString, mergeKey, ps -> {
             ps.setString(1, owner);
             ps.setString(2, Util.serialize(item));
             ps.setInt(3, unlimited);
@@ -389,10 +541,11 @@ public class SimpleDatabaseHelper implements DatabaseHelper, Reloadable {
             ps.setString(7, currency);
             ps.setInt(8, disableDisplay ? 1 : 0);
             ps.setString(9, taxAccount);
-            ps.setInt(10, x);
-            ps.setInt(11, y);
-            ps.setInt(12, z);
-            ps.setString(13, world);
+            ps.setBytes(10, Util.serializeToBytes(item));
+            ps.setInt(11, x);
+            ps.setInt(12, y);
+            ps.setInt(13, z);
+            ps.setString(14, world);
         }));
         //db.execute(q, owner, Util.serialize(item), unlimited, shopType, price, x, y, z, world);
 
@@ -400,15 +553,116 @@ public class SimpleDatabaseHelper implements DatabaseHelper, Reloadable {
 
     @Override
     public void insertHistoryRecord(Object rec) {
-        String sqlString = "INSERT INTO " + manager.getDatabase().getTablePrefix() + "logs (time, classname, data) VALUES (?, ?, ?)";
-        manager.addDelayTask(
-                new DatabaseTask(
-                        sqlString,
-                        (ps) -> {
-                            ps.setLong(1, System.currentTimeMillis());
-                            ps.setString(2, rec.getClass().getName());
-                            ps.setString(3, JsonUtil.getGson().toJson(rec));
-                        }));
+        long time = System.currentTimeMillis();
+        if (!manager.isUseQueue()) {
+            manager.runInstantTask(createHistoryTask(time, rec));
+            return;
+        }
+        pendingHistory.add(new PendingHistory(time, rec));
+    }
+
+    /**
+     * Moves the buffered history records into database queue, so they are executed in one batch
+     */
+    private void flushHistory() {
+        PendingHistory history;
+        while ((history = pendingHistory.poll()) != null) {
+            manager.addDelayTask(createHistoryTask(history.time, history.record));
+        }
+    }
+
+    @NotNull
+    private DatabaseTask createHistoryTask(long time, @NotNull Object rec) {
+        String sqlString = "INSERT INTO " + manager.getDatabase().getTablePrefix() + "history (" + HistoryRecord.COLUMNS + ") VALUES (" + HistoryRecord.PLACEHOLDERS + ")";
+        // Mapping and serializing are done by database thread
+        return new DatabaseTask(sqlString, ps -> HistoryRecord.of(time, rec).bind(ps));
+    }
+
+    @Override
+    public SimpleWarpedResultSet selectHistory(@NotNull HistoryQuery query, int offset, int limit) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT " + HistoryRecord.COLUMNS + " FROM " + manager.getDatabase().getTablePrefix() + "history WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (query.getType() != null) {
+            sql.append(" AND type = ?");
+            params.add(query.getType());
+        }
+        if (query.getWorld() != null) {
+            sql.append(" AND world = ?");
+            params.add(query.getWorld());
+            if (query.getX() != null && query.getY() != null && query.getZ() != null) {
+                sql.append(" AND x = ? AND y = ? AND z = ?");
+                params.add(query.getX());
+                params.add(query.getY());
+                params.add(query.getZ());
+            }
+        }
+        if (query.getOwner() != null) {
+            sql.append(" AND owner = ?");
+            params.add(query.getOwner().toString());
+        }
+        if (query.getActor() != null) {
+            sql.append(" AND actor = ?");
+            params.add(query.getActor().toString());
+        }
+        if (query.getItem() != null) {
+            sql.append(" AND item = ?");
+            params.add(query.getItem());
+        }
+        if (query.getFrom() != null) {
+            sql.append(" AND time >= ?");
+            params.add(query.getFrom());
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND time < ?");
+            params.add(query.getTo());
+        }
+        sql.append(" ORDER BY time DESC LIMIT ? OFFSET ?");
+        params.add(Math.max(1, limit));
+        params.add(Math.max(0, offset));
+        return executeQuery(sql.toString(), ps -> {
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+        });
+    }
+
+    @Override
+    public void archiveHistory(long before) {
+        String prefix = manager.getDatabase().getTablePrefix();
+        DatabaseConnection databaseConnection = manager.getDatabase().getConnection();
+        Connection connection = databaseConnection.get();
+        try {
+            // Copy and delete in one transaction, the rows must not be deleted if the copy failed
+            connection.setAutoCommit(false);
+            try (PreparedStatement copy = connection.prepareStatement("INSERT INTO " + prefix + "history_archive (" + HistoryRecord.COLUMNS + ") SELECT " + HistoryRecord.COLUMNS + " FROM " + prefix + "history WHERE time < ?");
+                 PreparedStatement delete = connection.prepareStatement("DELETE FROM " + prefix + "history WHERE time < ?")) {
+                copy.setLong(1, before);
+                copy.executeUpdate();
+                delete.setLong(1, before);
+                int archived = delete.executeUpdate();
+                connection.commit();
+                Util.debugLog("Archived " + archived + " history records.");
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to archive the history records", e);
+        } finally {
+            databaseConnection.release();
+        }
+    }
+
+    private static class PendingHistory {
+        private final long time;
+        private final Object record;
+
+        private PendingHistory(long time, @NotNull Object record) {
+            this.time = time;
+            this.record = record;
+        }
     }
 
     /**
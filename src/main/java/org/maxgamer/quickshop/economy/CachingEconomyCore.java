@@ -0,0 +1,406 @@
+/*
+ * This file is a part of project QuickShop, the name is CachingEconomyCore.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.economy;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.maxgamer.quickshop.QuickShop;
+import org.maxgamer.quickshop.api.economy.AbstractEconomy;
+import org.maxgamer.quickshop.api.economy.EconomyCore;
+import org.maxgamer.quickshop.util.LatencyHistogram;
+import org.maxgamer.quickshop.util.Util;
+import org.maxgamer.quickshop.util.reload.ReloadResult;
+import org.maxgamer.quickshop.util.reload.ReloadStatus;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Sits between QuickShop and the economy provider, so the provider (and the database behind it) isn't asked on every shop click.
+ * <p>
+ * Balances are cached for a short time and updated by our own deposits and withdraws,
+ * tax deposits are merged per account and applied periodically on the server thread.
+ */
+public class CachingEconomyCore extends AbstractEconomy {
+    private final QuickShop plugin;
+    @Getter
+    @NotNull
+    private final EconomyCore delegate;
+    private final Cache<UUID, Map<BalanceSlot, CachedBalance>> balances = CacheBuilder.newBuilder()
+            .expireAfterAccess(1, TimeUnit.MINUTES)
+            .build();
+    private final Map<BalanceSlot, PendingDeposit> pendingDeposits = new HashMap<>();
+    private final Map<Call, LatencyHistogram> latencies = new EnumMap<>(Call.class);
+    @Getter
+    private final AtomicLong cacheHits = new AtomicLong();
+    @Getter
+    private final AtomicLong cacheMisses = new AtomicLong();
+    @Getter
+    private final AtomicLong mergedDeposits = new AtomicLong();
+    private volatile long balanceTtl;
+    private int flushInterval;
+    @Nullable
+    private BukkitTask flushTask;
+
+    public CachingEconomyCore(@NotNull QuickShop plugin, @NotNull EconomyCore delegate) {
+        this.plugin = plugin;
+        this.delegate = delegate;
+        for (Call call : Call.values()) {
+            latencies.put(call, new LatencyHistogram());
+        }
+        plugin.getReloadManager().register(this);
+        init();
+    }
+
+    private void init() {
+        this.balanceTtl = Math.max(0, plugin.getConfig().getLong("economy-cache.balance-ttl", 1000));
+        if (balanceTtl == 0) {
+            balances.invalidateAll();
+        }
+        int interval = Math.max(0, plugin.getConfig().getInt("economy-cache.tax-flush-interval", 0));
+        if (interval != flushInterval || flushTask == null) {
+            if (flushTask != null) {
+                flushTask.cancel();
+                flushTask = null;
+            }
+            flushInterval = interval;
+            if (interval > 0) {
+                flushTask = Bukkit.getScheduler().runTaskTimer(plugin, this::flush, interval, interval);
+            } else {
+                flush();
+            }
+        }
+    }
+
+    @Override
+    public boolean deposit(@NotNull UUID name, double amount, @NotNull World world, @Nullable String currency) {
+        boolean success = time(Call.DEPOSIT, () -> delegate.deposit(name, amount, world, currency));
+        afterMutation(name, world, currency, amount, success);
+        return success;
+    }
+
+    @Override
+    public boolean deposit(@NotNull OfflinePlayer trader, double amount, @NotNull World world, @Nullable String currency) {
+        boolean success = time(Call.DEPOSIT, () -> delegate.deposit(trader, amount, world, currency));
+        afterMutation(trader.getUniqueId(), world, currency, amount, success);
+        return success;
+    }
+
+    /**
+     * Queues the deposit and applies it with others to same account in next flush.
+     * The deposits to online players are applied at once, so they can see the money.
+     */
+    @Override
+    public boolean depositDeferred(@NotNull OfflinePlayer trader, double amount, @NotNull World world, @Nullable String currency) {
+        if (flushInterval <= 0 || !delegate.isValid() || trader.isOnline()) {
+            return deposit(trader, amount, world, currency);
+        }
+        BalanceSlot slot = new BalanceSlot(trader.getUniqueId(), world.getName(), currency);
+        synchronized (pendingDeposits) {
+            PendingDeposit pending = pendingDeposits.get(slot);
+            if (pending == null) {
+                pendingDeposits.put(slot, new PendingDeposit(trader, amount));
+            } else {
+                pending.amount += amount;
+                mergedDeposits.incrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies all queued deposits, the failed ones are kept for next flush
+     */
+    public void flush() {
+        Map<BalanceSlot, PendingDeposit> snapshot;
+        synchronized (pendingDeposits) {
+            if (pendingDeposits.isEmpty()) {
+                return;
+            }
+            snapshot = new HashMap<>(pendingDeposits);
+            pendingDeposits.clear();
+        }
+        List<World> worlds = Bukkit.getWorlds();
+        snapshot.forEach((slot, pending) -> {
+            World world = Bukkit.getWorld(slot.world);
+            if (world == null) {
+                if (worlds.isEmpty()) {
+                    requeue(slot, pending);
+                    return;
+                }
+                world = worlds.get(0);
+            }
+            if (!deposit(pending.account, pending.amount, world, slot.currency)) {
+                plugin.getLogger().warning("Failed to deposit " + pending.amount + " to tax account " + slot.uuid + ", will retry later. LastError: " + getLastError());
+                requeue(slot, pending);
+            }
+        });
+    }
+
+    private void requeue(@NotNull BalanceSlot slot, @NotNull PendingDeposit pending) {
+        synchronized (pendingDeposits) {
+            PendingDeposit current = pendingDeposits.get(slot);
+            if (current == null) {
+                pendingDeposits.put(slot, pending);
+            } else {
+                current.amount += pending.amount;
+            }
+        }
+    }
+
+    /**
+     * Applies queued deposits and stops the flush task, called when plugin disabling
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flush();
+    }
+
+    @Override
+    public String format(double balance, @NotNull World world, @Nullable String currency) {
+        return time(Call.FORMAT, () -> delegate.format(balance, world, currency));
+    }
+
+    @Override
+    public double getBalance(@NotNull UUID name, @NotNull World world, @Nullable String currency) {
+        return getBalance(name, world, currency, () -> delegate.getBalance(name, world, currency));
+    }
+
+    @Override
+    public double getBalance(@NotNull OfflinePlayer player, @NotNull World world, @Nullable String currency) {
+        return getBalance(player.getUniqueId(), world, currency, () -> delegate.getBalance(player, world, currency));
+    }
+
+    private double getBalance(@NotNull UUID uuid, @NotNull World world, @Nullable String currency, @NotNull DoubleSupplier loader) {
+        BalanceSlot slot = new BalanceSlot(uuid, world.getName(), currency);
+        double pending = getPendingAmount(slot);
+        if (balanceTtl <= 0) {
+            return timeBalance(loader) + pending;
+        }
+        Map<BalanceSlot, CachedBalance> slots = balances.getIfPresent(uuid);
+        if (slots != null) {
+            CachedBalance cached = slots.get(slot);
+            if (cached != null && System.currentTimeMillis() - cached.time < balanceTtl) {
+                cacheHits.incrementAndGet();
+                return cached.balance + pending;
+            }
+        }
+        cacheMisses.incrementAndGet();
+        double balance = timeBalance(loader);
+        balances.asMap().computeIfAbsent(uuid, k -> new ConcurrentHashMap<>()).put(slot, new CachedBalance(balance));
+        return balance + pending;
+    }
+
+    private double getPendingAmount(@NotNull BalanceSlot slot) {
+        synchronized (pendingDeposits) {
+            if (pendingDeposits.isEmpty()) {
+                return 0;
+            }
+            PendingDeposit pending = pendingDeposits.get(slot);
+            return pending == null ? 0 : pending.amount;
+        }
+    }
+
+    @Override
+    public boolean withdraw(@NotNull UUID name, double amount, @NotNull World world, @Nullable String currency) {
+        boolean success = time(Call.WITHDRAW, () -> delegate.withdraw(name, amount, world, currency));
+        afterMutation(name, world, currency, -amount, success);
+        return success;
+    }
+
+    @Override
+    public boolean withdraw(@NotNull OfflinePlayer trader, double amount, @NotNull World world, @Nullable String currency) {
+        boolean success = time(Call.WITHDRAW, () -> delegate.withdraw(trader, amount, world, currency));
+        afterMutation(trader.getUniqueId(), world, currency, -amount, success);
+        return success;
+    }
+
+    /**
+     * Writes our own balance change through to cache.
+     * Other worlds and currencies of the player are dropped, since most providers share one balance between them.
+     */
+    private void afterMutation(@NotNull UUID uuid, @NotNull World world, @Nullable String currency, double change, boolean success) {
+        Map<BalanceSlot, CachedBalance> slots = balances.getIfPresent(uuid);
+        if (slots == null) {
+            return;
+        }
+        BalanceSlot slot = new BalanceSlot(uuid, world.getName(), currency);
+        CachedBalance cached = slots.get(slot);
+        slots.keySet().removeIf(key -> !key.equals(slot));
+        if (!success || cached == null) {
+            // Don't know what the provider did
+            slots.remove(slot);
+            return;
+        }
+        slots.put(slot, cached.adjust(change));
+    }
+
+    /**
+     * Drops the cached balances of given player, call it when the balance changed by other plugins
+     *
+     * @param uuid The player uuid
+     */
+    public void invalidate(@NotNull UUID uuid) {
+        balances.invalidate(uuid);
+    }
+
+    @Override
+    public boolean hasCurrency(@NotNull World world, @NotNull String currency) {
+        return time(Call.OTHER, () -> delegate.hasCurrency(world, currency));
+    }
+
+    @Override
+    public boolean supportCurrency() {
+        return delegate.supportCurrency();
+    }
+
+    @Override
+    public @Nullable String getLastError() {
+        return delegate.getLastError();
+    }
+
+    @Override
+    public boolean isValid() {
+        return delegate.isValid();
+    }
+
+    @Override
+    public @NotNull String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public @NotNull Plugin getPlugin() {
+        return delegate.getPlugin();
+    }
+
+    @NotNull
+    public Map<Call, LatencyHistogram> getLatencies() {
+        return latencies;
+    }
+
+    public int getPendingDeposits() {
+        synchronized (pendingDeposits) {
+            return pendingDeposits.size();
+        }
+    }
+
+    private <T> T time(@NotNull Call call, @NotNull Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            latencies.get(call).record(System.nanoTime() - start);
+        }
+    }
+
+    private double timeBalance(@NotNull DoubleSupplier loader) {
+        long start = System.nanoTime();
+        try {
+            return loader.getAsDouble();
+        } finally {
+            latencies.get(Call.GET_BALANCE).record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachingEconomyCore{delegate=" + delegate + "}";
+    }
+
+    @Override
+    public ReloadResult reloadModule() {
+        init();
+        Util.debugLog("Economy cache reloaded, balance ttl " + balanceTtl + "ms, tax flush interval " + flushInterval + " ticks");
+        return ReloadResult.builder().status(ReloadStatus.SUCCESS).build();
+    }
+
+    public enum Call {
+        GET_BALANCE,
+        DEPOSIT,
+        WITHDRAW,
+        FORMAT,
+        OTHER
+    }
+
+    @EqualsAndHashCode
+    private static class BalanceSlot {
+        private final UUID uuid;
+        private final String world;
+        @Nullable
+        private final String currency;
+
+        private BalanceSlot(@NotNull UUID uuid, @NotNull String world, @Nullable String currency) {
+            this.uuid = uuid;
+            this.world = world;
+            this.currency = currency;
+        }
+    }
+
+    private static class CachedBalance {
+        private final double balance;
+        private final long time;
+
+        private CachedBalance(double balance) {
+            this(balance, System.currentTimeMillis());
+        }
+
+        private CachedBalance(double balance, long time) {
+            this.balance = balance;
+            this.time = time;
+        }
+
+        @NotNull
+        private CachedBalance adjust(double change) {
+            // Keeps the load time, so our writes never extend how long a balance trusted
+            return new CachedBalance(balance + change, time);
+        }
+    }
+
+    private static class PendingDeposit {
+        private final OfflinePlayer account;
+        private double amount;
+
+        private PendingDeposit(@NotNull OfflinePlayer account, double amount) {
+            this.account = account;
+            this.amount = amount;
+        }
+    }
+}
@@ -19,7 +19,6 @@
 
 package org.maxgamer.quickshop.eventmanager;
 
-import lombok.AllArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.event.*;
@@ -39,12 +38,17 @@ import org.maxgamer.quickshop.util.reload.ReloadStatus;
 import org.maxgamer.quickshop.util.reload.Reloadable;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 public class QSEventManager implements QuickEventManager, Listener, Reloadable {
     private final QuickShop plugin;
-    private final List<ListenerContainer> ignoredListener = new ArrayList<>();
+    private final FilteredListenerCache listenerCache = new FilteredListenerCache();
 
     public QSEventManager(QuickShop plugin) {
         this.plugin = plugin;
@@ -74,7 +78,7 @@ public class QSEventManager implements QuickEventManager, Listener, Reloadable {
     }
 
     private synchronized void rescan() {
-        this.ignoredListener.clear();
+        List<ListenerContainer> ignoredListener = new ArrayList<>();
         plugin
                 .getConfig()
                 .getStringList("shop.protection-checking-listener-blacklist")
@@ -85,13 +89,15 @@ public class QSEventManager implements QuickEventManager, Listener, Reloadable {
                             }
                             try {
                                 Class<?> clazz = Class.forName(input);
-                                this.ignoredListener.add(new ListenerContainer(clazz, input));
+                                ignoredListener.add(new ListenerContainer(clazz, input));
                                 Util.debugLog("Successfully added blacklist: [BINDING] " + clazz.getName());
                             } catch (Exception ignored) {
-                                this.ignoredListener.add(new ListenerContainer(null, input));
+                                ignoredListener.add(new ListenerContainer(null, input));
                                 Util.debugLog("Successfully added blacklist: [DYNAMIC] " + input);
                             }
                         });
+        // Also drops the filtered listeners of all handler lists
+        listenerCache.setIgnoredListener(ignoredListener);
     }
 
     @Override
@@ -117,28 +123,15 @@ public class QSEventManager implements QuickEventManager, Listener, Reloadable {
         fireEvent(event);
     }
 
-    private void fireEvent(Event event) {
-        HandlerList handlers = event.getHandlers();
-        RegisteredListener[] listeners = handlers.getRegisteredListeners();
+    void fireEvent(Event event) {
+        dispatch(event, listenerCache.get(event.getHandlers()));
+    }
 
+    void dispatch(Event event, RegisteredListener[] listeners) {
         for (RegisteredListener registration : listeners) {
             if (!registration.getPlugin().isEnabled()) {
                 continue;
             }
-            Class<?> regClass = registration.getListener().getClass();
-
-
-            boolean skip = false;
-            for (ListenerContainer container : this.ignoredListener) {
-                if (container.matches(regClass, registration.getPlugin())) {
-                    skip = true;
-                    break;
-                }
-            }
-
-            if (skip) {
-                continue;
-            }
 
             try {
                 registration.callEvent(event);
@@ -173,12 +166,90 @@ public class QSEventManager implements QuickEventManager, Listener, Reloadable {
     }
 }
 
-@AllArgsConstructor
+/**
+ * The listeners of each handler list that not blacklisted.
+ * <p>
+ * The filtered array is rebuilt when the baked array of handler list or the blacklist changed.
+ */
+class FilteredListenerCache {
+    private final Map<HandlerList, Entry> entries = new ConcurrentHashMap<>();
+    private volatile List<ListenerContainer> ignoredListener = Collections.emptyList();
+
+    void setIgnoredListener(@NotNull List<ListenerContainer> ignoredListener) {
+        this.ignoredListener = ignoredListener;
+        entries.clear();
+    }
+
+    @NotNull
+    RegisteredListener[] get(@NotNull HandlerList handlers) {
+        // HandlerList bakes a new array every time listeners changed
+        RegisteredListener[] listeners = handlers.getRegisteredListeners();
+        List<ListenerContainer> ignored = this.ignoredListener;
+        Entry entry = entries.get(handlers);
+        if (entry != null && entry.source == listeners && entry.ignored == ignored) {
+            return entry.filtered;
+        }
+        RegisteredListener[] filtered = filter(listeners, ignored);
+        entries.put(handlers, new Entry(listeners, ignored, filtered));
+        return filtered;
+    }
+
+    @NotNull
+    static RegisteredListener[] filter(@NotNull RegisteredListener[] listeners, @NotNull List<ListenerContainer> ignored) {
+        if (ignored.isEmpty()) {
+            return listeners;
+        }
+        List<RegisteredListener> filtered = new ArrayList<>(listeners.length);
+        for (RegisteredListener registration : listeners) {
+            Class<?> regClass = registration.getListener().getClass();
+            boolean skip = false;
+            for (ListenerContainer container : ignored) {
+                if (container.matches(regClass, registration.getPlugin())) {
+                    skip = true;
+                    break;
+                }
+            }
+            if (!skip) {
+                filtered.add(registration);
+            }
+        }
+        return filtered.toArray(new RegisteredListener[0]);
+    }
+
+    private static class Entry {
+        private final RegisteredListener[] source;
+        private final List<ListenerContainer> ignored;
+        private final RegisteredListener[] filtered;
+
+        private Entry(@NotNull RegisteredListener[] source, @NotNull List<ListenerContainer> ignored, @NotNull RegisteredListener[] filtered) {
+            this.source = source;
+            this.ignored = ignored;
+            this.filtered = filtered;
+        }
+    }
+}
+
 class ListenerContainer {
     @Nullable
     private final Class<?> clazz;
     @NotNull
     private final String clazzName;
+    @Nullable
+    private final Pattern pattern;
+
+    ListenerContainer(@Nullable Class<?> clazz, @NotNull String clazzName) {
+        this.clazz = clazz;
+        this.clazzName = clazzName;
+        Pattern compiled = null;
+        if (clazz == null && !clazzName.startsWith("@")) {
+            try {
+                compiled = Pattern.compile(clazzName);
+            } catch (PatternSyntaxException ignored) {
+                // Not a regex, only matches by name
+            }
+        }
+        this.pattern = compiled;
+    }
 
     public boolean matches(@NotNull Class<?> matching, @NotNull Plugin plugin) {
         if (clazz != null) {
@@ -194,6 +265,6 @@ class ListenerContainer {
         if (name.startsWith(clazzName)) {
             return true;
         }
-        return name.matches(clazzName);
+        return pattern != null && pattern.matcher(name).matches();
     }
 }
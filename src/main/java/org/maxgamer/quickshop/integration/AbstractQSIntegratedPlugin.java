@@ -50,4 +50,13 @@ public abstract class AbstractQSIntegratedPlugin extends QuickShopInstanceHolder
         }
     }
 
+    /**
+     * Drops the cached build check results, should be called when a region or claim changed
+     */
+    protected void invalidateProtectionCache() {
+        if (plugin.getPermissionChecker() != null) {
+            plugin.getPermissionChecker().invalidateCache();
+        }
+    }
+
 }
@@ -137,11 +137,13 @@ public class AdvancedShopRegionMarketIntegration extends AbstractQSIntegratedPlu
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onShopNeedDeletion(RestoreRegionEvent event) {
+        invalidateProtectionCache();
         handleDeletion(event.getRegion());
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onShopNeedDeletion(RemoveRegionEvent event) {
+        invalidateProtectionCache();
         handleDeletion(event.getRegion());
     }
 
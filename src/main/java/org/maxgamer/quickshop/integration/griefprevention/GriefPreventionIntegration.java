@@ -114,6 +114,7 @@ public class GriefPreventionIntegration extends AbstractQSIntegratedPlugin {
     // We will not delete the shops of the claim owner.
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onClaimTrustChanged(TrustChangedEvent event) {
+        invalidateProtectionCache();
         if (!deleteOnClaimTrustChanged) {
             return;
         }
@@ -136,6 +137,7 @@ public class GriefPreventionIntegration extends AbstractQSIntegratedPlugin {
     // So we need to call either the handleMainClaimUnclaimedOrExpired or the handleSubClaimUnclaimed method.
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onClaimUnclaimed(ClaimDeletedEvent event) {
+        invalidateProtectionCache();
         if (!deleteOnClaimUnclaimed) {
             return;
         }
@@ -149,6 +151,7 @@ public class GriefPreventionIntegration extends AbstractQSIntegratedPlugin {
     // Since only the main claim expires, we will call the handleMainClaimUnclaimedOrExpired method.
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onClaimExpired(ClaimExpirationEvent event) {
+        invalidateProtectionCache();
         if (!deleteOnClaimExpired) {
             return;
         }
@@ -159,6 +162,7 @@ public class GriefPreventionIntegration extends AbstractQSIntegratedPlugin {
     // So we need to call either the handleMainClaimResized or the handleSubClaimResized method.
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onClaimResized(ClaimChangeEvent event) {
+        invalidateProtectionCache();
         if (!deleteOnClaimResized) {
             return;
         }
@@ -176,6 +180,7 @@ public class GriefPreventionIntegration extends AbstractQSIntegratedPlugin {
     // Because they won't have, initially, permission to create a shop in that subclaim.
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onSubClaimCreated(ClaimCreatedEvent event) {
+        invalidateProtectionCache();
         if (!deleteOnSubClaimCreated) {
             return;
         }
@@ -134,6 +134,7 @@ public class IridiumSkyblockIntegration extends AbstractQSIntegratedPlugin imple
 
     @EventHandler
     public void deleteShopsWhenIslandDelete(IslandDeleteEvent event) {
+        invalidateProtectionCache();
         Island island = event.getIsland();
         List<User> members = event.getIsland().getMembers();
         for (Shop shop : plugin.getShopManager().getAllShops()) {
@@ -151,6 +152,7 @@ public class IridiumSkyblockIntegration extends AbstractQSIntegratedPlugin imple
 
     @EventHandler
     public void deleteShopsWhenIslandDelete(IslandRegenEvent event) {
+        invalidateProtectionCache();
         Island island = event.getIsland();
         List<User> members = event.getIsland().getMembers();
         for (Shop shop : plugin.getShopManager().getAllShops()) {
@@ -168,6 +170,7 @@ public class IridiumSkyblockIntegration extends AbstractQSIntegratedPlugin imple
 
     @EventHandler
     public void deleteShopWhenMemberKicked(UserKickEvent event) {
+        invalidateProtectionCache();
         Island island = event.getIsland();
         for (Shop shop : plugin.getShopManager().getPlayerAllShops(event.getUser().getUuid())) {
             if (!island.isInIsland(shop.getLocation())) {
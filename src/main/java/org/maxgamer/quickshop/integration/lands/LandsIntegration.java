@@ -106,6 +106,7 @@ public class LandsIntegration extends AbstractQSIntegratedPlugin implements List
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onLandsDelete(LandDeleteEvent event) {
+        invalidateProtectionCache();
         @NotNull DeleteReason reason = event.getReason();
         if (reason != me.angeschossen.lands.api.events.land.DeleteReason.CAMP_EXPIRED) {
             if (!deleteWhenLandDeleted) {
@@ -122,6 +123,7 @@ public class LandsIntegration extends AbstractQSIntegratedPlugin implements List
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onLandsPermissionChanges(LandUntrustPlayerEvent event) {
+        invalidateProtectionCache();
         if (!deleteWhenLosePermission) {
             return;
         }
@@ -161,6 +163,7 @@ public class LandsIntegration extends AbstractQSIntegratedPlugin implements List
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onLandsMember(PlayerLeaveLandEvent event) {
+        invalidateProtectionCache();
         if (!deleteWhenLosePermission) {
             return;
         }
@@ -150,11 +150,13 @@ public class PlotSquaredIntegrationV6 extends AbstractQSIntegratedPlugin {
 
     @Subscribe
     public void onPlotDelete(PlotDeleteEvent event) {
+        invalidateProtectionCache();
         getShops(event.getPlot()).forEach(Shop::delete);
     }
 
     @Subscribe
     public void onPlotPlayerUntrusted(com.plotsquared.core.events.PlayerPlotTrustedEvent event) {
+        invalidateProtectionCache();
         if (!deleteUntrusted) {
             return;
         }
@@ -181,6 +181,7 @@ public class SuperiorSkyblock2Integration extends AbstractQSIntegratedPlugin imp
 
     @EventHandler
     public void onPlayerQuitIsland(com.bgsoftware.superiorskyblock.api.events.IslandQuitEvent event) {
+        invalidateProtectionCache();
         for (Chunk chunk : event.getIsland().getAllChunks()) {
             Map<Location, Shop> shops = plugin.getShopManager().getShops(chunk);
             if (shops != null && !shops.isEmpty()) {
@@ -196,6 +197,7 @@ public class SuperiorSkyblock2Integration extends AbstractQSIntegratedPlugin imp
 
     @EventHandler
     public void onPlayerKickedFromIsland(com.bgsoftware.superiorskyblock.api.events.IslandKickEvent event) {
+        invalidateProtectionCache();
         for (Chunk chunk : event.getIsland().getAllChunks()) {
             Map<Location, Shop> shops = plugin.getShopManager().getShops(chunk);
             if (shops != null && !shops.isEmpty()) {
@@ -212,6 +214,7 @@ public class SuperiorSkyblock2Integration extends AbstractQSIntegratedPlugin imp
 
     @EventHandler
     public void onPlayerUnCooped(com.bgsoftware.superiorskyblock.api.events.IslandUncoopPlayerEvent event) {
+        invalidateProtectionCache();
         for (Chunk chunk : event.getIsland().getAllChunks()) {
             Map<Location, Shop> shops = plugin.getShopManager().getShops(chunk);
             if (shops != null && !shops.isEmpty()) {
@@ -227,6 +230,7 @@ public class SuperiorSkyblock2Integration extends AbstractQSIntegratedPlugin imp
 
     @EventHandler
     public void onIslandChunkReset(com.bgsoftware.superiorskyblock.api.events.IslandChunkResetEvent event) {
+        invalidateProtectionCache();
         Map<Location, Shop> shops = plugin.getShopManager().getShops(event.getWorld().getName(), event.getChunkX(), event.getChunkZ());
         if (shops != null && !shops.isEmpty()) {
             for (Shop shop : shops.values()) {
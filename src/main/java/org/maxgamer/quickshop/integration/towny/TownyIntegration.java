@@ -170,6 +170,7 @@ public class TownyIntegration extends AbstractQSIntegratedPlugin implements List
 
     @EventHandler
     public void onPlayerLeave(TownRemoveResidentEvent event) {
+        invalidateProtectionCache();
         if (Bukkit.isPrimaryThread()) {
             deleteShops(TownyAPI.getInstance().getPlayerUUID(event.getResident()), event.getTown());
         } else {
@@ -179,6 +180,7 @@ public class TownyIntegration extends AbstractQSIntegratedPlugin implements List
 
     @EventHandler
     public void onPlotClear(PlotClearEvent event) {
+        invalidateProtectionCache();
         if (!deleteShopOnPlotClear) {
             return;
         }
@@ -191,6 +193,7 @@ public class TownyIntegration extends AbstractQSIntegratedPlugin implements List
 
     @EventHandler
     public void onPlotDestroy(TownUnclaimEvent event) {
+        invalidateProtectionCache();
         if (!deleteShopOnPlotDestroy) {
             return;
         }
@@ -280,6 +280,29 @@ public class BlockListener extends AbstractProtectionListener {
         }
     }
 
+    /*
+     * Containers placed or broken may change the attached shop lookups around, drop the cached results.
+     */
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onPlaceMonitor(BlockPlaceEvent e) {
+        invalidateCache(e.getBlock());
+    }
+
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
+    public void onBreakMonitor(BlockBreakEvent e) {
+        if (e instanceof PermissionChecker.FakeBlockBreakEvent) {
+            return;
+        }
+        invalidateCache(e.getBlock());
+    }
+
+    private void invalidateCache(@NotNull Block block) {
+        Cache cache = getCache();
+        if (cache != null) {
+            cache.invalidateAround(block.getWorld().getName(), block.getX(), block.getZ());
+        }
+    }
+
     /**
      * Callback for reloading
      *
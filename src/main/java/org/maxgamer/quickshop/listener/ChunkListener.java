@@ -26,6 +26,7 @@ import org.bukkit.event.world.ChunkLoadEvent;
 import org.bukkit.event.world.ChunkUnloadEvent;
 import org.maxgamer.quickshop.QuickShop;
 import org.maxgamer.quickshop.api.shop.Shop;
+import org.maxgamer.quickshop.shop.ShopLoader;
 import org.maxgamer.quickshop.util.reload.ReloadResult;
 import org.maxgamer.quickshop.util.reload.ReloadStatus;
 
@@ -43,6 +44,12 @@ public class ChunkListener extends AbstractQSListener {
         if (e.isNewChunk()) {
             return;
         }
+        ShopLoader shopLoader = plugin.getShopLoader();
+        if (shopLoader != null && shopLoader.isLazyLoading()) {
+            String world = e.getWorld().getName();
+            shopLoader.getLazyIndex().markChunkLoaded(world, e.getChunk().getX(), e.getChunk().getZ());
+            shopLoader.hydrateChunk(world, e.getChunk().getX(), e.getChunk().getZ());
+        }
         final Map<Location, Shop> inChunk = plugin.getShopManager().getShops(e.getChunk());
         if (inChunk == null) {
             return;
@@ -56,6 +63,14 @@ public class ChunkListener extends AbstractQSListener {
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onChunkUnload(ChunkUnloadEvent e) {
+        if (plugin.getShopCache() != null) {
+            plugin.getShopCache().invalidateChunk(e.getWorld().getName(), e.getChunk().getX(), e.getChunk().getZ());
+        }
+        ShopLoader shopLoader = plugin.getShopLoader();
+        if (shopLoader != null && shopLoader.isLazyLoading()) {
+            // Also tells the pending hydration of this chunk to not publish the shops
+            shopLoader.getLazyIndex().markChunkUnloaded(e.getWorld().getName(), e.getChunk().getX(), e.getChunk().getZ(), System.currentTimeMillis());
+        }
         final Map<Location, Shop> inChunk = plugin.getShopManager().getShops(e.getChunk());
         if (inChunk == null) {
             return;
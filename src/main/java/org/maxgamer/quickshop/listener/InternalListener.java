@@ -96,7 +96,7 @@ public class InternalListener extends AbstractQSListener {
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void shopModeratorChanges(ShopModeratorChangedEvent event) {
         if (loggingAction) {
-            plugin.logEvent(new ShopModeratorChangedLog(event.getShop().saveToInfoStorage(), (SimpleShopModerator) event.getModerator()));
+            plugin.logEvent(new ShopModeratorChangedLog(event.getShop().saveToInfoStorage(), ((SimpleShopModerator) event.getModerator()).clone()));
         }
     }
 
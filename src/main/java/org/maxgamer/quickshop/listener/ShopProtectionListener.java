@@ -19,7 +19,9 @@
 
 package org.maxgamer.quickshop.listener;
 
+import lombok.Getter;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.BlockState;
@@ -45,6 +47,7 @@ import org.jetbrains.annotations.Nullable;
 import org.maxgamer.quickshop.Cache;
 import org.maxgamer.quickshop.QuickShop;
 import org.maxgamer.quickshop.api.shop.Shop;
+import org.maxgamer.quickshop.shop.SimpleShopManager;
 import org.maxgamer.quickshop.util.MsgUtil;
 import org.maxgamer.quickshop.util.Util;
 import org.maxgamer.quickshop.util.logging.container.ShopRemoveLog;
@@ -54,6 +57,7 @@ import org.maxgamer.quickshop.util.reload.ReloadStatus;
 import java.io.File;
 import java.lang.reflect.Field;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 
 public class ShopProtectionListener extends AbstractProtectionListener {
@@ -62,6 +66,20 @@ public class ShopProtectionListener extends AbstractProtectionListener {
 
     private boolean sendProtectionAlert;
 
+    private boolean protectHopper;
+
+    /**
+     * The inventory move events rejected by shop bitmap, without looking up the shop
+     */
+    @Getter
+    private final LongAdder hopperFastRejected = new LongAdder();
+
+    /**
+     * The inventory move events that needed the shop lookup
+     */
+    @Getter
+    private final LongAdder hopperInspected = new LongAdder();
+
     public ShopProtectionListener(@NotNull QuickShop plugin, @Nullable Cache cache) {
         super(plugin, cache);
         init();
@@ -70,6 +88,7 @@ public class ShopProtectionListener extends AbstractProtectionListener {
     private void init() {
         this.sendProtectionAlert = plugin.getConfig().getBoolean("send-shop-protection-alert", false);
         useEnhanceProtection = plugin.getConfig().getBoolean("shop.enchance-shop-protect", true);
+        this.protectHopper = plugin.getConfig().getBoolean("protect.hopper");
         scanAndFixPaperListener();
     }
 
@@ -93,7 +112,7 @@ public class ShopProtectionListener extends AbstractProtectionListener {
         }
         Util.debugLog("QuickShop is scanning all worlds settings about disableHopperMoveEvents disabled worlds");
         plugin.getServer().getWorlds().forEach(world -> {
-            if (plugin.getShopManager().getShopsInWorld(world).isEmpty()) {
+            if (plugin.getShopManager().getShopsByWorld(world.getName()).isEmpty()) {
                 return;
             }
             //Checking and changing memory value and file
@@ -322,7 +341,7 @@ public class ShopProtectionListener extends AbstractProtectionListener {
 
     @EventHandler(ignoreCancelled = true, priority = EventPriority.HIGH)
     public void onInventoryMove(InventoryMoveItemEvent event) {
-        if (!plugin.getConfig().getBoolean("protect.hopper")) {
+        if (!protectHopper) {
             return;
         }
         final Location loc = event.getSource().getLocation();
@@ -330,6 +349,13 @@ public class ShopProtectionListener extends AbstractProtectionListener {
         if (loc == null) {
             return;
         }
+        final World world = loc.getWorld();
+        // Hopper farms fire this a lot, skip the blocks never be a part of shop before any lookup
+        if (world == null || !((SimpleShopManager) plugin.getShopManager()).isShopOrAttached(world.getName(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ())) {
+            hopperFastRejected.increment();
+            return;
+        }
+        hopperInspected.increment();
         final Shop shop = getShopRedstone(loc, true);
 
         if (shop == null) {
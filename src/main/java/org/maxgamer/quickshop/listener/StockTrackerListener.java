@@ -0,0 +1,134 @@
+/*
+ * This file is a part of project QuickShop, the name is StockTrackerListener.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.listener;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.event.inventory.InventoryPickupItemEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.DoubleChestInventory;
+import org.bukkit.inventory.Inventory;
+import org.jetbrains.annotations.Nullable;
+import org.maxgamer.quickshop.QuickShop;
+import org.maxgamer.quickshop.api.shop.Shop;
+import org.maxgamer.quickshop.shop.ContainerShop;
+import org.maxgamer.quickshop.shop.SimpleShopManager;
+import org.maxgamer.quickshop.util.Util;
+import org.maxgamer.quickshop.util.reload.ReloadResult;
+import org.maxgamer.quickshop.util.reload.ReloadStatus;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Invalidates the cached stock and space of shops when their container changed.
+ * <p>
+ * The events are fired before Bukkit applies the change, so the counts are not cached until next tick.
+ */
+public class StockTrackerListener extends AbstractQSListener {
+    private final Set<ContainerShop> changing = new HashSet<>();
+
+    public StockTrackerListener(QuickShop plugin) {
+        super(plugin);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryMove(InventoryMoveItemEvent event) {
+        invalidate(event.getSource());
+        invalidate(event.getDestination());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryPickup(InventoryPickupItemEvent event) {
+        invalidate(event.getInventory());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryClick(InventoryClickEvent event) {
+        invalidate(event.getInventory());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        invalidate(event.getInventory());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryClose(InventoryCloseEvent event) {
+        invalidate(event.getInventory());
+    }
+
+    private void invalidate(@Nullable Inventory inventory) {
+        //noinspection ConstantConditions
+        if (inventory == null || inventory.getType() == InventoryType.PLAYER || inventory.getType() == InventoryType.CRAFTING) {
+            return;
+        }
+        if (inventory instanceof DoubleChestInventory) {
+            // Both halves may be a shop
+            DoubleChestInventory doubleChest = (DoubleChestInventory) inventory;
+            invalidate(doubleChest.getLeftSide().getLocation());
+            invalidate(doubleChest.getRightSide().getLocation());
+        } else {
+            invalidate(inventory.getLocation());
+        }
+    }
+
+    private void invalidate(@Nullable Location location) {
+        if (location == null) {
+            return;
+        }
+        // Most of the containers are not shops, skip them before looking up
+        World world = location.getWorld();
+        if (world == null || !((SimpleShopManager) plugin.getShopManager()).isShopOrAttached(world.getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ())) {
+            return;
+        }
+        Shop shop = plugin.getShopManager().getShopIncludeAttached(Util.getBlockLocation(location));
+        if (shop instanceof ContainerShop) {
+            ContainerShop containerShop = (ContainerShop) shop;
+            containerShop.markStockChanging();
+            if (changing.add(containerShop) && changing.size() == 1) {
+                plugin.getServer().getScheduler().runTask(plugin, this::settle);
+            }
+        }
+    }
+
+    private void settle() {
+        for (ContainerShop shop : changing) {
+            shop.settleStockTracker();
+        }
+        changing.clear();
+    }
+
+    /**
+     * Callback for reloading
+     *
+     * @return Reloading success
+     */
+    @Override
+    public ReloadResult reloadModule() {
+        return ReloadResult.builder().status(ReloadStatus.SUCCESS).build();
+    }
+}
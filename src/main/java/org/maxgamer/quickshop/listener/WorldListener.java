@@ -32,9 +32,9 @@ import org.maxgamer.quickshop.api.shop.ShopChunk;
 import org.maxgamer.quickshop.util.reload.ReloadResult;
 import org.maxgamer.quickshop.util.reload.ReloadStatus;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class WorldListener extends AbstractQSListener {
 
@@ -53,8 +53,6 @@ public class WorldListener extends AbstractQSListener {
         final World world = e.getWorld();
 
         plugin.getShopLoader().loadShops(world.getName());
-        // New world data
-        final Map<ShopChunk, Map<Location, Shop>> inWorld = new ConcurrentHashMap<>(1);
         // Old world data
         final Map<ShopChunk, Map<Location, Shop>> oldInWorld =
                 plugin.getShopManager().getShops(world.getName());
@@ -63,22 +61,15 @@ public class WorldListener extends AbstractQSListener {
         if (oldInWorld == null) {
             return;
         }
-
-        for (Entry<ShopChunk, Map<Location, Shop>> oldInChunk : oldInWorld.entrySet()) {
-            final Map<Location, Shop> inChunk = new ConcurrentHashMap<>(1);
-            // Put the new chunk were the old chunk was
-            inWorld.put(oldInChunk.getKey(), inChunk);
-
-            for (Entry<Location, Shop> entry : oldInChunk.getValue().entrySet()) {
-                final Shop shop = entry.getValue();
-
+        // Rebuild the chunk maps in place, the shop manager indexes these map instances
+        for (Map<Location, Shop> inChunk : oldInWorld.values()) {
+            final List<Shop> shopsInChunk = new ArrayList<>(inChunk.values());
+            inChunk.clear();
+            for (final Shop shop : shopsInChunk) {
                 shop.getLocation().setWorld(world);
                 inChunk.put(shop.getLocation(), shop);
             }
         }
-        // Done - Now we can store the new world dataz!
-
-        plugin.getShopManager().getShops().put(world.getName(), inWorld);
         // This is a workaround, because I don't get parsed chunk events when a
         // world first loads....
         // So manually tell all of these shops they're loaded.
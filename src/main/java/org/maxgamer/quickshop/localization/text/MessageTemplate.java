@@ -0,0 +1,134 @@
+/*
+ * This file is a part of project QuickShop, the name is MessageTemplate.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package org.maxgamer.quickshop.localization.text;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.maxgamer.quickshop.util.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable compiled message, the colors are translated and the {n} argument slots are split when compiling.
+ */
+public final class MessageTemplate {
+    private static final int[] NO_SLOTS = new int[0];
+    /**
+     * The texts between slots, always one more than slots
+     */
+    private final String[] literals;
+    private final int[] slots;
+    private final int length;
+    private final boolean placeholders;
+
+    private MessageTemplate(@NotNull String[] literals, @NotNull int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        boolean placeholders = false;
+        for (String literal : literals) {
+            length += literal.length();
+            placeholders |= literal.indexOf('%') != -1;
+        }
+        this.length = length;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * Compiles the raw text
+     *
+     * @param raw The text in language file
+     * @return The template
+     */
+    @NotNull
+    public static MessageTemplate compile(@Nullable String raw) {
+        String text;
+        try {
+            text = Util.parseColours(raw);
+        } catch (RuntimeException e) {
+            Util.debugLog("Failed to parse colors of text " + raw + ": " + e.getMessage());
+            text = raw == null ? "" : raw;
+        }
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int start = 0;
+        int open = text.indexOf('{');
+        while (open != -1) {
+            int close = open + 1;
+            while (close < text.length() && close - open <= 9 && Character.isDigit(text.charAt(close))) {
+                close++;
+            }
+            // Same as MsgUtil.fillArgs, only {0}, {1}... are slots, {01} is not
+            if (close > open + 1 && close < text.length() && text.charAt(close) == '}'
+                    && (close == open + 2 || text.charAt(open + 1) != '0')) {
+                literals.add(text.substring(start, open));
+                slots.add(Integer.parseInt(text.substring(open + 1, close)));
+                start = close + 1;
+                open = text.indexOf('{', start);
+            } else {
+                open = text.indexOf('{', open + 1);
+            }
+        }
+        literals.add(text.substring(start));
+        if (slots.isEmpty()) {
+            return new MessageTemplate(new String[]{literals.get(0)}, NO_SLOTS);
+        }
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+        }
+        return new MessageTemplate(literals.toArray(new String[0]), slotArray);
+    }
+
+    /**
+     * Fills the arguments into slots, the slots without argument are kept as is
+     *
+     * @param args The arguments
+     * @return The text
+     */
+    @NotNull
+    public String render(@NotNull String[] args) {
+        if (slots.length == 0) {
+            return literals[0];
+        }
+        StringBuilder builder = new StringBuilder(length + slots.length * 16);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append(literals[i]);
+            int slot = slots[i];
+            if (slot < args.length) {
+                if (args[slot] != null) {
+                    builder.append(args[slot]);
+                }
+            } else {
+                builder.append('{').append(slot).append('}');
+            }
+        }
+        return builder.append(literals[slots.length]).toString();
+    }
+
+    /**
+     * Gets the template contains % that may be PlaceholderAPI placeholders
+     *
+     * @return Contains placeholders
+     */
+    public boolean hasPlaceholders() {
+        return placeholders;
+    }
+}
@@ -55,10 +55,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -72,6 +74,12 @@ public class SimpleTextManager implements TextManager, Reloadable {
     private final Distribution distribution;
     // <File <Locale, Section>>
     private final LanguageFilesManager languageFilesManager = new LanguageFilesManager();
+    // <Locale, <Path, Template>>, compiled from the messages file when loading
+    private final Map<String, Map<String, MessageTemplate>> templates = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, List<MessageTemplate>>> listTemplates = new ConcurrentHashMap<>();
+    private volatile Map<String, MessageTemplate> bundledTemplates = Collections.emptyMap();
+    private volatile Map<String, List<MessageTemplate>> bundledListTemplates = Collections.emptyMap();
+    private final PlaceHolderApiProcessor placeHolderApiProcessor = new PlaceHolderApiProcessor();
 
 
     public SimpleTextManager(QuickShop plugin) {
@@ -148,6 +156,10 @@ public class SimpleTextManager implements TextManager, Reloadable {
         languageFilesManager.reset();
         postProcessors.clear();
         availableLanguages.clear();
+        templates.clear();
+        listTemplates.clear();
+        bundledTemplates = Collections.emptyMap();
+        bundledListTemplates = Collections.emptyMap();
     }
 
     /**
@@ -271,6 +283,13 @@ public class SimpleTextManager implements TextManager, Reloadable {
                             crowdinFile = "/" + StringUtils.substringAfter(crowdinFile, "] ");
                         }
                         languageFilesManager.deploy(crowdinFile, minecraftCode, configuration, defaultFile);
+                        if (CROWDIN_LANGUAGE_FILE_PATH.equals(crowdinFile)) {
+                            Map<String, MessageTemplate> texts = new HashMap<>();
+                            Map<String, List<MessageTemplate>> lists = new HashMap<>();
+                            compileTemplates(configuration, texts, lists);
+                            templates.put(minecraftCode, texts);
+                            listTemplates.put(minecraftCode, lists);
+                        }
                         Util.debugLog("Locale " + crowdinFile.replace("%locale%", crowdinCode) + " has been successfully loaded");
                     } // Key founds in available locales but not in custom mapping on crowdin platform
                     catch (IOException e) {
@@ -282,10 +301,126 @@ public class SimpleTextManager implements TextManager, Reloadable {
                     }
                 }));
 
+        JsonConfiguration bundled = languageFilesManager.getBundled(CROWDIN_LANGUAGE_FILE_PATH);
+        if (bundled != null) {
+            Map<String, MessageTemplate> texts = new HashMap<>();
+            Map<String, List<MessageTemplate>> lists = new HashMap<>();
+            compileTemplates(bundled, texts, lists);
+            bundledTemplates = texts;
+            bundledListTemplates = lists;
+        }
+
         // Register post processor
         postProcessors.add(new ColorProcessor());
         postProcessors.add(new FillerProcessor());
-        postProcessors.add(new PlaceHolderApiProcessor());
+        postProcessors.add(placeHolderApiProcessor);
+    }
+
+    /**
+     * Compiles all texts in configuration
+     *
+     * @param configuration The language file
+     * @param texts         The templates read as string
+     * @param lists         The templates read as string list
+     */
+    private void compileTemplates(@NotNull JsonConfiguration configuration, @NotNull Map<String, MessageTemplate> texts, @NotNull Map<String, List<MessageTemplate>> lists) {
+        for (String key : configuration.getKeys(true)) {
+            Object value = configuration.get(key);
+            if (value == null || value instanceof ConfigurationSection) {
+                continue;
+            }
+            // Same as getString, a list is also readable as string
+            texts.put(key, MessageTemplate.compile(value.toString()));
+            if (value instanceof List) {
+                List<String> strings = configuration.getStringList(key);
+                List<MessageTemplate> compiled = new ArrayList<>(strings.size());
+                for (String string : strings) {
+                    compiled.add(MessageTemplate.compile(string));
+                }
+                lists.put(key, Collections.unmodifiableList(compiled));
+            }
+        }
+    }
+
+    /**
+     * The templates only used when post processors not modified, since they are compiled for the built-in ones
+     *
+     * @return Use templates
+     */
+    private boolean isTemplateRendering() {
+        return postProcessors.size() == 3
+                && postProcessors.get(0) instanceof ColorProcessor
+                && postProcessors.get(1) instanceof FillerProcessor
+                && postProcessors.get(2) == placeHolderApiProcessor;
+    }
+
+    /**
+     * Finds the template with same fallback rules of {@link Text#forLocale(String)}
+     *
+     * @param locale The locale
+     * @param path   The path
+     * @return The template, null if missing
+     */
+    @Nullable
+    private MessageTemplate findTemplate(@NotNull String locale, @NotNull String path) {
+        Map<String, MessageTemplate> index = templates.get(findRelativeLanguages(locale));
+        if (index == null) {
+            Util.debugLog("Fallback " + locale + " to default game-language locale caused by QuickShop doesn't support this locale");
+            String languageCode = MsgUtil.getDefaultGameLanguageCode();
+            if (languageCode.equals(locale)) {
+                return bundledTemplates.get(path);
+            }
+            return findTemplate(languageCode, path);
+        }
+        MessageTemplate template = index.get(path);
+        if (template == null) {
+            Util.debugLog("Fallback " + path + " to bundle translation caused OTA & User's override file doesn't contains this key");
+            template = bundledTemplates.get(path);
+        }
+        return template;
+    }
+
+    /**
+     * Finds the list templates with same fallback rules of {@link TextList#forLocale(String)}
+     *
+     * @param locale The locale
+     * @param path   The path
+     * @return The templates, empty if missing
+     */
+    @NotNull
+    private List<MessageTemplate> findListTemplates(@NotNull String locale, @NotNull String path) {
+        Map<String, List<MessageTemplate>> index = listTemplates.get(findRelativeLanguages(locale));
+        if (index == null) {
+            Util.debugLog("Fallback " + locale + " to default game-language locale caused by QuickShop doesn't support this locale");
+            String languageCode = MsgUtil.getDefaultGameLanguageCode();
+            if (languageCode.equals(locale)) {
+                return bundledListTemplates.getOrDefault(path, Collections.emptyList());
+            }
+            return findListTemplates(languageCode, path);
+        }
+        List<MessageTemplate> list = index.get(path);
+        if (list == null || list.isEmpty()) {
+            Util.debugLog("Fallback " + path + " to bundle translation caused OTA & User's override file doesn't contains this key");
+            list = bundledListTemplates.getOrDefault(path, Collections.emptyList());
+        }
+        return list;
+    }
+
+    /**
+     * Renders the template, PlaceholderAPI only applied when template contains placeholders
+     *
+     * @param template The template
+     * @param sender   The sender
+     * @param args     The arguments
+     * @return The text
+     */
+    @NotNull
+    private String render(@NotNull MessageTemplate template, @Nullable CommandSender sender, Object[] args) {
+        String text = template.render(FillerProcessor.toStrings(args));
+        if (template.hasPlaceholders()) {
+            return placeHolderApiProcessor.process(text, sender, args);
+        }
+        return text;
     }
 
     private String findRelativeLanguages(String langCode) {
@@ -480,11 +615,12 @@ public class SimpleTextManager implements TextManager, Reloadable {
          */
         @NotNull
         private List<String> postProcess(@NotNull List<String> text) {
-            List<String> texts = new ArrayList<>();
-            for (PostProcessor postProcessor : this.manager.postProcessors) {
-                for (String s : text) {
-                    texts.add(postProcessor.process(s, sender, args));
+            List<String> texts = new ArrayList<>(text.size());
+            for (String s : text) {
+                for (PostProcessor postProcessor : this.manager.postProcessors) {
+                    s = postProcessor.process(s, sender, args);
                 }
+                texts.add(s);
             }
             return texts;
         }
@@ -497,6 +633,17 @@ public class SimpleTextManager implements TextManager, Reloadable {
         @Override
         @NotNull
         public List<String> forLocale(@NotNull String locale) {
+            if (manager.isTemplateRendering()) {
+                List<MessageTemplate> templates = manager.findListTemplates(locale, path);
+                if (templates.isEmpty()) {
+                    return Collections.singletonList("Fallback Missing Language Key: " + path + ", report to QuickShop!");
+                }
+                List<String> texts = new ArrayList<>(templates.size());
+                for (MessageTemplate template : templates) {
+                    texts.add(manager.render(template, sender, args));
+                }
+                return texts;
+            }
             JsonConfiguration index = mapping.get(manager.findRelativeLanguages(locale));
             if (index == null) {
                 Util.debugLog("Fallback " + locale + " to default game-language locale caused by QuickShop doesn't support this locale");
@@ -617,6 +764,13 @@ public class SimpleTextManager implements TextManager, Reloadable {
         @Override
         @NotNull
         public String forLocale(@NotNull String locale) {
+            if (manager.isTemplateRendering()) {
+                MessageTemplate template = manager.findTemplate(locale, path);
+                if (template == null) {
+                    return "Fallback Missing Language Key: " + path + ", report to QuickShop!";
+                }
+                return manager.render(template, sender, args);
+            }
             JsonConfiguration index = mapping.get(manager.findRelativeLanguages(locale));
             if (index == null) {
                 Util.debugLog("Fallback " + locale + " to default game-language locale caused by QuickShop doesn't support this locale");
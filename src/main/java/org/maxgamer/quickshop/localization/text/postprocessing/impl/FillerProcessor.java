@@ -30,6 +30,17 @@ import org.maxgamer.quickshop.util.TextSplitter;
 public class FillerProcessor implements PostProcessor {
     @Override
     public @NotNull String process(@NotNull String text, @Nullable CommandSender sender, Object... args) {
+        return MsgUtil.fillArgs(text, toStrings(args));
+    }
+
+    /**
+     * Converts the arguments to the strings filled into text
+     *
+     * @param args The arguments
+     * @return The strings
+     */
+    @NotNull
+    public static String[] toStrings(Object... args) {
         String[] strings = new String[args.length];
         boolean hit = false;
         for (int i = 0; i < args.length; i++) {
@@ -45,9 +56,10 @@ public class FillerProcessor implements PostProcessor {
                 }
                 strings[i] = TextSplitter.bakeComponent((BaseComponent[]) args[i]);
                 hit = true;
+                continue;
             }
             strings[i] = String.valueOf(args[i]);
         }
-        return MsgUtil.fillArgs(text, strings);
+        return strings;
     }
 }
@@ -67,6 +67,7 @@ import org.maxgamer.quickshop.api.event.ShopTypeChangeEvent;
 import org.maxgamer.quickshop.api.event.ShopUnloadEvent;
 import org.maxgamer.quickshop.api.event.ShopUpdateEvent;
 import org.maxgamer.quickshop.api.shop.AbstractDisplayItem;
+import org.maxgamer.quickshop.api.shop.CompiledItemMatcher;
 import org.maxgamer.quickshop.api.shop.PriceLimiterCheckResult;
 import org.maxgamer.quickshop.api.shop.PriceLimiterStatus;
 import org.maxgamer.quickshop.api.shop.Shop;
@@ -80,6 +81,7 @@ import org.maxgamer.quickshop.util.MsgUtil;
 import org.maxgamer.quickshop.util.PlayerFinder;
 import org.maxgamer.quickshop.util.Util;
 import org.maxgamer.quickshop.util.logging.container.ShopRemoveLog;
+import org.maxgamer.quickshop.watcher.DisplayAutoDespawnWatcher;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -131,6 +133,12 @@ public class ContainerShop implements Shop {
     @EqualsAndHashCode.Exclude
     private volatile ContainerShop attachedShop;
     @EqualsAndHashCode.Exclude
+    private final ShopStockTracker stockTracker = new ShopStockTracker();
+    @EqualsAndHashCode.Exclude
+    private volatile CompiledItemMatcher compiledItemMatcher;
+    @EqualsAndHashCode.Exclude
+    private final ShopSignCache signCache = new ShopSignCache();
+    @EqualsAndHashCode.Exclude
     private volatile boolean isDisplayItemChanged = false;
     @EqualsAndHashCode.Exclude
     private volatile boolean dirty;
@@ -319,6 +327,7 @@ public class ContainerShop implements Shop {
             Objects.requireNonNull(inv).addItem(item);
             remains -= stackSize;
         }
+        invalidateStockTracker();
         this.setSignText();
     }
 
@@ -403,6 +412,7 @@ public class ContainerShop implements Shop {
             }
             // Now update the players inventory.
             buyerInventory.setContents(contents);
+            invalidateStockTracker();
 
             //Update sign
             this.setSignText();
@@ -444,7 +454,7 @@ public class ContainerShop implements Shop {
 
         if (!this.displayItem.isSpawned()) {
             /* Not spawned yet. */
-            displayItem.spawn();
+            spawnDisplay();
         } else {
             /* If not spawned, we didn't need check these, only check them when we need. */
             if (this.displayItem.checkDisplayNeedRegen()) {
@@ -460,6 +470,15 @@ public class ContainerShop implements Shop {
         this.displayItem.removeDupe();
     }
 
+    private void spawnDisplay() {
+        displayItem.spawn();
+        DisplayAutoDespawnWatcher despawnWatcher = plugin.getDisplayAutoDespawnWatcher();
+        if (despawnWatcher != null) {
+            // Let it despawn the display if no player nearby
+            despawnWatcher.trackSpawnedDisplay(this);
+        }
+    }
+
     @Override
     public void clearStaffs() {
         setDirty();
@@ -571,11 +590,12 @@ public class ContainerShop implements Shop {
         if (item == null) {
             return false;
         }
-        ItemStack givenItem = item.clone();
-        givenItem.setAmount(1);
-        ItemStack shopItem = this.item.clone();
-        shopItem.setAmount(1);
-        return plugin.getItemMatcher().matches(shopItem, givenItem);
+        CompiledItemMatcher matcher = compiledItemMatcher;
+        if (matcher == null) {
+            matcher = plugin.getItemMatcher().compile(this.item);
+            compiledItemMatcher = matcher;
+        }
+        return matcher.matches(item);
     }
 
     @Override
@@ -611,6 +631,7 @@ public class ContainerShop implements Shop {
         update();
         this.isLoaded = false;
         plugin.getShopManager().getLoadedShops().remove(this);
+        ((SimpleShopManager) plugin.getShopManager()).unbakeShopRuntimeRandomUniqueIdCache(this);
         ShopUnloadEvent shopUnloadEvent = new ShopUnloadEvent(this);
         plugin.getServer().getPluginManager().callEvent(shopUnloadEvent);
     }
@@ -674,6 +695,7 @@ public class ContainerShop implements Shop {
             Objects.requireNonNull(inv).removeItem(item);
             remains -= stackSize;
         }
+        invalidateStockTracker();
         this.setSignText();
     }
 
@@ -729,6 +751,7 @@ public class ContainerShop implements Shop {
             }
             // We now have to update the chests inventory manually.
             this.getInventory().setContents(chestContents);
+            invalidateStockTracker();
             //Update sign
             this.setSignText();
             if (attachedShop != null) {
@@ -847,8 +870,24 @@ public class ContainerShop implements Shop {
     @Override
     public void setSignText(@NotNull List<ComponentPackage> lines) {
         Util.ensureThread(false);
+        writeSignText(lines);
+    }
+
+    /**
+     * Writes the lines to the signs not showing them yet
+     *
+     * @param lines The lines
+     * @return The amount of signs written
+     */
+    private int writeSignText(@NotNull List<ComponentPackage> lines) {
+        int written = 0;
         List<Sign> signs = this.getSigns();
         for (Sign sign : signs) {
+            Location signLocation = sign.getLocation();
+            // The blank sign is replaced after the text written, write it again
+            if (signCache.isWritten(lines, signLocation) && !isBlankSign(sign)) {
+                continue;
+            }
             if (this.plugin.getNbtapi() != null) {
                 NBTTileEntity tileSign = new NBTTileEntity(sign);
                 try {
@@ -884,8 +923,7 @@ public class ContainerShop implements Shop {
                     plugin.disableNBTAPI();
                     Util.debugLog("NBTAPI is broken, error: " + e.getMessage() + "\n stacktrace:  \n" + Arrays.toString(e.getStackTrace()));
                     //Reset it since we disable nbt api, text need to change
-                    setSignText();
-                    return;
+                    return written + updateSignText();
                 }
             } else {
                 for (int i = 0; i < lines.size(); i++) {
@@ -904,8 +942,19 @@ public class ContainerShop implements Shop {
             }
             sign.update(true);
             plugin.getServer().getPluginManager().callEvent(new ShopSignUpdateEvent(this, sign));
+            signCache.markWritten(lines, signLocation);
+            written++;
         }
+        return written;
+    }
 
+    private boolean isBlankSign(@NotNull Sign sign) {
+        for (String line : sign.getLines()) {
+            if (!line.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -913,12 +962,46 @@ public class ContainerShop implements Shop {
      */
     @Override
     public void setSignText() {
+        updateSignText();
+    }
+
+    /**
+     * Updates signs attached to the shop, the lines are only rendered when the render inputs changed,
+     * and only written to the signs not showing them yet.
+     *
+     * @return The amount of signs written
+     */
+    public int updateSignText() {
         Util.ensureThread(false);
         if (!Util.isLoaded(this.location)) {
-            return;
+            return 0;
+        }
+        String locale = MsgUtil.getDefaultGameLanguageCode();
+        return writeSignText(signCache.render(getSignRenderKey(locale), () -> getSignText(locale)));
+    }
+
+    /**
+     * Gets everything the sign text rendered from
+     *
+     * @param locale The locale
+     * @return The render key
+     */
+    @NotNull
+    private List<Object> getSignRenderKey(@NotNull String locale) {
+        int remaining;
+        switch (shopType) {
+            case BUYING:
+                remaining = getRemainingSpace();
+                break;
+            case SELLING:
+                remaining = getRemainingStock();
+                break;
+            default:
+                remaining = 0;
         }
-        this.setSignText(getSignText(MsgUtil.getDefaultGameLanguageCode()));
-        // this.setSignText(getSignText("en_us"));
+        return Arrays.asList(locale, ownerName(false), shopType, remaining, inventoryAvailable(), isStackingShop(),
+                price, getCurrency(), item, item.getAmount(), plugin.getNbtapi() != null,
+                plugin.getConfig().getBoolean("shop.force-use-item-original-name"));
     }
 
     /**
@@ -988,6 +1071,9 @@ public class ContainerShop implements Shop {
             return;
         }
         this.item = item;
+        this.compiledItemMatcher = null;
+        ((SimpleShopManager) plugin.getShopManager()).reindexShop(this);
+        stockTracker.invalidate();
         notifyDisplayItemChange();
         update();
         refresh();
@@ -1021,7 +1107,7 @@ public class ContainerShop implements Shop {
             }
             // Don't make an item for this chest if it's a left shop.
             if (!isLeftShop && !isDisableDisplay() && displayItem != null) {
-                displayItem.spawn();
+                spawnDisplay();
             }
         }
         setSignText();
@@ -1037,7 +1123,9 @@ public class ContainerShop implements Shop {
             Util.debugLog("Dupe load request, canceled.");
             return;
         }
-        Map<Location, Shop> shopsInChunk = plugin.getShopManager().getShops(getLocation().getChunk());
+        // Container may be changed while unloaded, e.g. by world editing tools
+        stockTracker.invalidate();
+        Map<Location, Shop> shopsInChunk = plugin.getShopManager().getShops(Objects.requireNonNull(getLocation().getWorld()).getName(), getLocation().getBlockX() >> 4, getLocation().getBlockZ() >> 4);
 
         if (shopsInChunk == null || !shopsInChunk.containsValue(this)) {
             throw new IllegalStateException("Shop must register into ShopManager before loading.");
@@ -1051,6 +1139,7 @@ public class ContainerShop implements Shop {
         //Shop manger done this already
         //plugin.getShopManager().loadShop(this.getLocation().getWorld().getName(), this);
         plugin.getShopManager().getLoadedShops().add(this);
+        plugin.getShopManager().bakeShopRuntimeRandomUniqueIdCache(this);
         plugin.getShopContainerWatcher().scheduleCheck(this);
 
         // check price restriction
@@ -1082,6 +1171,7 @@ public class ContainerShop implements Shop {
         Util.ensureThread(false);
         setDirty();
         this.moderator = shopModerator;
+        ((SimpleShopManager) plugin.getShopManager()).reindexShop(this);
         update();
         plugin.getServer().getPluginManager().callEvent(new ShopModeratorChangedEvent(this, this.moderator));
     }
@@ -1103,6 +1193,7 @@ public class ContainerShop implements Shop {
     public void setOwner(@NotNull UUID owner) {
         Util.ensureThread(false);
         this.moderator.setOwner(owner);
+        ((SimpleShopManager) plugin.getShopManager()).reindexShop(this);
         setSignText();
         update();
         plugin.getServer().getPluginManager().callEvent(new ShopModeratorChangedEvent(this, this.moderator));
@@ -1146,9 +1237,11 @@ public class ContainerShop implements Shop {
         if (this.unlimited && !isAlwaysCountingContainer()) {
             return -1;
         }
-        int space = Util.countSpace(this.getInventory(), this);
-        new ShopInventoryCalculateEvent(this, space, -1).callEvent();
-        return space;
+        return stockTracker.getSpace(() -> {
+            int space = Util.countSpace(this.getInventory(), this);
+            new ShopInventoryCalculateEvent(this, space, -1).callEvent();
+            return space;
+        });
     }
 
     /**
@@ -1162,9 +1255,43 @@ public class ContainerShop implements Shop {
         if (this.unlimited && !isAlwaysCountingContainer()) {
             return -1;
         }
-        int stock = Util.countItems(this.getInventory(), this);
-        new ShopInventoryCalculateEvent(this, -1, stock).callEvent();
-        return stock;
+        return stockTracker.getStock(() -> {
+            int stock = Util.countItems(this.getInventory(), this);
+            new ShopInventoryCalculateEvent(this, -1, stock).callEvent();
+            return stock;
+        });
+    }
+
+    /**
+     * Marks the cached stock and space outdated, they will be counted again on next query.
+     * The attached shop shares the container, so it is invalidated too.
+     */
+    public void invalidateStockTracker() {
+        stockTracker.invalidate();
+        ContainerShop attached = this.attachedShop;
+        if (attached != null) {
+            attached.stockTracker.invalidate();
+        }
+    }
+
+    /**
+     * Invalidates the cached stock and space, and stops caching them until {@link #settleStockTracker()}.
+     * Used by the inventory events fired before the container changed.
+     */
+    public void markStockChanging() {
+        stockTracker.markChanging();
+        ContainerShop attached = this.attachedShop;
+        if (attached != null) {
+            attached.stockTracker.markChanging();
+        }
+    }
+
+    public void settleStockTracker() {
+        stockTracker.settle();
+        ContainerShop attached = this.attachedShop;
+        if (attached != null) {
+            attached.stockTracker.settle();
+        }
     }
 
     @Override
@@ -1632,6 +1759,7 @@ public class ContainerShop implements Shop {
     @Override
     public void setCurrency(@Nullable String currency) {
         this.currency = currency;
+        ((SimpleShopManager) plugin.getShopManager()).reindexShop(this);
         setDirty();
         this.update();
     }
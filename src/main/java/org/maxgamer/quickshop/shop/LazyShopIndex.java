@@ -0,0 +1,233 @@
+/*
+ * This file is a part of project QuickShop, the name is LazyShopIndex.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.shop;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.maxgamer.quickshop.util.collection.LongObjectHashMap;
+import org.maxgamer.quickshop.util.location.PackedPosition;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact index of the shops that not built yet in lazy loading mode.
+ * <p>
+ * Only the position, owner and unlimited flag are kept, the full shop will be loaded from database
+ * when its chunk loaded. The unload time of chunks are tracked for eviction and pending loads.
+ */
+public class LazyShopIndex {
+    private final Map<String, LongObjectHashMap<List<Entry>>> worlds = new HashMap<>();
+    private final Map<String, LongObjectHashMap<Long>> unloadedChunks = new HashMap<>();
+    private final Map<UUID, OwnerCounter> ownerCounters = new HashMap<>();
+    private int size;
+
+    public synchronized void add(@NotNull String world, int x, int y, int z, @Nullable UUID owner, boolean unlimited) {
+        long chunk = PackedPosition.chunkOfBlock(x, z);
+        LongObjectHashMap<List<Entry>> chunks = worlds.computeIfAbsent(world, k -> new LongObjectHashMap<>(256));
+        List<Entry> entries = chunks.get(chunk);
+        if (entries == null) {
+            entries = new ArrayList<>(1);
+            chunks.put(chunk, entries);
+        }
+        if (owner != null) {
+            OwnerCounter counter = ownerCounters.computeIfAbsent(owner, OwnerCounter::new);
+            // Share the UUID instance between the shops of same owner
+            owner = counter.owner;
+            counter.all++;
+            if (!unlimited) {
+                counter.limited++;
+            }
+        }
+        entries.add(new Entry(PackedPosition.block(x, y, z), owner, unlimited));
+        size++;
+    }
+
+    /**
+     * Removes the entries of given chunk, the caller should build them into shops
+     *
+     * @param world  The world name
+     * @param chunkX The chunk x
+     * @param chunkZ The chunk z
+     * @return The entries, null if no shops pending in chunk
+     */
+    @Nullable
+    public synchronized List<Entry> removeChunk(@NotNull String world, int chunkX, int chunkZ) {
+        LongObjectHashMap<List<Entry>> chunks = worlds.get(world);
+        if (chunks == null) {
+            return null;
+        }
+        List<Entry> entries = chunks.remove(PackedPosition.chunk(chunkX, chunkZ));
+        if (entries == null) {
+            return null;
+        }
+        for (Entry entry : entries) {
+            if (entry.owner != null) {
+                OwnerCounter counter = ownerCounters.get(entry.owner);
+                counter.all--;
+                if (!entry.unlimited) {
+                    counter.limited--;
+                }
+                if (counter.all <= 0) {
+                    ownerCounters.remove(entry.owner);
+                }
+            }
+        }
+        size -= entries.size();
+        return entries;
+    }
+
+    /**
+     * Puts back the entries that failed to build
+     *
+     * @param world   The world name
+     * @param entries The entries removed by {@link #removeChunk(String, int, int)}
+     */
+    public synchronized void restore(@NotNull String world, @NotNull List<Entry> entries) {
+        for (Entry entry : entries) {
+            add(world, entry.getX(), entry.getY(), entry.getZ(), entry.owner, entry.unlimited);
+        }
+    }
+
+    public synchronized boolean hasChunk(@NotNull String world, int chunkX, int chunkZ) {
+        LongObjectHashMap<List<Entry>> chunks = worlds.get(world);
+        return chunks != null && chunks.containsKey(PackedPosition.chunk(chunkX, chunkZ));
+    }
+
+    /**
+     * Gets the amount of not built shops owned by given player
+     *
+     * @param owner            The owner
+     * @param includeUnlimited Counting the unlimited shops
+     * @return The amount of shops
+     */
+    public synchronized int countByOwner(@NotNull UUID owner, boolean includeUnlimited) {
+        OwnerCounter counter = ownerCounters.get(owner);
+        if (counter == null) {
+            return 0;
+        }
+        return includeUnlimited ? counter.all : counter.limited;
+    }
+
+    public synchronized void markChunkUnloaded(@NotNull String world, int chunkX, int chunkZ, long time) {
+        unloadedChunks.computeIfAbsent(world, k -> new LongObjectHashMap<>()).put(PackedPosition.chunk(chunkX, chunkZ), time);
+    }
+
+    public synchronized void markChunkLoaded(@NotNull String world, int chunkX, int chunkZ) {
+        LongObjectHashMap<Long> chunks = unloadedChunks.get(world);
+        if (chunks != null) {
+            chunks.remove(PackedPosition.chunk(chunkX, chunkZ));
+        }
+    }
+
+    public synchronized boolean isChunkUnloaded(@NotNull String world, int chunkX, int chunkZ) {
+        LongObjectHashMap<Long> chunks = unloadedChunks.get(world);
+        return chunks != null && chunks.containsKey(PackedPosition.chunk(chunkX, chunkZ));
+    }
+
+    /**
+     * Removes and returns the chunks unloaded before given time
+     *
+     * @param before The time
+     * @return The idle chunks
+     */
+    @NotNull
+    public synchronized List<IdleChunk> pollIdleChunks(long before) {
+        List<IdleChunk> idle = new ArrayList<>();
+        for (Map.Entry<String, LongObjectHashMap<Long>> world : unloadedChunks.entrySet()) {
+            LongObjectHashMap<Long> chunks = world.getValue();
+            chunks.forEachKeyValue((chunk, time) -> {
+                if (time < before) {
+                    idle.add(new IdleChunk(world.getKey(), PackedPosition.chunkX(chunk), PackedPosition.chunkZ(chunk), time));
+                }
+            });
+        }
+        for (IdleChunk chunk : idle) {
+            unloadedChunks.get(chunk.getWorld()).remove(PackedPosition.chunk(chunk.getChunkX(), chunk.getChunkZ()));
+        }
+        return idle;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        worlds.clear();
+        unloadedChunks.clear();
+        ownerCounters.clear();
+        size = 0;
+    }
+
+    @Getter
+    public static class Entry {
+        private final long position;
+        @Nullable
+        private final UUID owner;
+        private final boolean unlimited;
+
+        private Entry(long position, @Nullable UUID owner, boolean unlimited) {
+            this.position = position;
+            this.owner = owner;
+            this.unlimited = unlimited;
+        }
+
+        public int getX() {
+            return PackedPosition.blockX(position);
+        }
+
+        public int getY() {
+            return PackedPosition.blockY(position);
+        }
+
+        public int getZ() {
+            return PackedPosition.blockZ(position);
+        }
+    }
+
+    private static class OwnerCounter {
+        private final UUID owner;
+        private int all;
+        private int limited;
+
+        private OwnerCounter(@NotNull UUID owner) {
+            this.owner = owner;
+        }
+    }
+
+    @Getter
+    public static class IdleChunk {
+        private final String world;
+        private final int chunkX;
+        private final int chunkZ;
+        private final long unloadedAt;
+
+        private IdleChunk(@NotNull String world, int chunkX, int chunkZ, long unloadedAt) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.unloadedAt = unloadedAt;
+        }
+    }
+}
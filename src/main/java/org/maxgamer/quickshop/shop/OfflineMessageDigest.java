@@ -0,0 +1,111 @@
+/*
+ * This file is a part of project QuickShop, the name is OfflineMessageDigest.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.shop;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the offline transaction messages of a player, newest first, merging the identical ones.
+ * <p>
+ * Only the first {@code maxEntries} distinct messages are kept, the rest are counted for summary.
+ */
+public class OfflineMessageDigest {
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    /**
+     * The amount of messages that added
+     */
+    @Getter
+    private int scanned;
+    /**
+     * The time of newest message that added, -1 if nothing added
+     */
+    @Getter
+    private long newestTime = -1;
+
+    public OfflineMessageDigest(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Adds a message
+     *
+     * @param json The raw message saved in database
+     * @param time The time of message
+     * @return False if the digest is full and the message wasn't added
+     */
+    public boolean add(@NotNull String json, long time) {
+        Entry entry = entries.get(json);
+        if (entry == null) {
+            if (isFull()) {
+                return false;
+            }
+            entries.put(json, new Entry(json));
+        } else {
+            entry.repeats++;
+        }
+        scanned++;
+        newestTime = Math.max(newestTime, time);
+        return true;
+    }
+
+    public boolean isFull() {
+        return entries.size() >= maxEntries;
+    }
+
+    /**
+     * Gets the amount of messages not included in this digest
+     *
+     * @param total The amount of unread messages
+     * @return The amount
+     */
+    public int getRemaining(int total) {
+        return Math.max(0, total - scanned);
+    }
+
+    /**
+     * Gets the distinct messages, oldest first
+     *
+     * @return The entries
+     */
+    @NotNull
+    public List<Entry> getEntries() {
+        List<Entry> list = new ArrayList<>(entries.values());
+        Collections.reverse(list);
+        return list;
+    }
+
+    @Getter
+    public static class Entry {
+        private final String json;
+        private int repeats = 1;
+
+        private Entry(@NotNull String json) {
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * This file is a part of project QuickShop, the name is ShopIndex.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.shop;
+
+import org.bukkit.Location;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.maxgamer.quickshop.api.shop.Shop;
+import org.maxgamer.quickshop.util.collection.LongObjectHashMap;
+import org.maxgamer.quickshop.util.location.PackedPosition;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Spatial index of shops keyed by packed block coordinates.
+ * <p>
+ * Every world owns a primitive long to Shop map for the block lookups, and a long to chunk shops map
+ * as the secondary index for chunk lookups. The chunk shops maps are the same instances that exposed by
+ * {@link SimpleShopManager#getShops()}, so both views always see the same shops.
+ * <p>
+ * Every world also keeps a bitmap of shop blocks and the blocks next to them (where the second half of a
+ * double chest shop can be), the chunks without shops have no bitmap, so the hot events reject them at once.
+ */
+public class ShopIndex {
+    private final Map<String, WorldIndex> worlds = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the shop at given block
+     *
+     * @param world world name
+     * @param x     block x
+     * @param y     block y
+     * @param z     block z
+     * @return The shop, null if no shop there
+     */
+    @Nullable
+    public Shop get(@NotNull String world, int x, int y, int z) {
+        WorldIndex index = worlds.get(world);
+        if (index == null) {
+            return null;
+        }
+        long packed = PackedPosition.block(x, y, z);
+        long stamp = index.lock.readLock();
+        try {
+            return index.blocks.get(packed);
+        } finally {
+            index.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Gets the shops map of given chunk
+     *
+     * @param world  world name
+     * @param chunkX chunk x
+     * @param chunkZ chunk z
+     * @return The shops in chunk, null if chunk never had shops
+     */
+    @Nullable
+    public Map<Location, Shop> getChunk(@NotNull String world, int chunkX, int chunkZ) {
+        WorldIndex index = worlds.get(world);
+        if (index == null) {
+            return null;
+        }
+        long packed = PackedPosition.chunk(chunkX, chunkZ);
+        long stamp = index.lock.readLock();
+        try {
+            return index.chunks.get(packed);
+        } finally {
+            index.lock.unlockRead(stamp);
+        }
+    }
+
+    public void putChunk(@NotNull String world, int chunkX, int chunkZ, @NotNull Map<Location, Shop> inChunk) {
+        WorldIndex index = worlds.computeIfAbsent(world, k -> new WorldIndex());
+        long stamp = index.lock.writeLock();
+        try {
+            index.chunks.put(PackedPosition.chunk(chunkX, chunkZ), inChunk);
+        } finally {
+            index.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Puts the shop to index
+     *
+     * @param world world name
+     * @param x     block x
+     * @param y     block y
+     * @param z     block z
+     * @param shop  the shop
+     * @return The shop that was indexed on same block before
+     */
+    @Nullable
+    public Shop put(@NotNull String world, int x, int y, int z, @NotNull Shop shop) {
+        WorldIndex index = worlds.computeIfAbsent(world, k -> new WorldIndex());
+        long stamp = index.lock.writeLock();
+        try {
+            Shop previous = index.blocks.put(PackedPosition.block(x, y, z), shop);
+            if (previous == null) {
+                index.markShop(x, y, z);
+            }
+            return previous;
+        } finally {
+            index.lock.unlockWrite(stamp);
+        }
+    }
+
+    @Nullable
+    public Shop remove(@NotNull String world, int x, int y, int z) {
+        WorldIndex index = worlds.get(world);
+        if (index == null) {
+            return null;
+        }
+        long stamp = index.lock.writeLock();
+        try {
+            Shop removed = index.blocks.remove(PackedPosition.block(x, y, z));
+            if (removed != null) {
+                index.unmarkShop(x, y, z);
+            }
+            return removed;
+        } finally {
+            index.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Checks whether given block is a shop or next to a shop, without looking up the shop.
+     * It's false for all blocks in the chunks never had shops.
+     *
+     * @param world world name
+     * @param x     block x
+     * @param y     block y
+     * @param z     block z
+     * @return false if the block never be a part of shop
+     */
+    public boolean isShopOrAttached(@NotNull String world, int x, int y, int z) {
+        WorldIndex index = worlds.get(world);
+        if (index == null) {
+            return false;
+        }
+        long stamp = index.lock.readLock();
+        try {
+            ChunkMask mask = index.masks.get(PackedPosition.chunkOfBlock(x, z));
+            return mask != null && mask.isShopOrAttached(x, y, z);
+        } finally {
+            index.lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (WorldIndex index : worlds.values()) {
+            long stamp = index.lock.readLock();
+            try {
+                size += index.blocks.size();
+            } finally {
+                index.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        worlds.clear();
+    }
+
+    private static class WorldIndex {
+        private final StampedLock lock = new StampedLock();
+        private final LongObjectHashMap<Shop> blocks = new LongObjectHashMap<>(64);
+        private final LongObjectHashMap<Map<Location, Shop>> chunks = new LongObjectHashMap<>(16);
+        private final LongObjectHashMap<ChunkMask> masks = new LongObjectHashMap<>(16);
+
+        private void markShop(int x, int y, int z) {
+            mask(x, z).set(true, x, y, z);
+            mask(x + 1, z).set(false, x + 1, y, z);
+            mask(x - 1, z).set(false, x - 1, y, z);
+            mask(x, z + 1).set(false, x, y, z + 1);
+            mask(x, z - 1).set(false, x, y, z - 1);
+        }
+
+        private void unmarkShop(int x, int y, int z) {
+            clear(true, x, y, z);
+            // Another shop may still be next to the neighbors
+            clearAttachedIfAlone(x + 1, y, z);
+            clearAttachedIfAlone(x - 1, y, z);
+            clearAttachedIfAlone(x, y, z + 1);
+            clearAttachedIfAlone(x, y, z - 1);
+        }
+
+        private void clearAttachedIfAlone(int x, int y, int z) {
+            if (blocks.get(PackedPosition.block(x + 1, y, z)) == null
+                    && blocks.get(PackedPosition.block(x - 1, y, z)) == null
+                    && blocks.get(PackedPosition.block(x, y, z + 1)) == null
+                    && blocks.get(PackedPosition.block(x, y, z - 1)) == null) {
+                clear(false, x, y, z);
+            }
+        }
+
+        private void clear(boolean shop, int x, int y, int z) {
+            long key = PackedPosition.chunkOfBlock(x, z);
+            ChunkMask mask = masks.get(key);
+            if (mask != null && mask.clear(shop, x, y, z)) {
+                masks.remove(key);
+            }
+        }
+
+        @NotNull
+        private ChunkMask mask(int x, int z) {
+            long key = PackedPosition.chunkOfBlock(x, z);
+            ChunkMask mask = masks.get(key);
+            if (mask == null) {
+                mask = new ChunkMask();
+                masks.put(key, mask);
+            }
+            return mask;
+        }
+    }
+
+    /**
+     * Block bitsets of one chunk, split to 16x16x16 sections allocated on demand
+     */
+    private static class ChunkMask {
+        // Packed Y takes 12 bits, so sections are from -128 to 127
+        private static final int SECTION_OFFSET = 128;
+        private static final int SECTION_WORDS = 4096 / 64;
+        private final long[][] shops = new long[SECTION_OFFSET * 2][];
+        private final long[][] attached = new long[SECTION_OFFSET * 2][];
+        private int bits;
+
+        private static int section(int y) {
+            return ((y << 20 >> 20) >> 4) + SECTION_OFFSET;
+        }
+
+        private static int bit(int x, int y, int z) {
+            return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+        }
+
+        private boolean isShopOrAttached(int x, int y, int z) {
+            int section = section(y);
+            int bit = bit(x, y, z);
+            return isSet(shops[section], bit) || isSet(attached[section], bit);
+        }
+
+        private static boolean isSet(@Nullable long[] words, int bit) {
+            return words != null && (words[bit >>> 6] & (1L << bit)) != 0;
+        }
+
+        private void set(boolean shop, int x, int y, int z) {
+            long[][] sections = shop ? shops : attached;
+            int section = section(y);
+            long[] words = sections[section];
+            if (words == null) {
+                words = new long[SECTION_WORDS];
+                sections[section] = words;
+            }
+            int bit = bit(x, y, z);
+            if ((words[bit >>> 6] & (1L << bit)) == 0) {
+                words[bit >>> 6] |= 1L << bit;
+                bits++;
+            }
+        }
+
+        /**
+         * @return true if no bits left in this chunk
+         */
+        private boolean clear(boolean shop, int x, int y, int z) {
+            long[] words = (shop ? shops : attached)[section(y)];
+            int bit = bit(x, y, z);
+            if (words != null && (words[bit >>> 6] & (1L << bit)) != 0) {
+                words[bit >>> 6] &= ~(1L << bit);
+                bits--;
+            }
+            return bits == 0;
+        }
+    }
+}
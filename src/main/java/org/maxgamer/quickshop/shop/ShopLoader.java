@@ -26,12 +26,15 @@ import lombok.Getter;
 import lombok.Setter;
 import org.apache.commons.lang3.StringUtils;
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.maxgamer.quickshop.QuickShop;
@@ -41,17 +44,29 @@ import org.maxgamer.quickshop.api.shop.ShopModerator;
 import org.maxgamer.quickshop.api.shop.ShopType;
 import org.maxgamer.quickshop.util.JsonUtil;
 import org.maxgamer.quickshop.util.PlayerFinder;
-import org.maxgamer.quickshop.util.Timer;
 import org.maxgamer.quickshop.util.Util;
 import org.maxgamer.quickshop.util.logging.container.ShopStackingStatusChangeLog;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -64,8 +79,14 @@ public class ShopLoader {
 //    private final Map<Timer, Double> timeCostCache = new HashMap<>();
 
     private final QuickShop plugin;
+    @Getter
+    private final LazyShopIndex lazyIndex = new LazyShopIndex();
+    @Getter
+    private volatile boolean lazyLoading;
+    @Nullable
+    private BukkitTask evictionTask;
     /* This may contains broken shop, must use null check before load it. */
-    private int errors;
+    private final AtomicInteger errors = new AtomicInteger();
     //private final WarningSender warningSender;
 
     /**
@@ -84,130 +105,329 @@ public class ShopLoader {
 
     /**
      * Load all shops in the specified world
+     * <p>
+     * Loading is a pipeline: rows are fetched by pages, decoded in parallel by worker threads,
+     * then registered on main thread in database order. Shops are loaded into world by ticks within
+     * the configured time budget.
      *
      * @param worldName The world name, null if load all shops
      */
     public void loadShops(@Nullable String worldName) {
+        this.lazyLoading = plugin.getConfig().getBoolean("shop-loader.lazy.enable", false);
+        if (lazyLoading) {
+            loadShopIndex(worldName);
+            return;
+        }
         //boolean backupedDatabaseInDeleteProcess = false;
         this.plugin.getLogger().info("Fetching shops from the database...If plugin stuck there, check your database connection.");
-        int loadAfterChunkLoaded = 0;
-        int loadAfterWorldLoaded = 0;
-        int loaded = 0;
-        int total = 0;
-        int valid = 0;
+        int fetchSize = Math.max(1, plugin.getConfig().getInt("shop-loader.fetch-size", 1000));
+        int threads = plugin.getConfig().getInt("shop-loader.decode-threads", 0);
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        LoadingStats stats = new LoadingStats();
         List<Shop> pendingLoading = new ArrayList<>();
-
-        try (WarpedResultSet warpRS = plugin.getDatabaseHelper().selectAllShops(); ResultSet rs = warpRS.getResultSet()) {
-            Timer timer = new Timer();
-            timer.start();
+        ExecutorService decoders = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@NotNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "QuickShop-ShopDecoder-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long begin = System.nanoTime();
+        try (WarpedResultSet warpRS = plugin.getDatabaseHelper().selectAllShops(fetchSize); ResultSet rs = warpRS.getResultSet()) {
             boolean deleteCorruptShops = plugin.getConfig().getBoolean("debug.delete-corrupt-shops", false);
             this.plugin.getLogger().info("Loading shops from the database...");
+            Deque<Future<List<ShopDatabaseInfo>>> decoding = new ArrayDeque<>();
+            List<ShopRawDatabaseInfo> page = new ArrayList<>(fetchSize);
+            long fetchStart = System.nanoTime();
             while (rs.next()) {
-                ++total;
-                ShopRawDatabaseInfo origin = new ShopRawDatabaseInfo(rs);
-                if (worldName != null && !origin.getWorld().equals(worldName)) {
-                    continue;
-                }
-                ShopDatabaseInfo data;
-                try {
-                    data = new ShopDatabaseInfo(origin);
-                } catch (Exception e) {
-                    exceptionHandler(e, null);
-                    continue;
-                }
-                if (shopNullCheck(data)) {
-                    if (deleteCorruptShops) {
-                        plugin.getLogger().warning("Deleting shop " + data + " caused by corrupted.");
-                        plugin.getDatabaseHelper().removeShop(origin.getWorld(), origin.getX(), origin.getY(), origin.getZ());
-                    } else {
-                        Util.debugLog("Trouble database loading debug: " + data);
-                        Util.debugLog("Somethings gone wrong, skipping the loading...");
+                stats.total++;
+                page.add(new ShopRawDatabaseInfo(rs));
+                if (page.size() >= fetchSize) {
+                    stats.fetchNanos += System.nanoTime() - fetchStart;
+                    List<ShopRawDatabaseInfo> decodingPage = page;
+                    decoding.add(decoders.submit(() -> decodePage(decodingPage, worldName, deleteCorruptShops, stats)));
+                    page = new ArrayList<>(fetchSize);
+                    // Register the pages already decoded while fetching next one
+                    while (!decoding.isEmpty() && decoding.peekFirst().isDone()) {
+                        registerPage(decoding.pollFirst().get(), pendingLoading, stats);
                     }
-                    continue;
+                    fetchStart = System.nanoTime();
                 }
-                //World unloaded and not found
-                if (data.getWorld() == null) {
-                    ++loadAfterWorldLoaded;
-                    continue;
+            }
+            stats.fetchNanos += System.nanoTime() - fetchStart;
+            if (!page.isEmpty()) {
+                List<ShopRawDatabaseInfo> decodingPage = page;
+                decoding.add(decoders.submit(() -> decodePage(decodingPage, worldName, deleteCorruptShops, stats)));
+            }
+            while (!decoding.isEmpty()) {
+                registerPage(decoding.pollFirst().get(), pendingLoading, stats);
+            }
+            new ShopLoadingTask(pendingLoading, stats).start();
+            this.plugin.getLogger().info(">> Shop Loader Information");
+            this.plugin.getLogger().info("Total           shops: " + stats.total);
+            this.plugin.getLogger().info("Valid           shops: " + stats.valid);
+            this.plugin.getLogger().info("Pending              : " + pendingLoading.size());
+            this.plugin.getLogger().info("Waiting worlds loaded: " + stats.loadAfterWorldLoaded.get());
+            this.plugin.getLogger().info("Waiting chunks loaded: " + stats.loadAfterChunkLoaded);
+            this.plugin.getLogger().info("Done! Used " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin) + "ms to loaded shops in database "
+                    + "(fetch " + TimeUnit.NANOSECONDS.toMillis(stats.fetchNanos) + "ms"
+                    + ", decode " + TimeUnit.NANOSECONDS.toMillis(stats.decodeNanos.get()) + "ms on " + threads + " threads"
+                    + ", register " + TimeUnit.NANOSECONDS.toMillis(stats.registerNanos) + "ms)"
+                    + ", loading " + pendingLoading.size() + " shops into world in background.");
+        } catch (Exception e) {
+            exceptionHandler(e, null);
+        } finally {
+            decoders.shutdownNow();
+        }
+    }
+
+    /**
+     * Lazy loading mode, only loads the compact index of shops, and builds the shops in loaded chunks.
+     *
+     * @param worldName The world name, null if load all shops
+     */
+    private void loadShopIndex(@Nullable String worldName) {
+        if (worldName == null) {
+            this.plugin.getLogger().info("Fetching shops index from the database...If plugin stuck there, check your database connection.");
+            long begin = System.nanoTime();
+            lazyIndex.clear();
+            int fetchSize = Math.max(1, plugin.getConfig().getInt("shop-loader.fetch-size", 1000));
+            try (WarpedResultSet warpRS = plugin.getDatabaseHelper().selectShopIndex(fetchSize); ResultSet rs = warpRS.getResultSet()) {
+                while (rs.next()) {
+                    lazyIndex.add(rs.getString("world"), rs.getInt("x"), rs.getInt("y"), rs.getInt("z"), parseOwner(rs.getString("owner")), rs.getBoolean("unlimited"));
                 }
-                Shop shop;
+            } catch (Exception e) {
+                exceptionHandler(e, null);
+            }
+            this.plugin.getLogger().info("Done! Used " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin) + "ms to index " + lazyIndex.size() + " shops, shops will be loaded when their chunks loaded.");
+            startEvictionTask();
+        }
+        for (World world : plugin.getServer().getWorlds()) {
+            if (worldName != null && !worldName.equals(world.getName())) {
+                continue;
+            }
+            for (Chunk chunk : world.getLoadedChunks()) {
+                hydrateChunk(world.getName(), chunk.getX(), chunk.getZ());
+            }
+        }
+    }
+
+    @Nullable
+    private UUID parseOwner(@Nullable String moderators) {
+        if (moderators == null) {
+            return null;
+        }
+        if (Util.isUUID(moderators)) {
+            return UUID.fromString(moderators);
+        }
+        try {
+            return SimpleShopModerator.deserialize(moderators).getOwner();
+        } catch (Exception e) {
+            // Old name based data, will be upgraded when the shop loaded
+            return null;
+        }
+    }
+
+    /**
+     * Loads the shops of given chunk from database in lazy loading mode.
+     * Do nothing if there are no shops pending in the chunk.
+     *
+     * @param world  The world name
+     * @param chunkX The chunk x
+     * @param chunkZ The chunk z
+     * @return The future completed on main thread after shops loaded
+     */
+    @NotNull
+    public CompletableFuture<Void> hydrateChunk(@NotNull String world, int chunkX, int chunkZ) {
+        List<LazyShopIndex.Entry> entries = lazyIndex.removeChunk(world, chunkX, chunkZ);
+        if (entries == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<ShopRawDatabaseInfo> rows = new ArrayList<>(entries.size());
+            try (WarpedResultSet warpRS = plugin.getDatabaseHelper().selectShopsInArea(world, chunkX << 4, chunkZ << 4, (chunkX << 4) + 15, (chunkZ << 4) + 15); ResultSet rs = warpRS.getResultSet()) {
+                while (rs.next()) {
+                    rows.add(new ShopRawDatabaseInfo(rs));
+                }
+            } catch (SQLException e) {
+                lazyIndex.restore(world, entries);
+                exceptionHandler(e, null);
+                future.completeExceptionally(e);
+                return;
+            }
+            List<ShopDatabaseInfo> decoded = decodePage(rows, world, false, new LoadingStats());
+            Util.mainThreadRun(() -> {
                 try {
-                    double price = data.getPrice();
-                    if (!plugin.isAllowStack() && data.item.getAmount() > 1) {
-                        //Shop stack changed, logging for backup
-                        plugin.logEvent(new ShopStackingStatusChangeLog(origin));
-                        //Update the actual price
-                        price = price / data.item.getAmount();
-                        //Setting item amount
-                        data.item.setAmount(1);
+                    if (lazyIndex.isChunkUnloaded(world, chunkX, chunkZ)) {
+                        // Chunk unloaded while loading from database, keep them pending
+                        lazyIndex.restore(world, entries);
+                        future.complete(null);
+                        return;
                     }
-                    shop =
-                            new ContainerShop(plugin,
-                                    data.getLocation(),
-                                    price,
-                                    data.getItem(),
-                                    data.getModerators(),
-                                    data.isUnlimited(),
-                                    data.getType(),
-                                    data.getExtra(),
-                                    data.getCurrency(),
-                                    data.isDisableDisplay(),
-                                    data.getTaxAccount());
-                } catch (Exception e) {
-                    exceptionHandler(e, data.location);
-                    continue;
-                }
-                if (data.needUpdate.get()) {
-                    shop.setDirty();
+                    // Created while loading from database
+                    decoded.removeIf(data -> plugin.getShopManager().getShop(data.getLocation(), true) != null);
+                    List<Shop> pending = new ArrayList<>(decoded.size());
+                    registerPage(decoded, pending, new LoadingStats());
+                    for (Shop shop : pending) {
+                        loadIntoWorld(shop);
+                    }
+                    future.complete(null);
+                } catch (Throwable throwable) {
+                    future.completeExceptionally(throwable);
+                    exceptionHandler(throwable, null);
                 }
-                ++valid;
+            });
+        });
+        return future;
+    }
 
-                Location shopLocation = shop.getLocation();
-                //World unloaded but found
-                if (!shopLocation.isWorldLoaded()) {
-                    ++loadAfterWorldLoaded;
+    private void startEvictionTask() {
+        if (evictionTask != null) {
+            evictionTask.cancel();
+        }
+        long idleTime = TimeUnit.SECONDS.toMillis(plugin.getConfig().getLong("shop-loader.lazy.idle-time", 1800));
+        evictionTask = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> evictIdleChunks(idleTime), 1200, 1200);
+    }
+
+    /**
+     * Evicts the shops in the chunks unloaded longer than idle time back to the lazy index.
+     */
+    private void evictIdleChunks(long idleTime) {
+        int evicted = 0;
+        for (LazyShopIndex.IdleChunk chunk : lazyIndex.pollIdleChunks(System.currentTimeMillis() - idleTime)) {
+            World world = plugin.getServer().getWorld(chunk.getWorld());
+            if (world == null || world.isChunkLoaded(chunk.getChunkX(), chunk.getChunkZ())) {
+                continue;
+            }
+            Map<Location, Shop> inChunk = plugin.getShopManager().getShops(chunk.getWorld(), chunk.getChunkX(), chunk.getChunkZ());
+            if (inChunk == null || inChunk.isEmpty()) {
+                continue;
+            }
+            boolean retry = false;
+            for (Shop shop : new ArrayList<>(inChunk.values())) {
+                if (shop.isLoaded() || shop.isDeleted()) {
                     continue;
                 }
-                // Load to RAM
-                plugin.getShopManager().loadShop(shopLocation.getWorld().getName(), shop);
-
-                if (Util.isLoaded(shopLocation)) {
-                    // Load to World
-                    if (!Util.canBeShop(shopLocation.getBlock())) {
-                        Util.debugLog("Target block can't be a shop, removing it from the memory...");
-                        // shop.delete();
-                        valid--;
-                        plugin.getShopManager().removeShop(shop); // Remove from Mem
-                        //TODO: Only remove from memory, so if it actually is a bug, user won't lost all shops.
-                        //TODO: Old shop will be deleted when in same location creating new shop.
-                    } else {
-                        pendingLoading.add(shop);
-                        ++loaded;
-                    }
+                if (shop.isDirty()) {
+                    // Save first, evict it next round
+                    shop.update();
+                    retry = true;
+                    continue;
+                }
+                Location location = shop.getLocation();
+                plugin.getShopManager().removeShop(shop);
+                lazyIndex.add(chunk.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ(), shop.getOwner(), shop.isUnlimited());
+                evicted++;
+            }
+            if (retry) {
+                lazyIndex.markChunkUnloaded(chunk.getWorld(), chunk.getChunkX(), chunk.getChunkZ(), chunk.getUnloadedAt());
+            }
+        }
+        if (evicted > 0) {
+            Util.debugLog("Evicted " + evicted + " idle shops back to lazy index.");
+        }
+    }
+
+    /**
+     * Decodes the page of raw shop data, runs on decode worker threads.
+     */
+    @NotNull
+    private List<ShopDatabaseInfo> decodePage(@NotNull List<ShopRawDatabaseInfo> page, @Nullable String worldName, boolean deleteCorruptShops, @NotNull LoadingStats stats) {
+        long start = System.nanoTime();
+        List<ShopDatabaseInfo> decoded = new ArrayList<>(page.size());
+        for (ShopRawDatabaseInfo origin : page) {
+            if (worldName != null && !origin.getWorld().equals(worldName)) {
+                continue;
+            }
+            ShopDatabaseInfo data;
+            try {
+                data = new ShopDatabaseInfo(origin);
+            } catch (Exception e) {
+                exceptionHandler(e, null);
+                continue;
+            }
+            if (shopNullCheck(data)) {
+                if (deleteCorruptShops) {
+                    plugin.getLogger().warning("Deleting shop " + data + " caused by corrupted.");
+                    plugin.getDatabaseHelper().removeShop(origin.getWorld(), origin.getX(), origin.getY(), origin.getZ());
                 } else {
-                    loadAfterChunkLoaded++;
+                    Util.debugLog("Trouble database loading debug: " + data);
+                    Util.debugLog("Somethings gone wrong, skipping the loading...");
                 }
+                continue;
             }
-            Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                for (Shop shop : pendingLoading) {
-                    try {
-                        shop.onLoad();
-                    } catch (Throwable throwable) {
-                        exceptionHandler(throwable, shop.getLocation());
-                    }
-                    shop.update();
+            //World unloaded and not found
+            if (data.getWorld() == null) {
+                stats.loadAfterWorldLoaded.incrementAndGet();
+                continue;
+            }
+            data.origin = origin;
+            decoded.add(data);
+        }
+        stats.decodeNanos.addAndGet(System.nanoTime() - start);
+        return decoded;
+    }
+
+    /**
+     * Creates the shops of decoded page and loads them into ShopManager, must run on main thread.
+     */
+    private void registerPage(@NotNull List<ShopDatabaseInfo> page, @NotNull List<Shop> pendingLoading, @NotNull LoadingStats stats) {
+        long start = System.nanoTime();
+        for (ShopDatabaseInfo data : page) {
+            Shop shop;
+            try {
+                double price = data.getPrice();
+                if (!plugin.isAllowStack() && data.item.getAmount() > 1) {
+                    //Shop stack changed, logging for backup
+                    plugin.logEvent(new ShopStackingStatusChangeLog(data.origin));
+                    //Update the actual price
+                    price = price / data.item.getAmount();
+                    //Setting item amount
+                    data.item.setAmount(1);
                 }
-            }, 1);
-            this.plugin.getLogger().info(">> Shop Loader Information");
-            this.plugin.getLogger().info("Total           shops: " + total);
-            this.plugin.getLogger().info("Valid           shops: " + valid);
-            this.plugin.getLogger().info("Pending              : " + loaded);
-            this.plugin.getLogger().info("Waiting worlds loaded: " + loadAfterWorldLoaded);
-            this.plugin.getLogger().info("Waiting chunks loaded: " + loadAfterChunkLoaded);
-            this.plugin.getLogger().info("Done! Used " + timer.stopAndGetTimePassed() + "ms to loaded shops in database.");
-        } catch (Exception e) {
-            exceptionHandler(e, null);
+                shop =
+                        new ContainerShop(plugin,
+                                data.getLocation(),
+                                price,
+                                data.getItem(),
+                                data.getModerators(),
+                                data.isUnlimited(),
+                                data.getType(),
+                                data.getExtra(),
+                                data.getCurrency(),
+                                data.isDisableDisplay(),
+                                data.getTaxAccount());
+            } catch (Exception e) {
+                exceptionHandler(e, data.location);
+                continue;
+            }
+            if (data.needUpdate.get()) {
+                shop.setDirty();
+            }
+            ++stats.valid;
+
+            Location shopLocation = shop.getLocation();
+            //World unloaded but found
+            if (!shopLocation.isWorldLoaded()) {
+                stats.loadAfterWorldLoaded.incrementAndGet();
+                continue;
+            }
+            // Load to RAM
+            plugin.getShopManager().loadShop(shopLocation.getWorld().getName(), shop);
+
+            if (Util.isLoaded(shopLocation)) {
+                pendingLoading.add(shop);
+            } else {
+                stats.loadAfterChunkLoaded++;
+            }
         }
+        stats.registerNanos += System.nanoTime() - start;
     }
 
     @SuppressWarnings("ConstantConditions")
@@ -273,7 +493,7 @@ public class ShopLoader {
     }
 
     private void exceptionHandler(@NotNull Throwable ex, @Nullable Location shopLocation) {
-        errors++;
+        int errors = this.errors.incrementAndGet();
         Logger logger = plugin.getLogger();
         logger.warning("##########FAILED TO LOAD SHOP##########");
         logger.warning("  >> Error Info:");
@@ -286,8 +506,11 @@ public class ShopLoader {
         ex.printStackTrace();
         logger.warning("  >> Target Location Info");
         logger.warning("Location: " + ((shopLocation == null) ? "NULL" : shopLocation.toString()));
-        logger.warning(
-                "Block: " + ((shopLocation == null) ? "NULL" : shopLocation.getBlock().getType().name()));
+        // Blocks can only be accessed on main thread, the decode workers skip it
+        if (Bukkit.isPrimaryThread()) {
+            logger.warning(
+                    "Block: " + ((shopLocation == null) ? "NULL" : shopLocation.getBlock().getType().name()));
+        }
         logger.warning("#######################################");
         if (errors > 10) {
             logger.severe(
@@ -295,6 +518,12 @@ public class ShopLoader {
         }
     }
 
+    /**
+     * Recovers the shops from the backup file content.
+     * Must be called off the main thread, the legacy owner names are resolved on the calling thread.
+     *
+     * @param fileContent The file content
+     */
     public synchronized void recoverFromFile(@NotNull String fileContent) {
         plugin.getLogger().info("Processing the shop data...");
         String[] shopsPlain = fileContent.split("\n");
@@ -310,14 +539,18 @@ public class ShopLoader {
             }
         }
         plugin.getLogger().info("Processed " + total + "/" + total + " - [ Valid " + list.size() + "]");
+        // Decode before switching to main thread, it may look up the legacy owner names
+        List<ShopDatabaseInfo> decoded = new ArrayList<>(list.size());
+        for (ShopRawDatabaseInfo rawDatabaseInfo : list) {
+            ShopDatabaseInfo data = new ShopDatabaseInfo(rawDatabaseInfo);
+            if (!shopNullCheck(data)) {
+                decoded.add(data);
+            }
+        }
         // Load to RAM
         Util.mainThreadRun(() -> {
             plugin.getLogger().info("Loading recovered shops...");
-            for (ShopRawDatabaseInfo rawDatabaseInfo : list) {
-                ShopDatabaseInfo data = new ShopDatabaseInfo(rawDatabaseInfo);
-                if (shopNullCheck(data)) {
-                    continue;
-                }
+            for (ShopDatabaseInfo data : decoded) {
                 Shop shop;
                 try {
                     shop = new ContainerShop(plugin,
@@ -348,7 +581,7 @@ public class ShopLoader {
 
     @NotNull
     public List<ShopRawDatabaseInfo> getOriginShopsInDatabase() {
-        errors = 0;
+        errors.set(0);
         List<ShopRawDatabaseInfo> shopRawDatabaseInfoList = new ArrayList<>();
         try (WarpedResultSet warpRS = plugin.getDatabaseHelper().selectAllShops(); ResultSet rs = warpRS.getResultSet()) {
            // this.plugin.getLogger().info("Getting shops from the database...");
@@ -363,11 +596,99 @@ public class ShopLoader {
         return shopRawDatabaseInfoList;
     }
 
+    /**
+     * Loads the registered shop into world
+     *
+     * @param shop The shop
+     * @return false if the shop removed from memory due the target block can't be a shop
+     */
+    private boolean loadIntoWorld(@NotNull Shop shop) {
+        if (shop.isDeleted() || shop.isLoaded() || !Util.isLoaded(shop.getLocation())) {
+            // Removed or loaded by chunk loading already, or chunk unloaded and will be loaded by ChunkListener
+            return true;
+        }
+        // Load to World
+        if (!Util.canBeShop(shop.getLocation().getBlock())) {
+            Util.debugLog("Target block can't be a shop, removing it from the memory...");
+            // shop.delete();
+            plugin.getShopManager().removeShop(shop); // Remove from Mem
+            //TODO: Only remove from memory, so if it actually is a bug, user won't lost all shops.
+            //TODO: Old shop will be deleted when in same location creating new shop.
+            return false;
+        }
+        try {
+            shop.onLoad();
+        } catch (Throwable throwable) {
+            exceptionHandler(throwable, shop.getLocation());
+        }
+        shop.update();
+        return true;
+    }
+
+    private static class LoadingStats {
+        private final AtomicInteger loadAfterWorldLoaded = new AtomicInteger();
+        private final AtomicLong decodeNanos = new AtomicLong();
+        private int total;
+        private int valid;
+        private int loadAfterChunkLoaded;
+        private long fetchNanos;
+        private long registerNanos;
+    }
+
+    /**
+     * Loads the registered shops into world, spreads the work over ticks within the time budget.
+     */
+    private class ShopLoadingTask extends BukkitRunnable {
+        private final Iterator<Shop> pending;
+        private final int amount;
+        private final LoadingStats stats;
+        private final long budgetNanos;
+        private long loadNanos;
+        private int ticks;
+        private int removed;
+
+        private ShopLoadingTask(@NotNull List<Shop> pending, @NotNull LoadingStats stats) {
+            this.pending = pending.iterator();
+            this.amount = pending.size();
+            this.stats = stats;
+            this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, plugin.getConfig().getLong("shop-loader.tick-budget", 10)));
+        }
+
+        private void start() {
+            if (amount == 0) {
+                return;
+            }
+            runTaskTimer(plugin, 1, 1);
+        }
+
+        @Override
+        public void run() {
+            ticks++;
+            long start = System.nanoTime();
+            while (pending.hasNext() && System.nanoTime() - start < budgetNanos) {
+                if (!loadIntoWorld(pending.next())) {
+                    removed++;
+                }
+            }
+            loadNanos += System.nanoTime() - start;
+            if (!pending.hasNext()) {
+                cancel();
+                plugin.getLogger().info("Loaded " + (amount - removed) + " shops into world in " + ticks + " ticks (load " + TimeUnit.NANOSECONDS.toMillis(loadNanos) + "ms"
+                        + (removed > 0 ? ", removed " + removed + " shops from memory that target block can't be a shop" : "") + ").");
+                Util.debugLog("Shop loading stages of " + stats.total + " shops: fetch " + TimeUnit.NANOSECONDS.toMillis(stats.fetchNanos) + "ms, decode "
+                        + TimeUnit.NANOSECONDS.toMillis(stats.decodeNanos.get()) + "ms, register " + TimeUnit.NANOSECONDS.toMillis(stats.registerNanos)
+                        + "ms, load " + TimeUnit.NANOSECONDS.toMillis(loadNanos) + "ms");
+            }
+        }
+    }
+
     @Getter
     @Setter
     static public class ShopRawDatabaseInfo {
         private String item;
 
+        private transient byte[] itemBinary;
+
         private String moderators;
 
         private double price;
@@ -397,6 +718,7 @@ public class ShopLoader {
             this.z = rs.getInt("z");
             this.world = rs.getString("world");
             this.item = rs.getString("itemConfig");
+            this.itemBinary = rs.getBytes("itemBinary");
             this.moderators = rs.getString("owner");
             this.price = rs.getDouble("price");
             this.type = rs.getInt("type");
@@ -450,6 +772,8 @@ public class ShopLoader {
 
         private boolean disableDisplay;
 
+        private ShopRawDatabaseInfo origin;
+
         ShopDatabaseInfo(ShopRawDatabaseInfo origin) {
             try {
                 this.x = origin.getX();
@@ -461,7 +785,7 @@ public class ShopLoader {
                 this.unlimited = origin.isUnlimited();
                 this.moderators = deserializeModerator(origin.getModerators(), needUpdate);
                 this.type = ShopType.fromID(origin.getType());
-                this.item = deserializeItem(origin.getItem());
+                this.item = deserializeItem(origin.getItem(), origin.getItemBinary(), needUpdate);
                 this.extra = deserializeExtra(origin.getExtra(), needUpdate);
                 this.currency = origin.getCurrency();
                 this.disableDisplay = origin.isDisableDisplay();
@@ -470,9 +794,21 @@ public class ShopLoader {
                 exceptionHandler(ex, this.location);
             }
         }
-        private @Nullable ItemStack deserializeItem(@NotNull String itemConfig) throws RuntimeException {
+        private @Nullable ItemStack deserializeItem(@NotNull String itemConfig, @Nullable byte[] itemBinary, @NotNull AtomicBoolean needUpdate) throws RuntimeException {
+            if (itemBinary != null) {
+                try {
+                    return Util.deserialize(itemBinary);
+                } catch (InvalidConfigurationException e) {
+                    Util.debugLog("Failed to load binary ItemStack, fallback to YAML: " + e.getMessage());
+                }
+            }
             try {
-                return Util.deserialize(itemConfig);
+                ItemStack itemStack = Util.deserialize(itemConfig);
+                if (itemStack != null && Util.serializeToBytes(itemStack) != null) {
+                    // Old shops or failed to decode binary, save the binary form on next update
+                    needUpdate.set(true);
+                }
+                return itemStack;
             } catch (InvalidConfigurationException e) {
                 plugin.getLogger().log(Level.WARNING, "Failed load shop data, because target config can't deserialize the ItemStack", e);
                 Util.debugLog("Failed to load data to the ItemStack: " + itemConfig);
@@ -491,8 +827,9 @@ public class ShopLoader {
                     shopModerator = SimpleShopModerator.deserialize(moderatorJson);
                 } catch (JsonSyntaxException ex) {
                     Util.debugLog("Updating old shop data... for " + moderatorJson);
-                    moderatorJson = PlayerFinder.findUUIDByName(moderatorJson, true, true).toString();
-                    shopModerator = new SimpleShopModerator(UUID.fromString(moderatorJson)); // New one
+                    // Always off the main thread, the lookups of all decoders are batched by resolver
+                    PlayerFinder.PlayerProfile profile = PlayerFinder.findPlayerProfileByNameAsync(moderatorJson).join();
+                    shopModerator = new SimpleShopModerator(Objects.requireNonNull(profile, "Unknown player " + moderatorJson).getUuid()); // New one
                     needUpdate.set(true);
                 }
             }
@@ -0,0 +1,170 @@
+/*
+ * This file is a part of project QuickShop, the name is ShopPropertyIndex.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.shop;
+
+import org.bukkit.Material;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.maxgamer.quickshop.api.shop.Shop;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary indexes of shops by owner, world, item type and currency.
+ * <p>
+ * Shops are keyed by their runtime random unique id since Shop#hashCode changes when the shop modified.
+ * The keys a shop indexed with are recorded, so a shop can always be removed even it changed behind us.
+ */
+public class ShopPropertyIndex {
+    // ConcurrentHashMap doesn't allow null key, the default currency use this instead
+    private static final String DEFAULT_CURRENCY_KEY = "";
+    private final Map<UUID, IndexedKeys> indexed = new ConcurrentHashMap<>();
+    private final Map<UUID, Map<UUID, Shop>> byOwner = new ConcurrentHashMap<>();
+    private final Map<String, Map<UUID, Shop>> byWorld = new ConcurrentHashMap<>();
+    private final Map<Material, Map<UUID, Shop>> byItemType = new ConcurrentHashMap<>();
+    private final Map<String, Map<UUID, Shop>> byCurrency = new ConcurrentHashMap<>();
+
+    @NotNull
+    private static String currencyKey(@Nullable String currency) {
+        return currency == null ? DEFAULT_CURRENCY_KEY : currency;
+    }
+
+    @NotNull
+    private static <K> Collection<Shop> view(@NotNull Map<K, Map<UUID, Shop>> index, @NotNull K key) {
+        Map<UUID, Shop> shops = index.get(key);
+        if (shops == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection(shops.values());
+    }
+
+    private static <K> void link(@NotNull Map<K, Map<UUID, Shop>> index, @NotNull K key, @NotNull Shop shop) {
+        index.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).put(shop.getRuntimeRandomUniqueId(), shop);
+    }
+
+    private static <K> void unlink(@NotNull Map<K, Map<UUID, Shop>> index, @NotNull K key, @NotNull UUID runtimeId) {
+        // Keep the empty bucket, so the views handed out earlier still reflect later changes
+        Map<UUID, Shop> shops = index.get(key);
+        if (shops != null) {
+            shops.remove(runtimeId);
+        }
+    }
+
+    public void add(@NotNull String world, @NotNull Shop shop) {
+        remove(shop);
+        IndexedKeys keys = new IndexedKeys(shop.getOwner(), world, shop.getItem().getType(), currencyKey(shop.getCurrency()));
+        indexed.put(shop.getRuntimeRandomUniqueId(), keys);
+        link(byOwner, keys.owner, shop);
+        link(byWorld, keys.world, shop);
+        link(byItemType, keys.itemType, shop);
+        link(byCurrency, keys.currency, shop);
+    }
+
+    public void remove(@NotNull Shop shop) {
+        UUID runtimeId = shop.getRuntimeRandomUniqueId();
+        IndexedKeys keys = indexed.remove(runtimeId);
+        if (keys == null) {
+            return;
+        }
+        unlink(byOwner, keys.owner, runtimeId);
+        unlink(byWorld, keys.world, runtimeId);
+        unlink(byItemType, keys.itemType, runtimeId);
+        unlink(byCurrency, keys.currency, runtimeId);
+    }
+
+    /**
+     * Moves the shop to the buckets that match its current owner, item type and currency.
+     * Do nothing if the shop not indexed.
+     *
+     * @param shop The shop that changed
+     */
+    public void update(@NotNull Shop shop) {
+        UUID runtimeId = shop.getRuntimeRandomUniqueId();
+        IndexedKeys keys = indexed.get(runtimeId);
+        if (keys == null) {
+            return;
+        }
+        UUID owner = shop.getOwner();
+        if (!keys.owner.equals(owner)) {
+            unlink(byOwner, keys.owner, runtimeId);
+            link(byOwner, owner, shop);
+            keys.owner = owner;
+        }
+        Material itemType = shop.getItem().getType();
+        if (keys.itemType != itemType) {
+            unlink(byItemType, keys.itemType, runtimeId);
+            link(byItemType, itemType, shop);
+            keys.itemType = itemType;
+        }
+        String currency = currencyKey(shop.getCurrency());
+        if (!Objects.equals(keys.currency, currency)) {
+            unlink(byCurrency, keys.currency, runtimeId);
+            link(byCurrency, currency, shop);
+            keys.currency = currency;
+        }
+    }
+
+    @NotNull
+    public Collection<Shop> getByOwner(@NotNull UUID owner) {
+        return view(byOwner, owner);
+    }
+
+    @NotNull
+    public Collection<Shop> getByWorld(@NotNull String world) {
+        return view(byWorld, world);
+    }
+
+    @NotNull
+    public Collection<Shop> getByItemType(@NotNull Material material) {
+        return view(byItemType, material);
+    }
+
+    @NotNull
+    public Collection<Shop> getByCurrency(@Nullable String currency) {
+        return view(byCurrency, currencyKey(currency));
+    }
+
+    public void clear() {
+        indexed.clear();
+        byOwner.clear();
+        byWorld.clear();
+        byItemType.clear();
+        byCurrency.clear();
+    }
+
+    private static class IndexedKeys {
+        private final String world;
+        private volatile UUID owner;
+        private volatile Material itemType;
+        private volatile String currency;
+
+        private IndexedKeys(@NotNull UUID owner, @NotNull String world, @NotNull Material itemType, @NotNull String currency) {
+            this.owner = owner;
+            this.world = world;
+            this.itemType = itemType;
+            this.currency = currency;
+        }
+    }
+}
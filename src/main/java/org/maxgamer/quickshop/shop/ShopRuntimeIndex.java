@@ -0,0 +1,59 @@
+/*
+ * This file is a part of project QuickShop, the name is ShopRuntimeIndex.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.shop;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.maxgamer.quickshop.api.shop.Shop;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of shops by their runtime random unique id.
+ * <p>
+ * Shops are added when loaded into ShopManager or loaded in world, and removed when unloaded or deleted.
+ */
+public class ShopRuntimeIndex {
+    private final Map<UUID, Shop> shops = new ConcurrentHashMap<>();
+
+    public void add(@NotNull Shop shop) {
+        shops.put(shop.getRuntimeRandomUniqueId(), shop);
+    }
+
+    public void remove(@NotNull Shop shop) {
+        // Only remove the mapping if it still points to this shop
+        shops.remove(shop.getRuntimeRandomUniqueId(), shop);
+    }
+
+    @Nullable
+    public Shop get(@NotNull UUID runtimeRandomUniqueId) {
+        return shops.get(runtimeRandomUniqueId);
+    }
+
+    public int size() {
+        return shops.size();
+    }
+
+    public void clear() {
+        shops.clear();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is a part of project QuickShop, the name is ShopSignCache.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.shop;
+
+import org.bukkit.Location;
+import org.jetbrains.annotations.NotNull;
+import org.maxgamer.quickshop.api.chat.ComponentPackage;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Caches the rendered sign lines of a shop and which signs already showing them.
+ * <p>
+ * Rendering needs many text lookups, price formatting and component building, so the lines are
+ * kept until any of the inputs (the render key) changed. The signs are only written when they
+ * don't show the current lines yet.
+ */
+public class ShopSignCache {
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+    private final Set<Location> writtenSigns = new HashSet<>();
+    private List<Object> key;
+    private int generation;
+    private List<ComponentPackage> lines;
+
+    /**
+     * Makes all the rendered lines stale, e.g. the texts or config reloaded
+     */
+    public static void invalidateAll() {
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * Gets the rendered lines, render them if the key changed
+     *
+     * @param key      The render inputs
+     * @param renderer The function to render lines
+     * @return The lines, same instance as last call if nothing changed
+     */
+    @NotNull
+    public List<ComponentPackage> render(@NotNull List<Object> key, @NotNull Supplier<List<ComponentPackage>> renderer) {
+        int currentGeneration = GENERATION.get();
+        if (lines == null || generation != currentGeneration || !Objects.equals(this.key, key)) {
+            this.lines = renderer.get();
+            this.key = key;
+            this.generation = currentGeneration;
+            writtenSigns.clear();
+        }
+        return lines;
+    }
+
+    /**
+     * Checks the sign is showing given lines
+     *
+     * @param lines The lines
+     * @param sign  The sign location
+     * @return True if the lines are written to the sign before
+     */
+    public boolean isWritten(@NotNull List<ComponentPackage> lines, @NotNull Location sign) {
+        return this.lines == lines && writtenSigns.contains(sign);
+    }
+
+    /**
+     * Records the lines written to the sign
+     *
+     * @param lines The lines
+     * @param sign  The sign location
+     */
+    public void markWritten(@NotNull List<ComponentPackage> lines, @NotNull Location sign) {
+        if (this.lines != lines) {
+            // Not the rendered lines, the signs showing them won't be skipped
+            writtenSigns.clear();
+            return;
+        }
+        writtenSigns.add(sign);
+    }
+
+    public void invalidate() {
+        lines = null;
+        key = null;
+        writtenSigns.clear();
+    }
+}
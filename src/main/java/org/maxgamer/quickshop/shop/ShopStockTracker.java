@@ -0,0 +1,101 @@
+/*
+ * This file is a part of project QuickShop, the name is ShopStockTracker.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.shop;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Caches the stock and space counted from a shop container.
+ * <p>
+ * Counting walks every slot with the item matcher, so the counts are kept until something
+ * may changed the container (inventory events, trading, item changed) invalidates them.
+ */
+public class ShopStockTracker {
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+    // Read by other threads, e.g. the sign and info queries from async tasks
+    private volatile int stock = UNKNOWN;
+    private volatile int space = UNKNOWN;
+    /**
+     * The container is being changed, the counts are not cached until settled
+     */
+    private volatile boolean changing;
+
+    /**
+     * Gets the stock, counts it if invalidated
+     *
+     * @param counter The function to count the stock
+     * @return The stock
+     */
+    public int getStock(@NotNull IntSupplier counter) {
+        int current = stock;
+        if (current == UNKNOWN) {
+            current = counter.getAsInt();
+            if (!changing) {
+                stock = current;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Gets the space, counts it if invalidated
+     *
+     * @param counter The function to count the space
+     * @return The space
+     */
+    public int getSpace(@NotNull IntSupplier counter) {
+        int current = space;
+        if (current == UNKNOWN) {
+            current = counter.getAsInt();
+            if (!changing) {
+                space = current;
+            }
+        }
+        return current;
+    }
+
+    public void invalidate() {
+        stock = UNKNOWN;
+        space = UNKNOWN;
+    }
+
+    /**
+     * Invalidates the counts and stops caching them until {@link #settle()},
+     * used by the events fired before the container changed.
+     */
+    public void markChanging() {
+        changing = true;
+        invalidate();
+    }
+
+    /**
+     * Called after the change applied, the next query counts and caches again
+     */
+    public void settle() {
+        changing = false;
+        invalidate();
+    }
+
+    public boolean isCounted() {
+        return stock != UNKNOWN || space != UNKNOWN;
+    }
+}
@@ -19,8 +19,6 @@
 
 package org.maxgamer.quickshop.shop;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -85,6 +83,7 @@ import org.maxgamer.quickshop.util.reload.ReloadStatus;
 import org.maxgamer.quickshop.util.reload.Reloadable;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -92,7 +91,6 @@ import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import static org.maxgamer.quickshop.api.shop.ShopAction.CREATE_TYPE_INPUT;
@@ -104,24 +102,24 @@ public class SimpleShopManager implements ShopManager, Reloadable {
 
     private final Map<String, Map<ShopChunk, Map<Location, Shop>>> shops = Maps.newConcurrentMap();
 
+    private final ShopIndex shopIndex = new ShopIndex();
+
+    private final ShopPropertyIndex propertyIndex = new ShopPropertyIndex();
+
+    private final ShopRuntimeIndex runtimeIndex = new ShopRuntimeIndex();
+
     private final Set<Shop> loadedShops = Sets.newConcurrentHashSet();
 
     private final Map<UUID, Info> actions = Maps.newConcurrentMap();
 
     private final QuickShop plugin;
-    private final Cache<UUID, Shop> shopRuntimeUUIDCaching =
-            CacheBuilder.newBuilder()
-                    .expireAfterAccess(10, TimeUnit.MINUTES)
-                    .maximumSize(50)
-                    .weakValues()
-                    .initialCapacity(50)
-                    .build();
     private final EconomyFormatter formatter;
     @Getter
     @Nullable
-    private Trader cacheTaxAccount;
+    private volatile Trader cacheTaxAccount;
     @Getter
-    private Trader cacheUnlimitedShopAccount;
+    @Nullable
+    private volatile Trader cacheUnlimitedShopAccount;
     private SimplePriceLimiter priceLimiter;
     private boolean useOldCanBuildAlgorithm;
     private boolean autoSign;
@@ -142,7 +140,8 @@ public class SimpleShopManager implements ShopManager, Reloadable {
             if (Util.isUUID(taxAccount)) {
                 this.cacheTaxAccount = new Trader(taxAccount, PlayerFinder.findOfflinePlayerByUUID(UUID.fromString(taxAccount)));
             } else {
-                this.cacheTaxAccount = PlayerFinder.findPlayerProfileByName(taxAccount, true, true).getTrader();
+                // Completes immediately if cached, otherwise resolved in background
+                PlayerFinder.findPlayerProfileByNameAsync(taxAccount).thenAccept(profile -> this.cacheTaxAccount = profile == null ? null : profile.getTrader());
             }
         } else {
             // disable tax account
@@ -157,7 +156,7 @@ public class SimpleShopManager implements ShopManager, Reloadable {
             if (Util.isUUID(uAccount)) {
                 cacheUnlimitedShopAccount = new Trader(uAccount, PlayerFinder.findOfflinePlayerByUUID(UUID.fromString(uAccount)));
             } else {
-                cacheUnlimitedShopAccount = PlayerFinder.findPlayerProfileByName(uAccount, true, true).getTrader();
+                PlayerFinder.findPlayerProfileByNameAsync(uAccount).thenAccept(profile -> this.cacheUnlimitedShopAccount = profile == null ? null : profile.getTrader());
             }
         }
         this.priceLimiter = new SimplePriceLimiter(plugin);
@@ -185,14 +184,19 @@ public class SimpleShopManager implements ShopManager, Reloadable {
         if (plugin.isLimit()) {
             int owned = 0;
             if (useOldCanBuildAlgorithm) {
-                owned = getPlayerAllShops(p.getUniqueId()).size();
+                owned = getShopsByOwner(p.getUniqueId()).size();
             } else {
-                for (final Shop shop : getPlayerAllShops(p.getUniqueId())) {
+                for (final Shop shop : getShopsByOwner(p.getUniqueId())) {
                     if (!shop.isUnlimited()) {
                         owned++;
                     }
                 }
             }
+            ShopLoader shopLoader = plugin.getShopLoader();
+            if (shopLoader != null && shopLoader.isLazyLoading()) {
+                // Shops not loaded yet
+                owned += shopLoader.getLazyIndex().countByOwner(p.getUniqueId(), useOldCanBuildAlgorithm);
+            }
             int max = plugin.getShopLimit(p);
             if (owned + 1 > max) {
                 plugin.text().of(p, "reached-maximum-can-create", String.valueOf(owned), String.valueOf(max)).send();
@@ -248,6 +252,9 @@ public class SimpleShopManager implements ShopManager, Reloadable {
         }
         this.actions.clear();
         this.shops.clear();
+        this.shopIndex.clear();
+        this.propertyIndex.clear();
+        this.runtimeIndex.clear();
     }
 
     /**
@@ -264,11 +271,7 @@ public class SimpleShopManager implements ShopManager, Reloadable {
 
     @Override
     public @Nullable Map<Location, Shop> getShops(@NotNull String world, int chunkX, int chunkZ) {
-        final Map<ShopChunk, Map<Location, Shop>> inWorld = this.getShops(world);
-        if (inWorld == null) {
-            return null;
-        }
-        return inWorld.get(new SimpleShopChunk(world, chunkX, chunkZ));
+        return shopIndex.getChunk(world, chunkX, chunkZ);
     }
 
     /**
@@ -407,21 +410,19 @@ public class SimpleShopManager implements ShopManager, Reloadable {
      */
     @Override
     public @Nullable Shop getShop(@NotNull Location loc, boolean skipShopableChecking) {
-        if (!skipShopableChecking && !Util.isShoppables(loc.getBlock().getType())) {
+        final World world = loc.getWorld();
+        if (world == null) {
             return null;
         }
-        final Map<Location, Shop> inChunk = getShops(loc.getChunk());
-        if (inChunk == null) {
+        // Block coordinates also fix the double chest XYZ issue, and nothing allocated for the lookup
+        final Shop shop = shopIndex.get(world.getName(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+        if (shop == null) {
+            return null;
+        }
+        if (!skipShopableChecking && !Util.isShoppables(loc.getBlock().getType())) {
             return null;
         }
-        loc = loc.clone();
-        // Fix double chest XYZ issue
-        loc.setX(loc.getBlockX());
-        loc.setY(loc.getBlockY());
-        loc.setZ(loc.getBlockZ());
-        // We can do this because WorldListener updates the world reference so
-        // the world in loc is the same as world in inChunk.get(loc)
-        return inChunk.get(loc);
+        return shop;
     }
 
     /**
@@ -458,7 +459,16 @@ public class SimpleShopManager implements ShopManager, Reloadable {
 
     @Override
     public void bakeShopRuntimeRandomUniqueIdCache(@NotNull Shop shop) {
-        shopRuntimeUUIDCaching.put(shop.getRuntimeRandomUniqueId(), shop);
+        runtimeIndex.add(shop);
+    }
+
+    /**
+     * Removes the shop from runtime random unique id index, used when shop unloaded.
+     *
+     * @param shop The shop
+     */
+    public void unbakeShopRuntimeRandomUniqueIdCache(@NotNull Shop shop) {
+        runtimeIndex.remove(shop);
     }
 
     @Override
@@ -471,13 +481,8 @@ public class SimpleShopManager implements ShopManager, Reloadable {
     @Nullable
     public Shop getShopFromRuntimeRandomUniqueId(
             @NotNull UUID runtimeRandomUniqueId, boolean includeInvalid) {
-        Shop shop = shopRuntimeUUIDCaching.getIfPresent(runtimeRandomUniqueId);
+        Shop shop = runtimeIndex.get(runtimeRandomUniqueId);
         if (shop == null) {
-            for (Shop shopWithoutCache : this.getLoadedShops()) {
-                if (shopWithoutCache.getRuntimeRandomUniqueId().equals(runtimeRandomUniqueId)) {
-                    return shopWithoutCache;
-                }
-            }
             return null;
         }
         if (includeInvalid) {
@@ -570,6 +575,7 @@ public class SimpleShopManager implements ShopManager, Reloadable {
     @Override
     public void loadShop(@NotNull String world, @NotNull Shop shop) {
         this.addShop(world, shop);
+        runtimeIndex.add(shop);
     }
 
     /**
@@ -581,23 +587,33 @@ public class SimpleShopManager implements ShopManager, Reloadable {
      */
     @Override
     public void addShop(@NotNull String world, @NotNull Shop shop) {
-        Map<ShopChunk, Map<Location, Shop>> inWorld =
-                this.getShops()
-                        .computeIfAbsent(world, k -> new MapMaker().initialCapacity(3).makeMap());
-        // There's no world storage yet. We need to create that map.
-        // Put it in the data universe
+        final Location loc = shop.getLocation();
         // Calculate the chunks coordinates. These are 1,2,3 for each chunk, NOT
         // location rounded to the nearest 16.
-        int x = (int) Math.floor((shop.getLocation().getBlockX()) / 16.0);
-        int z = (int) Math.floor((shop.getLocation().getBlockZ()) / 16.0);
-        // Get the chunk set from the world info
-        ShopChunk shopChunk = new SimpleShopChunk(world, x, z);
-        Map<Location, Shop> inChunk =
-                inWorld.computeIfAbsent(shopChunk, k -> new MapMaker().initialCapacity(1).makeMap());
-        // That chunk data hasn't been created yet - Create it!
-        // Put it in the world
+        int x = loc.getBlockX() >> 4;
+        int z = loc.getBlockZ() >> 4;
+        Map<Location, Shop> inChunk = shopIndex.getChunk(world, x, z);
+        if (inChunk == null) {
+            // There's no world storage yet. We need to create that map.
+            // Put it in the data universe
+            Map<ShopChunk, Map<Location, Shop>> inWorld =
+                    this.getShops()
+                            .computeIfAbsent(world, k -> new MapMaker().initialCapacity(3).makeMap());
+            // That chunk data hasn't been created yet - Create it!
+            // Put it in the world
+            inChunk = inWorld.computeIfAbsent(new SimpleShopChunk(world, x, z), k -> new MapMaker().initialCapacity(1).makeMap());
+            shopIndex.putChunk(world, x, z, inChunk);
+        }
         // Put the shop in its location in the chunk list.
-        Shop duplicatedShop = inChunk.put(shop.getLocation(), shop);
+        Shop duplicatedShop = inChunk.put(loc, shop);
+        shopIndex.put(world, loc.getBlockX(), loc.getBlockY(), loc.getBlockZ(), shop);
+        if (duplicatedShop != null && duplicatedShop != shop) {
+            propertyIndex.remove(duplicatedShop);
+        }
+        propertyIndex.add(world, shop);
+        if (plugin.getShopCache() != null) {
+            plugin.getShopCache().invalidateAround(world, loc.getBlockX(), loc.getBlockZ());
+        }
         if (duplicatedShop != null) {
             if (duplicatedShop.isLoaded()) {
                 duplicatedShop.onUnload();
@@ -618,15 +634,26 @@ public class SimpleShopManager implements ShopManager, Reloadable {
     public void removeShop(@NotNull Shop shop) {
         Location loc = shop.getLocation();
         String world = Objects.requireNonNull(loc.getWorld()).getName();
-        Map<ShopChunk, Map<Location, Shop>> inWorld = this.getShops().get(world);
-        int x = (int) Math.floor((loc.getBlockX()) / 16.0);
-        int z = (int) Math.floor((loc.getBlockZ()) / 16.0);
-        ShopChunk shopChunk = new SimpleShopChunk(world, x, z);
-        Map<Location, Shop> inChunk = inWorld.get(shopChunk);
+        Map<Location, Shop> inChunk = shopIndex.getChunk(world, loc.getBlockX() >> 4, loc.getBlockZ() >> 4);
         if (inChunk == null) {
             return;
         }
         inChunk.remove(loc);
+        shopIndex.remove(world, loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+        propertyIndex.remove(shop);
+        runtimeIndex.remove(shop);
+        if (plugin.getShopCache() != null) {
+            plugin.getShopCache().invalidateAround(world, loc.getBlockX(), loc.getBlockZ());
+        }
+    }
+
+    /**
+     * Updates the owner, item type and currency indexes after the shop changed them.
+     *
+     * @param shop The shop that changed
+     */
+    public void reindexShop(@NotNull Shop shop) {
+        propertyIndex.update(shop);
     }
 
     /**
@@ -657,13 +684,7 @@ public class SimpleShopManager implements ShopManager, Reloadable {
      */
     @Override
     public @NotNull List<Shop> getPlayerAllShops(@NotNull UUID playerUUID) {
-        final List<Shop> playerShops = new ArrayList<>(10);
-        for (final Shop shop : getAllShops()) {
-            if (shop.getOwner().equals(playerUUID)) {
-                playerShops.add(shop);
-            }
-        }
-        return playerShops;
+        return new ArrayList<>(getShopsByOwner(playerUUID));
     }
 
     /**
@@ -693,7 +714,7 @@ public class SimpleShopManager implements ShopManager, Reloadable {
     @Override
     public @NotNull List<Shop> getShopsInWorld(@NotNull World world) {
         final List<Shop> worldShops = new ArrayList<>();
-        for (final Shop shop : getAllShops()) {
+        for (final Shop shop : getShopsByWorld(world.getName())) {
             Location location = shop.getLocation();
             if (location.isWorldLoaded() && Objects.equals(location.getWorld(), world)) {
                 worldShops.add(shop);
@@ -702,6 +723,26 @@ public class SimpleShopManager implements ShopManager, Reloadable {
         return worldShops;
     }
 
+    @Override
+    public @NotNull Collection<Shop> getShopsByOwner(@NotNull UUID owner) {
+        return propertyIndex.getByOwner(owner);
+    }
+
+    @Override
+    public @NotNull Collection<Shop> getShopsByWorld(@NotNull String world) {
+        return propertyIndex.getByWorld(world);
+    }
+
+    @Override
+    public @NotNull Collection<Shop> getShopsByItemType(@NotNull Material material) {
+        return propertyIndex.getByItemType(material);
+    }
+
+    @Override
+    public @NotNull Collection<Shop> getShopsByCurrency(@Nullable String currency) {
+        return propertyIndex.getByCurrency(currency);
+    }
+
     public void actionBuy(
             @NotNull UUID buyer,
             @NotNull Inventory buyerInventory,
@@ -713,6 +754,10 @@ public class SimpleShopManager implements ShopManager, Reloadable {
         if (shopIsNotValid(buyer, info, shop)) {
             return;
         }
+        if (shop instanceof ContainerShop) {
+            // Always count the container before trading, other plugins may changed it behind us
+            ((ContainerShop) shop).invalidateStockTracker();
+        }
         int space = shop.getRemainingSpace();
         if (space == -1) {
             space = 10000;
@@ -1077,6 +1122,10 @@ public class SimpleShopManager implements ShopManager, Reloadable {
         if (shopIsNotValid(seller, info, shop)) {
             return;
         }
+        if (shop instanceof ContainerShop) {
+            // Always count the container before trading, other plugins may changed it behind us
+            ((ContainerShop) shop).invalidateStockTracker();
+        }
         int stock = shop.getRemainingStock();
         if (stock == -1) {
             stock = 10000;
@@ -1538,6 +1587,10 @@ public class SimpleShopManager implements ShopManager, Reloadable {
                         shop = this.findShopIncludeAttached(attached.getLocation(), true);
                     }
                 } else {
+                    // A container without shops next to it never be a second half of shop, skip the block state
+                    if (!hasShopNextTo(loc)) {
+                        return null;
+                    }
                     // optimize for performance
                     BlockState state = PaperLib.getBlockState(currentBlock, false).getState();
                     if (!(state instanceof Container)) {
@@ -1550,20 +1603,49 @@ public class SimpleShopManager implements ShopManager, Reloadable {
                 }
             }
         }
-        // add cache if using
-        if (plugin.getShopCache() != null) {
-            plugin.getShopCache().setCache(loc, shop);
-        }
         return shop;
     }
 
+    /**
+     * Checks whether the block may be a shop or the second half of a shop, without looking up the shop
+     *
+     * @param world The world name
+     * @param x     The block x
+     * @param y     The block y
+     * @param z     The block z
+     * @return false if the block never be a part of shop
+     */
+    public boolean isShopOrAttached(@NotNull String world, int x, int y, int z) {
+        return shopIndex.isShopOrAttached(world, x, y, z);
+    }
+
+    private boolean hasShopNextTo(@NotNull Location loc) {
+        World world = loc.getWorld();
+        if (world == null) {
+            return false;
+        }
+        String worldName = world.getName();
+        int x = loc.getBlockX();
+        int y = loc.getBlockY();
+        int z = loc.getBlockZ();
+        return shopIndex.get(worldName, x + 1, y, z) != null
+                || shopIndex.get(worldName, x - 1, y, z) != null
+                || shopIndex.get(worldName, x, y, z + 1) != null
+                || shopIndex.get(worldName, x, y, z - 1) != null;
+    }
+
     /**
      * Change the owner to unlimited shop owner.
      * It defined in configuration.
      */
     @Override
     public void migrateOwnerToUnlimitedShopOwner(Shop shop) {
-        shop.setOwner(this.cacheUnlimitedShopAccount.getUniqueId());
+        Trader account = this.cacheUnlimitedShopAccount;
+        if (account == null) {
+            plugin.getLogger().warning("The unlimited shop owner account is not resolved yet, skipping owner change of shop " + shop);
+            return;
+        }
+        shop.setOwner(account.getUniqueId());
         shop.setSignText();
     }
 
@@ -27,6 +27,7 @@ import com.comphenix.protocol.events.PacketContainer;
 import com.comphenix.protocol.events.PacketEvent;
 import com.comphenix.protocol.reflect.StructureModifier;
 import com.comphenix.protocol.utility.MinecraftVersion;
+import com.comphenix.protocol.wrappers.ChunkCoordIntPair;
 import com.comphenix.protocol.wrappers.WrappedChatComponent;
 import com.comphenix.protocol.wrappers.WrappedDataValue;
 import com.comphenix.protocol.wrappers.WrappedDataWatcher;
@@ -38,6 +39,7 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.maxgamer.quickshop.QuickShop;
@@ -47,9 +49,9 @@ import org.maxgamer.quickshop.api.shop.DisplayType;
 import org.maxgamer.quickshop.api.shop.Shop;
 import org.maxgamer.quickshop.util.GameVersion;
 import org.maxgamer.quickshop.util.Util;
+import org.maxgamer.quickshop.util.location.PackedPosition;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -62,6 +64,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 public class VirtualDisplayItem extends AbstractDisplayItem {
@@ -78,11 +81,10 @@ public class VirtualDisplayItem extends AbstractDisplayItem {
     private volatile boolean isDisplay;
     //If packet initialized
     private volatile boolean initialized = false;
-    //packets
+    //packets, built once and sent to every viewer
     private PacketContainer fakeItemSpawnPacket;
     private PacketContainer fakeItemMetaPacket;
     private PacketContainer fakeItemVelocityPacket;
-    private PacketContainer fakeItemDestroyPacket;
 
     public VirtualDisplayItem(@NotNull Shop shop) throws RuntimeException {
         super(shop);
@@ -97,22 +99,12 @@ public class VirtualDisplayItem extends AbstractDisplayItem {
         Chunk chunk = shop.getLocation().getChunk();
         chunkLocation = new SimpleShopChunk(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
         VirtualDisplayItemManager.put(chunkLocation, this);
-        if (Util.isLoaded(shop.getLocation())) {
-            //Let nearby player can saw fake item
-            Collection<Entity> entityCollection = shop.getLocation().getWorld().getNearbyEntities(shop.getLocation(), PLUGIN.getServer().getViewDistance() * 16, shop.getLocation().getWorld().getMaxHeight(), PLUGIN.getServer().getViewDistance() * 16);
-            for (Entity entity : entityCollection) {
-                if (entity instanceof Player) {
-                    packetSenders.add(entity.getUniqueId());
-                }
-            }
-        }
     }
 
     private void initFakeDropItemPacket() {
         fakeItemSpawnPacket = PacketFactory.createFakeItemSpawnPacket(entityID, getDisplayLocation());
         fakeItemMetaPacket = PacketFactory.createFakeItemMetaPacket(entityID, getOriginalItemStack().clone());
         fakeItemVelocityPacket = PacketFactory.createFakeItemVelocityPacket(entityID);
-        fakeItemDestroyPacket = PacketFactory.createFakeItemDestroyPacket(entityID);
         initialized = true;
     }
 
@@ -144,27 +136,18 @@ public class VirtualDisplayItem extends AbstractDisplayItem {
     @Override
     public void remove() {
         if (isDisplay) {
-            sendPacketToAll(fakeItemDestroyPacket);
+            for (UUID viewer : packetSenders) {
+                VirtualDisplayItemManager.queueDestroy(viewer, entityID);
+            }
             unload();
             isDisplay = false;
         }
     }
 
-    private void sendPacketToAll(@NotNull PacketContainer packet) {
-        Iterator<UUID> iterator = packetSenders.iterator();
-        while (iterator.hasNext()) {
-            Player nextPlayer = PLUGIN.getServer().getPlayer(iterator.next());
-            if (nextPlayer == null) {
-                iterator.remove();
-            } else {
-                sendPacket(nextPlayer, packet);
-            }
-        }
-    }
-
-    private void sendPacket(@NotNull Player player, @NotNull PacketContainer packet) {
+    private static void sendPacket(@NotNull Player player, @NotNull PacketContainer packet) {
         try {
             PROTOCOL_MANAGER.sendServerPacket(player, packet);
+            VirtualDisplayItemManager.PACKETS_SENT.incrementAndGet();
         } catch (Exception e) {
             throw new RuntimeException("An error occurred when sending a packet", e);
         }
@@ -182,10 +165,18 @@ public class VirtualDisplayItem extends AbstractDisplayItem {
         spawn();
     }
 
+    /**
+     * Sends the fake item to the players that the shop chunk was sent to
+     */
     public void sendFakeItemToAll() {
-        sendPacketToAll(fakeItemSpawnPacket);
-        sendPacketToAll(fakeItemMetaPacket);
-        sendPacketToAll(fakeItemVelocityPacket);
+        if (!Util.isLoaded(shop.getLocation())) {
+            return;
+        }
+        for (Player player : shop.getLocation().getWorld().getPlayers()) {
+            if (VirtualDisplayItemManager.isChunkSent(player, chunkLocation) && packetSenders.add(player.getUniqueId())) {
+                sendFakeItem(player);
+            }
+        }
     }
 
     @Override
@@ -231,6 +222,8 @@ public class VirtualDisplayItem extends AbstractDisplayItem {
     }
 
     public void sendFakeItem(@NotNull Player player) {
+        // Same entity id spawned again, the queued destroy would remove it
+        VirtualDisplayItemManager.cancelDestroy(player.getUniqueId(), entityID);
         sendPacket(player, fakeItemSpawnPacket);
         sendPacket(player, fakeItemMetaPacket);
         sendPacket(player, fakeItemVelocityPacket);
@@ -253,9 +246,121 @@ public class VirtualDisplayItem extends AbstractDisplayItem {
         return isDisplay;
     }
 
+    /**
+     * Tracks the displays in each chunk and which displays each player can see.
+     * <p>
+     * A player can see the displays in the chunks sent to it, so the spawn packets are only sent when
+     * the shop chunk sent (or display spawned in a sent chunk), and no packets needed when the chunk
+     * unloaded on client since the client removes the entities in it. The destroys are queued and sent
+     * in one packet per player next tick.
+     */
     public static class VirtualDisplayItemManager {
         private static final AtomicBoolean LOADED = new AtomicBoolean(false);
         private static final Map<SimpleShopChunk, List<VirtualDisplayItem>> CHUNKS_MAPPING = new ConcurrentHashMap<>();
+        private static final Map<UUID, PlayerView> PLAYER_VIEWS = new ConcurrentHashMap<>();
+        private static final Map<UUID, Set<Integer>> PENDING_DESTROYS = new ConcurrentHashMap<>();
+        private static final AtomicBoolean FLUSH_SCHEDULED = new AtomicBoolean(false);
+        private static final AtomicLong PACKETS_SENT = new AtomicLong();
+        private static BukkitTask reconcileTask;
+        private static long lastPacketsSent;
+        private static long lastReconcileTime;
+        private static volatile double packetsPerSecond;
+
+        public static long getPacketsSent() {
+            return PACKETS_SENT.get();
+        }
+
+        public static double getPacketsPerSecond() {
+            return packetsPerSecond;
+        }
+
+        /**
+         * Checks the chunk was sent to the player and not unloaded yet
+         *
+         * @param player The player
+         * @param chunk  The chunk
+         * @return Is the chunk sent
+         */
+        public static boolean isChunkSent(@NotNull Player player, @NotNull SimpleShopChunk chunk) {
+            PlayerView view = PLAYER_VIEWS.get(player.getUniqueId());
+            if (view == null) {
+                //No chunk sent since the listener registered, e.g. plugin reloaded, use the view distance instead
+                Location location = player.getLocation();
+                int viewDistance = PLUGIN.getServer().getViewDistance();
+                return player.getWorld().getName().equals(chunk.getWorld())
+                        && Math.abs((location.getBlockX() >> 4) - chunk.getX()) <= viewDistance
+                        && Math.abs((location.getBlockZ() >> 4) - chunk.getZ()) <= viewDistance;
+            }
+            return view.world.equals(chunk.getWorld()) && view.chunks.contains(PackedPosition.chunk(chunk.getX(), chunk.getZ()));
+        }
+
+        private static void queueDestroy(@NotNull UUID player, int entityID) {
+            if (!PLUGIN.isEnabled()) {
+                // Can't schedule when disabling, send it now
+                Player target = PLUGIN.getServer().getPlayer(player);
+                if (target != null) {
+                    for (PacketContainer packet : PacketFactory.createFakeItemDestroyPackets(Collections.singletonList(entityID))) {
+                        sendPacket(target, packet);
+                    }
+                }
+                return;
+            }
+            PENDING_DESTROYS.computeIfAbsent(player, k -> ConcurrentHashMap.newKeySet()).add(entityID);
+            if (FLUSH_SCHEDULED.compareAndSet(false, true)) {
+                PLUGIN.getServer().getScheduler().runTask(PLUGIN, VirtualDisplayItemManager::flushDestroys);
+            }
+        }
+
+        private static void cancelDestroy(@NotNull UUID player, int entityID) {
+            Set<Integer> pending = PENDING_DESTROYS.get(player);
+            if (pending != null) {
+                pending.remove(entityID);
+            }
+        }
+
+        /**
+         * Sends the queued destroys, all the entities destroyed for a player are sent in one packet
+         */
+        public static void flushDestroys() {
+            FLUSH_SCHEDULED.set(false);
+            Iterator<Map.Entry<UUID, Set<Integer>>> iterator = PENDING_DESTROYS.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<UUID, Set<Integer>> entry = iterator.next();
+                iterator.remove();
+                List<Integer> entityIDs = new ArrayList<>(entry.getValue());
+                Player player = PLUGIN.getServer().getPlayer(entry.getKey());
+                if (player == null || entityIDs.isEmpty()) {
+                    continue;
+                }
+                for (PacketContainer packet : PacketFactory.createFakeItemDestroyPackets(entityIDs)) {
+                    sendPacket(player, packet);
+                }
+            }
+        }
+
+        /**
+         * Removes the viewers left the world or server, those missed by the packet listener, and updates the packet rate
+         */
+        private static void reconcile() {
+            PLAYER_VIEWS.keySet().removeIf(uuid -> PLUGIN.getServer().getPlayer(uuid) == null);
+            for (List<VirtualDisplayItem> displays : CHUNKS_MAPPING.values()) {
+                for (VirtualDisplayItem display : displays) {
+                    display.packetSenders.removeIf(uuid -> {
+                        Player player = PLUGIN.getServer().getPlayer(uuid);
+                        // The client removes the entities when changing world
+                        return player == null || !player.getWorld().getName().equals(display.chunkLocation.getWorld())
+                                || !isChunkSent(player, display.chunkLocation);
+                    });
+                }
+            }
+            long now = System.currentTimeMillis();
+            long sent = PACKETS_SENT.get();
+            if (lastReconcileTime != 0 && now > lastReconcileTime) {
+                packetsPerSecond = (sent - lastPacketsSent) * 1000.0 / (now - lastReconcileTime);
+            }
+            lastPacketsSent = sent;
+            lastReconcileTime = now;
+        }
 
         public static void put(@NotNull SimpleShopChunk key, @NotNull VirtualDisplayItem value) {
             //Thread-safe was ensured by ONLY USE Map method to do something
@@ -282,6 +387,7 @@ public class VirtualDisplayItem extends AbstractDisplayItem {
                 packetAdapter = new ChunkPacketAdapter();
                 Util.debugLog("Registering the packet listener...");
                 PROTOCOL_MANAGER.addPacketListener(packetAdapter);
+                reconcileTask = PLUGIN.getServer().getScheduler().runTaskTimer(PLUGIN, VirtualDisplayItemManager::reconcile, 20, 20);
                 LOADED.set(true);
             }
         }
@@ -291,7 +397,7 @@ public class VirtualDisplayItem extends AbstractDisplayItem {
             private final Class<?> temporaryPlayerClass;
 
             public ChunkPacketAdapter() {
-                super(PLUGIN, ListenerPriority.HIGH, PacketType.Play.Server.MAP_CHUNK);
+                super(PLUGIN, ListenerPriority.HIGH, PacketType.Play.Server.MAP_CHUNK, PacketType.Play.Server.UNLOAD_CHUNK, PacketType.Play.Server.RESPAWN);
                 Class<?> localTemporaryPlayerClass;
                 try {
                     localTemporaryPlayerClass = Class.forName("com.comphenix.protocol.injector.temporary.TemporaryPlayer");
@@ -308,6 +414,14 @@ public class VirtualDisplayItem extends AbstractDisplayItem {
 
             @Override
             public void onPacketSending(@NotNull PacketEvent event) {
+                if (event.getPacketType() == PacketType.Play.Server.UNLOAD_CHUNK) {
+                    onChunkUnloadSending(event);
+                    return;
+                }
+                if (event.getPacketType() == PacketType.Play.Server.RESPAWN) {
+                    onRespawnSending(event);
+                    return;
+                }
                 //is really full chunk data
                 //In 1.17, this value was removed, so read safely
                 Boolean boxedIsFull = event.getPacket().getBooleans().readSafely(0);
@@ -328,13 +442,75 @@ public class VirtualDisplayItem extends AbstractDisplayItem {
                 //chunk z
                 int z = integerStructureModifier.read(1);
 
-                CHUNKS_MAPPING.computeIfPresent(new SimpleShopChunk(player.getWorld().getName(), x, z), (chunkLocation, targetList) -> {
+                String world = player.getWorld().getName();
+                PlayerView view = PLAYER_VIEWS.computeIfAbsent(player.getUniqueId(), k -> new PlayerView(world));
+                view.add(world, x, z);
+                CHUNKS_MAPPING.computeIfPresent(new SimpleShopChunk(world, x, z), (chunkLocation, targetList) -> {
                     for (VirtualDisplayItem target : targetList) {
                         if (!target.shop.isLoaded() || !target.isDisplay || target.shop.isLeftShop()) {
                             continue;
                         }
-                        target.packetSenders.add(player.getUniqueId());
-                        target.sendFakeItem(player);
+                        // Still there if the chunk is sent again without unloading
+                        if (target.packetSenders.add(player.getUniqueId())) {
+                            target.sendFakeItem(player);
+                        }
+                    }
+                    return targetList;
+                });
+            }
+
+            /**
+             * The client drops all chunks and entities on respawn and dimension change without any UNLOAD_CHUNK,
+             * so forget everything sent to the player, the displays are sent again with the chunks followed.
+             */
+            private void onRespawnSending(@NotNull PacketEvent event) {
+                Player player = event.getPlayer();
+                if (player == null || temporaryPlayerClass.isInstance(player)) {
+                    return;
+                }
+                UUID uuid = player.getUniqueId();
+                PlayerView view = PLAYER_VIEWS.get(uuid);
+                if (view != null) {
+                    view.chunks.clear();
+                }
+                // Runs on netty thread, modify the lists in map lock like put and remove do
+                CHUNKS_MAPPING.replaceAll((chunkLocation, displays) -> {
+                    for (VirtualDisplayItem display : displays) {
+                        display.packetSenders.remove(uuid);
+                    }
+                    return displays;
+                });
+            }
+
+            private void onChunkUnloadSending(@NotNull PacketEvent event) {
+                Player player = event.getPlayer();
+                if (player == null || temporaryPlayerClass.isInstance(player)) {
+                    return;
+                }
+                int x;
+                int z;
+                Integer boxedX = event.getPacket().getIntegers().readSafely(0);
+                Integer boxedZ = event.getPacket().getIntegers().readSafely(1);
+                if (boxedX != null && boxedZ != null) {
+                    x = boxedX;
+                    z = boxedZ;
+                } else {
+                    //In 1.20.2, the coordinates are wrapped into ChunkPos
+                    ChunkCoordIntPair chunkPos = event.getPacket().getChunkCoordIntPairs().readSafely(0);
+                    if (chunkPos == null) {
+                        return;
+                    }
+                    x = chunkPos.getChunkX();
+                    z = chunkPos.getChunkZ();
+                }
+                PlayerView view = PLAYER_VIEWS.get(player.getUniqueId());
+                if (view != null) {
+                    view.chunks.remove(PackedPosition.chunk(x, z));
+                }
+                //The client removes the entities in unloaded chunk itself
+                CHUNKS_MAPPING.computeIfPresent(new SimpleShopChunk(player.getWorld().getName(), x, z), (chunkLocation, targetList) -> {
+                    for (VirtualDisplayItem target : targetList) {
+                        target.packetSenders.remove(player.getUniqueId());
                     }
                     return targetList;
                 });
@@ -344,12 +520,39 @@ public class VirtualDisplayItem extends AbstractDisplayItem {
 
         public static void unload() {
             Util.debugLog("Unloading VirtualDisplayItem chunks mapping manager...");
+            flushDestroys();
             if (LOADED.get()) {
                 Util.debugLog("Unregistering the packet listener...");
                 PROTOCOL_MANAGER.removePacketListener(packetAdapter);
+                if (reconcileTask != null) {
+                    reconcileTask.cancel();
+                    reconcileTask = null;
+                }
+                PLAYER_VIEWS.clear();
                 LOADED.set(false);
             }
         }
+
+        /**
+         * The chunks sent to a player
+         */
+        private static class PlayerView {
+            private final Set<Long> chunks = ConcurrentHashMap.newKeySet();
+            private volatile String world;
+
+            private PlayerView(@NotNull String world) {
+                this.world = world;
+            }
+
+            private void add(@NotNull String world, int x, int z) {
+                if (!this.world.equals(world)) {
+                    //The client drops all chunks when changing world
+                    chunks.clear();
+                    this.world = world;
+                }
+                chunks.add(PackedPosition.chunk(x, z));
+            }
+        }
     }
 
     public static class PacketFactory {
@@ -358,7 +561,7 @@ public class VirtualDisplayItem extends AbstractDisplayItem {
                 createFakeItemSpawnPacket(0, new Location(PLUGIN.getServer().getWorlds().get(0), 0, 0, 0));
                 createFakeItemMetaPacket(0, new ItemStack(Material.values()[0]));
                 createFakeItemVelocityPacket(0);
-                createFakeItemDestroyPacket(0);
+                createFakeItemDestroyPackets(Collections.singletonList(0));
                 return null;
             } catch (Throwable throwable) {
                 return throwable;
@@ -506,31 +709,41 @@ public class VirtualDisplayItem extends AbstractDisplayItem {
             return fakeItemVelocityPacket;
         }
 
-        private static PacketContainer createFakeItemDestroyPacket(int entityID) {
+        private static List<PacketContainer> createFakeItemDestroyPackets(List<Integer> entityIDs) {
             //Also make a DestroyPacket to remove it
-            PacketContainer fakeItemDestroyPacket = PROTOCOL_MANAGER.createPacket(PacketType.Play.Server.ENTITY_DESTROY);
             if (VERSION.ordinal() < GameVersion.v1_17_R1.ordinal()) {
                 //On 1.17-, we need to write an integer array
+                //Entities to remove
+                PacketContainer fakeItemDestroyPacket = PROTOCOL_MANAGER.createPacket(PacketType.Play.Server.ENTITY_DESTROY);
+                int[] entityIDArray = new int[entityIDs.size()];
+                for (int i = 0; i < entityIDArray.length; i++) {
+                    entityIDArray[i] = entityIDs.get(i);
+                }
+                fakeItemDestroyPacket.getIntegerArrays().write(0, entityIDArray);
+                return Collections.singletonList(fakeItemDestroyPacket);
+            }
+            //1.17+
+            MinecraftVersion minecraftVersion = PROTOCOL_MANAGER.getMinecraftVersion();
+            if (minecraftVersion.getMajor() == 1 && minecraftVersion.getMinor() == 17 && minecraftVersion.getBuild() == 0) {
+                //On 1.17, just need to write a int, so one packet per entity
                 //Entity to remove
-                fakeItemDestroyPacket.getIntegerArrays().write(0, new int[]{entityID});
-            } else {
-                //1.17+
-                MinecraftVersion minecraftVersion = PROTOCOL_MANAGER.getMinecraftVersion();
-                if (minecraftVersion.getMajor() == 1 && minecraftVersion.getMinor() == 17 && minecraftVersion.getBuild() == 0) {
-                    //On 1.17, just need to write a int
-                    //Entity to remove
+                List<PacketContainer> packets = new ArrayList<>(entityIDs.size());
+                for (int entityID : entityIDs) {
+                    PacketContainer fakeItemDestroyPacket = PROTOCOL_MANAGER.createPacket(PacketType.Play.Server.ENTITY_DESTROY);
                     fakeItemDestroyPacket.getIntegers().write(0, entityID);
-                } else {
-                    //On 1.17.1 (maybe 1.17.1+? it's enough, Mojang, stop the changes), we need add the int list
-                    //Entity to remove
-                    try {
-                        fakeItemDestroyPacket.getIntLists().write(0, Collections.singletonList(entityID));
-                    } catch (NoSuchMethodError e) {
-                        throw new RuntimeException("Unable to initialize packet, ProtocolLib update needed", e);
-                    }
+                    packets.add(fakeItemDestroyPacket);
                 }
+                return packets;
+            }
+            //On 1.17.1 (maybe 1.17.1+? it's enough, Mojang, stop the changes), we need add the int list
+            //Entities to remove
+            PacketContainer fakeItemDestroyPacket = PROTOCOL_MANAGER.createPacket(PacketType.Play.Server.ENTITY_DESTROY);
+            try {
+                fakeItemDestroyPacket.getIntLists().write(0, new ArrayList<>(entityIDs));
+            } catch (NoSuchMethodError e) {
+                throw new RuntimeException("Unable to initialize packet, ProtocolLib update needed", e);
             }
-            return fakeItemDestroyPacket;
+            return Collections.singletonList(fakeItemDestroyPacket);
         }
     }
 }
@@ -0,0 +1,107 @@
+/*
+ * This file is a part of project QuickShop, the name is LatencyHistogram.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed microsecond buckets, cheap enough to record every call.
+ */
+public class LatencyHistogram {
+    /**
+     * The upper bounds of buckets in microseconds, the last bucket holds everything slower
+     */
+    private static final long[] BOUNDS = {100, 500, 1_000, 2_000, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 1_000_000};
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a call
+     *
+     * @param nanos The time the call took in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        int index = 0;
+        while (index < BOUNDS.length && micros > BOUNDS[index]) {
+            index++;
+        }
+        buckets.incrementAndGet(index);
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the average time of calls
+     *
+     * @return The average in milliseconds
+     */
+    public double getAverageMillis() {
+        long calls = count.sum();
+        return calls == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / calls;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Gets the upper bound of the bucket the given percentile falls in
+     *
+     * @param percentile The percentile, 0 to 100
+     * @return The bound in milliseconds, or the max time if it falls in the last bucket
+     */
+    public double getPercentileMillis(double percentile) {
+        long calls = count.sum();
+        if (calls == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(calls * Math.min(100, Math.max(0, percentile)) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            seen += buckets.get(i);
+            if (seen >= Math.max(1, target)) {
+                return BOUNDS[i] / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return String.format("calls: %d, avg: %.2fms, p50: %.2fms, p99: %.2fms, max: %.2fms",
+                getCount(), getAverageMillis(), getPercentileMillis(50), getPercentileMillis(99), getMaxMillis());
+    }
+}
@@ -47,6 +47,7 @@ import org.maxgamer.quickshop.chat.QuickComponentImpl;
 import org.maxgamer.quickshop.chat.platform.minedown.BungeeQuickChat;
 import org.maxgamer.quickshop.localization.game.game.GameLanguage;
 import org.maxgamer.quickshop.localization.game.game.MojangGameLanguageImpl;
+import org.maxgamer.quickshop.shop.OfflineMessageDigest;
 import org.maxgamer.quickshop.shop.ShopTransactionMessageContainer;
 import org.maxgamer.quickshop.util.logging.container.PluginGlobalAlertLog;
 
@@ -58,19 +59,23 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.DecimalFormat;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 
 public class MsgUtil {
-    private static final Map<UUID, List<ShopTransactionMessageContainer>> OUTGOING_MESSAGES = Maps.newConcurrentMap();
+    /**
+     * The amount of offline transaction messages waiting in database, the messages are loaded when delivering
+     */
+    private static final Map<UUID, AtomicInteger> UNREAD_COUNTS = Maps.newConcurrentMap();
     public static GameLanguage gameLanguage;
     private static DecimalFormat decimalFormat;
     private static QuickShop plugin = QuickShop.getInstance();
@@ -92,39 +97,129 @@ public class MsgUtil {
         plugin.getDatabaseHelper().cleanMessage(System.currentTimeMillis() - 604800000);
     }
 
+    /**
+     * Gets the amount of offline transaction messages waiting for player
+     *
+     * @param player The player
+     * @return The amount
+     */
+    public static int getUnreadCount(@NotNull UUID player) {
+        AtomicInteger counter = UNREAD_COUNTS.get(player);
+        return counter == null ? 0 : counter.get();
+    }
+
     /**
      * Empties the queue of messages a player has and sends them to the player.
+     * <p>
+     * The messages are loaded from database asynchronously, identical messages are merged,
+     * and the messages over the page size are delivered as a summary.
      *
      * @param p The player to message
-     * @return True if success, False if the player is offline or null
+     * @return True if any messages are going to be sent, False if the player is offline or null or no messages
      */
     public static boolean flush(@NotNull OfflinePlayer p) {
         Player player = p.getPlayer();
-        if (player != null) {
-            UUID pName = player.getUniqueId();
-            List<ShopTransactionMessageContainer> msgs = OUTGOING_MESSAGES.get(pName);
-            if (msgs != null) {
-                for (ShopTransactionMessageContainer msg : msgs) {
-                    Util.debugLog("Accepted the msg for player " + player.getName() + " : " + msg);
-                    if (msg.getHoverItemStr() != null) {
-                        try {
-                            ItemStack data = Util.deserialize(msg.getHoverItemStr());
-                            if (data == null) {
-                                MsgUtil.sendDirectMessage(player, msg.getMessage(player.getLocale()));
-                            } else {
-                                plugin.getQuickChat().sendItemHologramChat(player, msg.getMessage(player.getLocale()), data);
-                            }
-                        } catch (InvalidConfigurationException e) {
-                            MsgUtil.sendDirectMessage(p.getPlayer(), msg.getMessage(player.getLocale()));
-                        }
-                        }
+        if (player == null) {
+            return false;
+        }
+        UUID uuid = player.getUniqueId();
+        AtomicInteger counter = UNREAD_COUNTS.remove(uuid);
+        if (counter == null || counter.get() <= 0) {
+            return false;
+        }
+        int total = counter.get();
+        int pageSize = Math.max(1, plugin.getConfig().getInt("shop.offline-messages-page-size", 10));
+        long before = System.currentTimeMillis();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            OfflineMessageDigest digest = new OfflineMessageDigest(pageSize);
+            boolean hasMore;
+            try {
+                // The messages saved recently may still wait in queue
+                plugin.getDatabaseManager().flushQueue();
+                hasMore = loadUnreadMessages(uuid, before, digest);
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not load transaction messages of " + uuid + " from database.", e);
+                UNREAD_COUNTS.computeIfAbsent(uuid, k -> new AtomicInteger()).addAndGet(total);
+                return;
+            }
+            if (digest.getScanned() == 0) {
+                // Not written to database yet, keep them for next time
+                UNREAD_COUNTS.computeIfAbsent(uuid, k -> new AtomicInteger()).addAndGet(total);
+                return;
+            }
+            List<Entry<ShopTransactionMessageContainer, Integer>> messages = new ArrayList<>();
+            for (OfflineMessageDigest.Entry entry : digest.getEntries()) {
+                messages.add(new AbstractMap.SimpleEntry<>(ShopTransactionMessageContainer.fromJson(entry.getJson()), entry.getRepeats()));
+            }
+            // The counter may be stale after cleanup, trust it only when there are rows left
+            int remaining = hasMore ? digest.getRemaining(total) : 0;
+            long newestTime = digest.getNewestTime();
+            Util.mainThreadRun(() -> deliver(uuid, newestTime, total, messages, remaining));
+        });
+        return true;
+    }
+
+    /**
+     * Reads the unread messages page by page until the digest is full
+     *
+     * @return True if there may be more messages not read
+     */
+    private static boolean loadUnreadMessages(@NotNull UUID player, long before, @NotNull OfflineMessageDigest digest) throws SQLException {
+        int pageSize = 100;
+        // Don't walk the whole backlog when it is all duplicates
+        int maxScan = pageSize * 10;
+        for (int offset = 0; offset < maxScan; offset += pageSize) {
+            int rows = 0;
+            try (WarpedResultSet warpRS = plugin.getDatabaseHelper().selectMessages(player, before, offset, pageSize); ResultSet rs = warpRS.getResultSet()) {
+                while (rs.next()) {
+                    rows++;
+                    if (!digest.add(rs.getString("message"), rs.getLong("time"))) {
+                        return true;
+                    }
                 }
-                plugin.getDatabaseHelper().cleanMessageForPlayer(pName);
-                msgs.clear();
-                return true;
+            }
+            if (rows < pageSize) {
+                return false;
             }
         }
-        return false;
+        return true;
+    }
+
+    /**
+     * @param newestTime The time of newest message read, only the messages not newer than it are removed
+     */
+    private static void deliver(@NotNull UUID uuid, long newestTime, int total, @NotNull List<Entry<ShopTransactionMessageContainer, Integer>> messages, int remaining) {
+        Player player = Bukkit.getPlayer(uuid);
+        if (player == null) {
+            // Left before loaded, keep them for next time
+            UNREAD_COUNTS.computeIfAbsent(uuid, k -> new AtomicInteger()).addAndGet(total);
+            return;
+        }
+        String locale = player.getLocale();
+        for (Entry<ShopTransactionMessageContainer, Integer> entry : messages) {
+            ShopTransactionMessageContainer msg = entry.getKey();
+            Util.debugLog("Accepted the msg for player " + player.getName() + " : " + msg);
+            String text = msg.getMessage(locale);
+            if (entry.getValue() > 1) {
+                text += plugin.text().of(player, "offline-message-repeated", String.valueOf(entry.getValue())).forLocale();
+            }
+            ItemStack data = null;
+            if (msg.getHoverItemStr() != null) {
+                try {
+                    data = Util.deserialize(msg.getHoverItemStr());
+                } catch (InvalidConfigurationException ignored) {
+                }
+            }
+            if (data == null) {
+                MsgUtil.sendDirectMessage(player, text);
+            } else {
+                plugin.getQuickChat().sendItemHologramChat(player, text, data);
+            }
+        }
+        if (remaining > 0) {
+            plugin.text().of(player, "offline-messages-summary", String.valueOf(remaining)).send();
+        }
+        plugin.getDatabaseHelper().cleanMessageForPlayer(uuid, newestTime);
     }
 
     /**
@@ -354,22 +449,30 @@ public class MsgUtil {
     }
 
     /**
-     * loads all player purchase messages from the database.
+     * Counts the player purchase messages saved in the database, the messages are loaded when delivering.
      */
     public static void loadTransactionMessages() {
-        OUTGOING_MESSAGES.clear(); // Delete old messages
-        try (WarpedResultSet warpRS = plugin.getDatabaseHelper().selectAllMessages(); ResultSet rs = warpRS.getResultSet()) {
+        UNREAD_COUNTS.clear(); // Delete old counters
+        try (WarpedResultSet warpRS = plugin.getDatabaseHelper().selectMessageCounts(); ResultSet rs = warpRS.getResultSet()) {
             while (rs.next()) {
                 String owner = rs.getString("owner");
+                int amount = rs.getInt("amount");
                 UUID ownerUUID;
                 if (Util.isUUID(owner)) {
                     ownerUUID = UUID.fromString(owner);
                 } else {
-                    ownerUUID = PlayerFinder.findUUIDByName(owner, true, true);
+                    // Legacy name based messages, moved to uuid once resolved in background
+                    PlayerFinder.findPlayerProfileByNameAsync(owner).thenAccept(profile -> {
+                        if (profile == null) {
+                            Util.debugLog("Skipping " + amount + " messages of unknown player " + owner);
+                            return;
+                        }
+                        plugin.getDatabaseHelper().updateMessageOwner(owner, profile.getUuid());
+                        UNREAD_COUNTS.computeIfAbsent(profile.getUuid(), k -> new AtomicInteger()).addAndGet(amount);
+                    });
+                    continue;
                 }
-                String message = rs.getString("message");
-                List<ShopTransactionMessageContainer> msgs = OUTGOING_MESSAGES.computeIfAbsent(ownerUUID, k -> new LinkedList<>());
-                msgs.add(ShopTransactionMessageContainer.fromJson(message));
+                UNREAD_COUNTS.computeIfAbsent(ownerUUID, k -> new AtomicInteger()).addAndGet(amount);
             }
         } catch (SQLException e) {
             plugin.getLogger().log(Level.WARNING, "Could not load transaction messages from database. Skipping.", e);
@@ -392,9 +495,7 @@ public class MsgUtil {
         Util.debugLog(shopTransactionMessage.getMessage(null));
         OfflinePlayer p = PlayerFinder.findOfflinePlayerByUUID(uuid);
         if (!p.isOnline()) {
-            List<ShopTransactionMessageContainer> msgs = OUTGOING_MESSAGES.getOrDefault(uuid, new LinkedList<>());
-            msgs.add(shopTransactionMessage);
-            OUTGOING_MESSAGES.put(uuid, msgs);
+            UNREAD_COUNTS.computeIfAbsent(uuid, k -> new AtomicInteger()).incrementAndGet();
             plugin.getDatabaseHelper().saveOfflineTransactionMessage(uuid, shopTransactionMessage.toJson(), System.currentTimeMillis());
         } else {
             Player player = p.getPlayer();
@@ -429,9 +530,7 @@ public class MsgUtil {
         }
         OfflinePlayer p = PlayerFinder.findOfflinePlayerByUUID(uuid);
         if (!p.isOnline()) {
-            List<ShopTransactionMessageContainer> msgs = OUTGOING_MESSAGES.getOrDefault(uuid, new LinkedList<>());
-            msgs.add(shopTransactionMessageContainer);
-            OUTGOING_MESSAGES.put(uuid, msgs);
+            UNREAD_COUNTS.computeIfAbsent(uuid, k -> new AtomicInteger()).incrementAndGet();
             plugin.getDatabaseHelper().saveOfflineTransactionMessage(uuid, shopTransactionMessageContainer.toJson(), System.currentTimeMillis());
         } else {
             Player player = p.getPlayer();
@@ -22,13 +22,13 @@ package org.maxgamer.quickshop.util;
 import com.griefcraft.lwc.LWC;
 import com.griefcraft.lwc.LWCPlugin;
 import com.griefcraft.model.Protection;
-import org.bukkit.Bukkit;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.bukkit.Location;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
-import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.plugin.RegisteredListener;
@@ -45,33 +45,62 @@ import org.maxgamer.quickshop.util.reload.ReloadStatus;
 import org.maxgamer.quickshop.util.reload.Reloadable;
 import org.primesoft.blockshub.BlocksHubBukkit;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 /**
  * A helper to resolve issue around other plugins with BlockBreakEvent
  *
  * @author Ghost_chu and sandtechnology
  */
-public class PermissionChecker implements Reloadable {
+public class PermissionChecker implements Reloadable, Listener {
     private final QuickShop plugin;
+    /**
+     * The fake events being called by this checker, matched by identity
+     */
+    private final Set<BlockBreakEvent> pendingChecks = Collections.newSetFromMap(new IdentityHashMap<>());
 
     private boolean usePermissionChecker;
 
     private QuickEventManager eventManager;
 
+    private Set<String> blacklistedWorlds = Collections.emptySet();
+
+    private boolean blocksHubOnly;
+
+    private Cache<VerdictKey, Result> verdictCache;
+
 
     public PermissionChecker(@NotNull QuickShop plugin) {
         this.plugin = plugin;
         plugin.getReloadManager().register(this);
         init();
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
     }
 
     private void init() {
         usePermissionChecker = this.plugin.getConfig().getBoolean("shop.protection-checking");
+        blacklistedWorlds = new HashSet<>(plugin.getConfig().getStringList("shop.protection-checking-blacklist"));
+        blocksHubOnly = plugin.getConfig().getBoolean("plugin.BlockHub.only");
+        long cacheTtl = plugin.getConfig().getLong("shop.protection-checking-cache-ttl", 1000);
+        verdictCache = cacheTtl > 0 ? CacheBuilder.newBuilder().expireAfterWrite(cacheTtl, TimeUnit.MILLISECONDS).maximumSize(1024).build() : null;
         List<String> listenerBlacklist = plugin.getConfig().getStringList("shop.protection-checking-blacklist");
         listenerBlacklist.removeIf(rule -> rule.equalsIgnoreCase("ignored_listener")); // Remove default demo rule
         if(listenerBlacklist.isEmpty()){
             this.eventManager = new BukkitEventManager();
+        }else if (this.eventManager instanceof QSEventManager) {
+            // Reuse it, its listener already registered
+            try {
+                ((QSEventManager) this.eventManager).reloadModule();
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to reload the listener blacklist", e);
+            }
         }else{
             this.eventManager = new QSEventManager(plugin);
             plugin.getLogger().info("Loaded "+ listenerBlacklist.size()+" rules for listener blacklist.");
@@ -79,6 +108,15 @@ public class PermissionChecker implements Reloadable {
         plugin.getLogger().info("EventManager selected: " + this.eventManager.getClass().getSimpleName());
     }
 
+    /**
+     * Drops all cached results, called when the regions or claims changed
+     */
+    public void invalidateCache() {
+        if (verdictCache != null) {
+            verdictCache.invalidateAll();
+        }
+    }
+
     /**
      * Check player can build in target location
      *
@@ -93,6 +131,8 @@ public class PermissionChecker implements Reloadable {
 
     /**
      * Check player can build in target block
+     * <p>
+     * The result is cached for a short time by player and block
      *
      * @param player Target player
      * @param block  Target block
@@ -101,11 +141,26 @@ public class PermissionChecker implements Reloadable {
     @NotNull
     public Result canBuild(@NotNull Player player, @NotNull Block block) {
 
-        if (plugin.getConfig().getStringList("shop.protection-checking-blacklist").contains(block.getWorld().getName())) {
+        if (blacklistedWorlds.contains(block.getWorld().getName())) {
             Util.debugLog("Skipping protection checking in world " + block.getWorld().getName() + " causing it in blacklist.");
             return Result.SUCCESS;
         }
 
+        Cache<VerdictKey, Result> cache = this.verdictCache;
+        if (cache == null) {
+            return check(player, block);
+        }
+        VerdictKey key = new VerdictKey(player.getUniqueId(), block.getWorld().getName(), block.getX(), block.getY(), block.getZ());
+        Result result = cache.getIfPresent(key);
+        if (result == null) {
+            result = check(player, block);
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    @NotNull
+    private Result check(@NotNull Player player, @NotNull Block block) {
         if (plugin.getLwcPlugin() != null) {
             LWCPlugin lwc = (LWCPlugin) plugin.getLwcPlugin();
             LWC lwcInstance = lwc.getLWC();
@@ -122,7 +177,7 @@ public class PermissionChecker implements Reloadable {
         if (plugin.getBlocksHubPlugin() != null) {
             BlocksHubBukkit blocksHubBukkit = (BlocksHubBukkit) plugin.getBlocksHubPlugin();
             boolean bhCanBuild = blocksHubBukkit.getApi().hasAccess(player.getUniqueId(), blocksHubBukkit.getApi().getWorld(block.getWorld().getName()), block.getX(), block.getY(), block.getZ());
-            if (plugin.getConfig().getBoolean("plugin.BlockHub.only")) {
+            if (blocksHubOnly) {
                 Util.debugLog("BlocksHub only mode response: " + bhCanBuild);
                 return new Result("BlocksHub");
             } else {
@@ -145,31 +200,78 @@ public class PermissionChecker implements Reloadable {
         beMainHand.setDropItems(false);
         beMainHand.setExpToDrop(0);
 
-        //register a listener to cancel test event
-        Bukkit.getPluginManager().registerEvents(new Listener() {
-            @EventHandler(priority = EventPriority.HIGHEST)
-            public void onTestEvent(BlockBreakEvent event) {
-                if (event.equals(beMainHand)) {
-                    // Call for event for protection check end
-                    eventManager.callEvent(
-                            new ShopProtectionCheckEvent(
-                                    block.getLocation(), player, ProtectionCheckStatus.END, beMainHand));
-                    if (!event.isCancelled()) {
-                        //Ensure this test will no be logged by some plugin
-                        beMainHand.setCancelled(true);
-                        isCanBuild.setResult(true);
-                    }
-                    HandlerList.unregisterAll(this);
-                }
-            }
-        }, plugin);
-        plugin.getCompatibilityManager().toggleProtectionListeners(false, player);
-        this.eventManager.callEvent(beMainHand);
-        plugin.getCompatibilityManager().toggleProtectionListeners(true, player);
+        pendingChecks.add(beMainHand);
+        try {
+            plugin.getCompatibilityManager().toggleProtectionListeners(false, player);
+            this.eventManager.callEvent(beMainHand);
+            plugin.getCompatibilityManager().toggleProtectionListeners(true, player);
+        } finally {
+            pendingChecks.remove(beMainHand);
+        }
 
         return isCanBuild;
     }
 
+    /**
+     * Reads the verdict of test event after all protection plugins checked it, then cancels it
+     * to keep it from being logged, instead of registering a listener for every check
+     *
+     * @param event The event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onTestEvent(BlockBreakEvent event) {
+        if (!(event instanceof FakeBlockBreakEvent) || !pendingChecks.contains(event)) {
+            return;
+        }
+        // Call for event for protection check end
+        eventManager.callEvent(
+                new ShopProtectionCheckEvent(
+                        event.getBlock().getLocation(), event.getPlayer(), ProtectionCheckStatus.END, event));
+        if (!event.isCancelled()) {
+            //Ensure this test will no be logged by some plugin
+            event.setCancelled(true);
+            ((FakeBlockBreakEvent) event).isCanBuild.setResult(true);
+        }
+    }
+
+    private static class VerdictKey {
+        private final UUID player;
+        private final String world;
+        private final int x;
+        private final int y;
+        private final int z;
+
+        private VerdictKey(@NotNull UUID player, @NotNull String world, int x, int y, int z) {
+            this.player = player;
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof VerdictKey)) {
+                return false;
+            }
+            VerdictKey other = (VerdictKey) o;
+            return x == other.x && y == other.y && z == other.z && player.equals(other.player) && world.equals(other.world);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = player.hashCode();
+            result = 31 * result + world.hashCode();
+            result = 31 * result + x;
+            result = 31 * result + y;
+            result = 31 * result + z;
+            return result;
+        }
+    }
+
     public static class FakeBlockBreakEvent extends BlockBreakEvent {
 
         private final org.maxgamer.quickshop.util.holder.Result isCanBuild;
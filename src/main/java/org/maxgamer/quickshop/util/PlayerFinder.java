@@ -31,13 +31,21 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.maxgamer.quickshop.QuickShop;
 import org.maxgamer.quickshop.economy.Trader;
+import org.maxgamer.quickshop.util.mojangapi.MojangAPI;
+import org.maxgamer.quickshop.util.mojangapi.MojangApiBmclApiMirror;
+import org.maxgamer.quickshop.util.mojangapi.MojangApiMcbbsApiMirror;
+import org.maxgamer.quickshop.util.mojangapi.MojangApiMirror;
+import org.maxgamer.quickshop.util.mojangapi.MojangApiOfficialMirror;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -59,6 +67,12 @@ public final class PlayerFinder {
 
     private static volatile boolean useOfflineStash;
 
+    @Nullable
+    private static volatile PlayerProfileCache profileCache;
+
+    @Nullable
+    private static volatile PlayerProfileResolver resolver;
+
     @Nullable
     private static PlayerProfile findProfileByName(String name, java.util.Collection<? extends org.bukkit.OfflinePlayer> players, boolean isOfflinePlayer) {
         for (OfflinePlayer player : players) {
@@ -81,6 +95,82 @@ public final class PlayerFinder {
     private PlayerFinder() {
     }
 
+    /**
+     * Loads the persistent profile cache and starts the resolver
+     *
+     * @param plugin The plugin
+     */
+    public static void init(@NotNull QuickShop plugin) {
+        PlayerProfileCache cache = new PlayerProfileCache(new File(Util.getCacheFolder(), "player_profiles.txt"), TimeUnit.DAYS.toMillis(30));
+        try {
+            plugin.getLogger().info("Loaded " + cache.load() + " player profiles from cache.");
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to load player profile cache, starting with empty cache.", e);
+        }
+        profileCache = cache;
+        PlayerProfileResolver.RemoteLookup remoteLookup = null;
+        // Offline mode servers are not using Mojang uuid
+        if (plugin.getServer().getOnlineMode()) {
+            MojangApiMirror mirror;
+            switch (plugin.getConfig().getInt("mojangapi-mirror", 0)) {
+                case 1:
+                    mirror = new MojangApiBmclApiMirror();
+                    break;
+                case 2:
+                    mirror = new MojangApiMcbbsApiMirror();
+                    break;
+                default:
+                    mirror = new MojangApiOfficialMirror();
+                    break;
+            }
+            remoteLookup = new MojangAPI(mirror).getProfileAPI()::lookup;
+        }
+        PlayerProfileResolver previous = resolver;
+        if (previous != null) {
+            previous.shutdown();
+        }
+        resolver = new PlayerProfileResolver(PlayerFinder::findProfileLocally, remoteLookup, MojangAPI.ProfileAPI.MAX_NAMES_PER_REQUEST, name -> {
+            //Blocking web request/querying user cache, on resolver thread
+            OfflinePlayer player = Bukkit.getServer().getOfflinePlayer(name);
+            return new PlayerProfile(player.getName(), player.getUniqueId());
+        }, profile -> puttingToCache(profile.getName(), profile.getUuid()));
+        plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, PlayerFinder::saveProfileCache, 6000, 6000);
+    }
+
+    /**
+     * Stops the resolver and saves the profile cache
+     */
+    public static void shutdown() {
+        PlayerProfileResolver current = resolver;
+        if (current != null) {
+            current.shutdown();
+            resolver = null;
+        }
+        saveProfileCache();
+    }
+
+    private static void saveProfileCache() {
+        PlayerProfileCache cache = profileCache;
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.save();
+        } catch (IOException e) {
+            QuickShop.getInstance().getLogger().log(Level.WARNING, "Failed to save player profile cache.", e);
+        }
+    }
+
+    @Nullable
+    private static PlayerProfile findProfileLocally(@NotNull String name) {
+        Server server = Bukkit.getServer();
+        PlayerProfile profile = findProfileByName(name, server.getOnlinePlayers(), false);
+        if (!useOfflineStash && profile == null) {
+            profile = findProfileByName(name, Arrays.asList(server.getOfflinePlayers()), true);
+        }
+        return profile;
+    }
+
     /**
      * Get the unmodified list of cached offline player names
      * will return empty when useOfflineStash is false
@@ -100,6 +190,10 @@ public final class PlayerFinder {
         if (useOfflineStash) {
             name2UUIDStash.put(player.getName().toLowerCase(Locale.ROOT), uuid);
         }
+        PlayerProfileCache cache = profileCache;
+        if (cache != null) {
+            cache.put(player.getName(), uuid);
+        }
     }
 
     public static void doLargeOfflineCachingWork(QuickShop quickShop, OfflinePlayer[] offlinePlayers) {
@@ -108,7 +202,7 @@ public final class PlayerFinder {
         int amount = 0;
         int errorAmount = 0;
         int doneAmount = 0;
-        for (OfflinePlayer offlinePlayer : quickShop.getServer().getOfflinePlayers()) {
+        for (OfflinePlayer offlinePlayer : offlinePlayers) {
             try {
                 String name = offlinePlayer.getName();
                 if (name != null) {
@@ -145,12 +239,39 @@ public final class PlayerFinder {
         }
     }
 
+    /**
+     * Getting PlayerProfile by name without blocking the caller.
+     * <p>
+     * The memory and disk caches and online players are checked immediately, otherwise the name is resolved by the resolver thread,
+     * the concurrent requests for same name share the result, and names are looked up from Mojang API in batch.
+     *
+     * @param name the player name, case ignored
+     * @return the future of profile, completes with null if it can't be found
+     */
+    @NotNull
+    public static CompletableFuture<PlayerProfile> findPlayerProfileByNameAsync(@NotNull String name) {
+        UUID uuid = findUUIDByName(name, false, false);
+        if (uuid != null) {
+            return CompletableFuture.completedFuture(new PlayerProfile(findNameByUUID(uuid), uuid));
+        }
+        PlayerProfileResolver current = resolver;
+        if (current == null) {
+            // Not initialized yet
+            return CompletableFuture.completedFuture(findPlayerProfileByName(name, true, true));
+        }
+        return current.resolve(name);
+    }
+
     private static void puttingToCache(String realPlayerName, UUID uuid) {
         if (realPlayerName == null) {
             emptyNameUUIDSet.add(uuid);
         } else {
             uuid2StringCache.put(uuid, realPlayerName);
             name2UUIDCache.put(realPlayerName.toLowerCase(Locale.ROOT), uuid);
+            PlayerProfileCache cache = profileCache;
+            if (cache != null) {
+                cache.put(realPlayerName, uuid);
+            }
         }
     }
 
@@ -171,6 +292,11 @@ public final class PlayerFinder {
             uuid = name2UUIDStash.get(name.toLowerCase(Locale.ROOT));
         }
 
+        PlayerProfileCache cache = profileCache;
+        if (uuid == null && cache != null) {
+            uuid = cache.getUUID(name);
+        }
+
         if (uuid != null) {
             return uuid;
         } else {
@@ -208,6 +334,10 @@ public final class PlayerFinder {
             return null;
         }
         String result = uuid2StringCache.getIfPresent(uuid);
+        PlayerProfileCache cache = profileCache;
+        if (result == null && cache != null) {
+            result = cache.getName(uuid);
+        }
         if (result == null) {
             OfflinePlayer player = findOfflinePlayerByUUID(uuid);
             result = player.getName();
@@ -0,0 +1,176 @@
+/*
+ * This file is a part of project QuickShop, the name is PlayerProfileCache.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent name and uuid cache, survives restarts so the names resolved once don't need web requests again.
+ * <p>
+ * Stored as lines of "uuid name time", the entries not refreshed within max age are dropped when loading.
+ */
+public class PlayerProfileCache {
+    private static final long REFRESH_INTERVAL = 24 * 60 * 60 * 1000L;
+    private final File file;
+    private final long maxAge;
+    private final Map<String, Entry> byName = new ConcurrentHashMap<>();
+    private final Map<UUID, Entry> byUUID = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    /**
+     * @param file   The cache file
+     * @param maxAge The max age of entries in milliseconds
+     */
+    public PlayerProfileCache(@NotNull File file, long maxAge) {
+        this.file = file;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Loads the entries from file, the broken lines are skipped
+     *
+     * @return The amount of entries loaded
+     * @throws IOException Failed to read file
+     */
+    public synchronized int load() throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        long expireBefore = System.currentTimeMillis() - maxAge;
+        int loaded = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                if (parts.length != 3 || !Util.isUUID(parts[0])) {
+                    continue;
+                }
+                long time;
+                try {
+                    time = Long.parseLong(parts[2]);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (time < expireBefore) {
+                    dirty = true;
+                    continue;
+                }
+                put(parts[1], UUID.fromString(parts[0]), time);
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Writes the entries to file if changed since last save
+     *
+     * @throws IOException Failed to write file
+     */
+    public synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8)) {
+            for (Entry entry : byUUID.values()) {
+                writer.write(entry.uuid + " " + entry.name + " " + entry.time);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            dirty = true;
+            throw e;
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Records a name and uuid pair, replaces the previous name of the uuid
+     *
+     * @param name The player name
+     * @param uuid The player uuid
+     */
+    public void put(@NotNull String name, @NotNull UUID uuid) {
+        put(name, uuid, System.currentTimeMillis());
+    }
+
+    private synchronized void put(@NotNull String name, @NotNull UUID uuid, long time) {
+        if (name.isEmpty() || name.indexOf(' ') >= 0) {
+            return;
+        }
+        Entry old = byUUID.get(uuid);
+        if (old != null && old.name.equals(name) && time - old.time < REFRESH_INTERVAL) {
+            return;
+        }
+        if (old != null) {
+            byName.remove(old.name.toLowerCase(Locale.ROOT), old);
+        }
+        Entry entry = new Entry(name, uuid, time);
+        Entry replaced = byName.put(name.toLowerCase(Locale.ROOT), entry);
+        if (replaced != null && !replaced.uuid.equals(uuid)) {
+            // The name is taken by another player now
+            byUUID.remove(replaced.uuid, replaced);
+        }
+        byUUID.put(uuid, entry);
+        dirty = true;
+    }
+
+    @Nullable
+    public UUID getUUID(@NotNull String name) {
+        Entry entry = byName.get(name.toLowerCase(Locale.ROOT));
+        return entry == null ? null : entry.uuid;
+    }
+
+    @Nullable
+    public String getName(@NotNull UUID uuid) {
+        Entry entry = byUUID.get(uuid);
+        return entry == null ? null : entry.name;
+    }
+
+    public int size() {
+        return byUUID.size();
+    }
+
+    private static class Entry {
+        private final String name;
+        private final UUID uuid;
+        private final long time;
+
+        private Entry(@NotNull String name, @NotNull UUID uuid, long time) {
+            this.name = name;
+            this.uuid = uuid;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * This file is a part of project QuickShop, the name is PlayerProfileResolver.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.maxgamer.quickshop.util.PlayerFinder.PlayerProfile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Resolves player names to profiles off the server thread.
+ * <p>
+ * Requests for same name share one future, and the pending names are sent to the remote lookup in batches.
+ * Each batch tries the local lookup first, then the remote lookup, and the fallback for names still unknown.
+ */
+public class PlayerProfileResolver {
+    private final Map<String, CompletableFuture<PlayerProfile>> inflight = new ConcurrentHashMap<>();
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+    private final ExecutorService executor;
+    private final Function<String, PlayerProfile> localLookup;
+    @Nullable
+    private final RemoteLookup remoteLookup;
+    private final int batchSize;
+    private final Function<String, PlayerProfile> fallback;
+    private final Consumer<PlayerProfile> onResolved;
+    private final AtomicLong remoteRequests = new AtomicLong();
+
+    /**
+     * @param localLookup  Finds the profile without network, may return null
+     * @param remoteLookup Finds the profiles in batch, null to skip
+     * @param batchSize    The max names in one remote lookup
+     * @param fallback     Finds the profile of names remote lookup doesn't know, may return null
+     * @param onResolved   Called with every profile resolved, on the resolver thread
+     */
+    public PlayerProfileResolver(@NotNull Function<String, PlayerProfile> localLookup, @Nullable RemoteLookup remoteLookup, int batchSize,
+                                 @NotNull Function<String, PlayerProfile> fallback, @NotNull Consumer<PlayerProfile> onResolved) {
+        this.localLookup = localLookup;
+        this.remoteLookup = remoteLookup;
+        this.batchSize = Math.max(1, batchSize);
+        this.fallback = fallback;
+        this.onResolved = onResolved;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "QuickShop-PlayerResolver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Resolves the profile of given name
+     *
+     * @param name The player name, case ignored
+     * @return The future of profile, completes with null if no one found
+     */
+    @NotNull
+    public CompletableFuture<PlayerProfile> resolve(@NotNull String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        CompletableFuture<PlayerProfile> created = new CompletableFuture<>();
+        CompletableFuture<PlayerProfile> existing = inflight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        pending.add(key);
+        try {
+            executor.execute(this::drain);
+        } catch (RuntimeException e) {
+            // Shutdown
+            complete(key, null, e);
+        }
+        return created;
+    }
+
+    private void drain() {
+        List<String> batch = new ArrayList<>(batchSize);
+        String name;
+        while (batch.size() < batchSize && (name = pending.poll()) != null) {
+            batch.add(name);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<String> unknown = new ArrayList<>(batch.size());
+        for (String key : batch) {
+            try {
+                PlayerProfile profile = localLookup.apply(key);
+                if (profile != null) {
+                    complete(key, profile, null);
+                } else {
+                    unknown.add(key);
+                }
+            } catch (RuntimeException e) {
+                complete(key, null, e);
+            }
+        }
+        if (!unknown.isEmpty() && remoteLookup != null) {
+            try {
+                remoteRequests.incrementAndGet();
+                Map<String, PlayerProfile> found = new HashMap<>();
+                remoteLookup.lookup(unknown).forEach((realName, uuid) -> found.put(realName.toLowerCase(Locale.ROOT), new PlayerProfile(realName, uuid)));
+                List<String> stillUnknown = new ArrayList<>(unknown.size());
+                for (String key : unknown) {
+                    PlayerProfile profile = found.get(key);
+                    if (profile == null) {
+                        stillUnknown.add(key);
+                    } else {
+                        complete(key, profile, null);
+                    }
+                }
+                unknown = stillUnknown;
+            } catch (IOException e) {
+                Util.debugLog("Remote profile lookup failed, fallback one by one: " + e.getMessage());
+            }
+        }
+        for (String key : unknown) {
+            try {
+                complete(key, fallback.apply(key), null);
+            } catch (RuntimeException e) {
+                complete(key, null, e);
+            }
+        }
+    }
+
+    private void complete(@NotNull String key, @Nullable PlayerProfile profile, @Nullable Throwable error) {
+        CompletableFuture<PlayerProfile> future = inflight.remove(key);
+        if (profile != null) {
+            try {
+                onResolved.accept(profile);
+            } catch (RuntimeException e) {
+                Util.debugLog("Failed to cache profile " + profile + ": " + e.getMessage());
+            }
+        }
+        if (future == null) {
+            return;
+        }
+        if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(profile);
+        }
+    }
+
+    /**
+     * Gets the amount of names waiting for resolving
+     *
+     * @return The amount
+     */
+    public int getPendingCount() {
+        return inflight.size();
+    }
+
+    /**
+     * Gets the amount of remote lookups sent
+     *
+     * @return The amount
+     */
+    public long getRemoteRequests() {
+        return remoteRequests.get();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        for (String key : inflight.keySet()) {
+            complete(key, null, new IllegalStateException("Resolver is shutting down"));
+        }
+    }
+
+    @FunctionalInterface
+    public interface RemoteLookup {
+        /**
+         * Looks up the names in one request
+         *
+         * @param names The names in lower case
+         * @return The uuid by player name
+         * @throws IOException The request failed
+         */
+        @NotNull
+        Map<String, UUID> lookup(@NotNull Collection<String> names) throws IOException;
+    }
+}
@@ -67,8 +67,11 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.maxgamer.quickshop.QuickShop;
 import org.maxgamer.quickshop.api.shop.AbstractDisplayItem;
+import org.maxgamer.quickshop.api.shop.CompiledItemMatcher;
 import org.maxgamer.quickshop.api.shop.Shop;
 import org.maxgamer.quickshop.database.MySQLCore;
+import org.maxgamer.quickshop.util.serialize.BinaryItemStackCodec;
+import org.maxgamer.quickshop.util.serialize.ItemStackDecodeCache;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
 
@@ -92,7 +95,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.EnumSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -122,8 +124,15 @@ public class Util {
     private static final ReentrantReadWriteLock LOCK = new ReentrantReadWriteLock();
 
     private static final ThreadLocal<MineDown> MINEDOWN = ThreadLocal.withInitial(() -> new MineDown(""));
+    // Shops are decoded on worker threads, Yaml is not thread-safe
+    private static final ThreadLocal<Yaml> YAML = ThreadLocal.withInitial(() -> {
+        DumperOptions yamlOptions = new DumperOptions();
+        yamlOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        yamlOptions.setIndent(2);
+        return new Yaml(yamlOptions);
+    });
+    private static final ItemStackDecodeCache ITEM_DECODE_CACHE = new ItemStackDecodeCache(4096);
     private static int BYPASSED_CUSTOM_STACKSIZE = -1;
-    private static Yaml yaml = null;
     private volatile static Boolean devMode = null;
     @Setter
     private static QuickShop plugin;
@@ -259,11 +268,12 @@ public class Util {
             return 0;
         }
         int items = 0;
+        CompiledItemMatcher matcher = plugin.getItemMatcher().compile(item);
         for (final ItemStack iStack : inv.getStorageContents()) {
             if (iStack == null || iStack.getType() == Material.AIR) {
                 continue;
             }
-            if (plugin.getItemMatcher().matches(item, iStack)) {
+            if (matcher.matches(iStack)) {
                 items += iStack.getAmount();
             }
         }
@@ -336,11 +346,12 @@ public class Util {
         }
         int space = 0;
         int itemMaxStackSize = getItemMaxStackSize(item.getType());
+        CompiledItemMatcher matcher = plugin.getItemMatcher().compile(item);
         ItemStack[] contents = inv.getStorageContents();
         for (ItemStack iStack : contents) {
             if (iStack == null || iStack.getType() == Material.AIR) {
                 space += itemMaxStackSize;
-            } else if (plugin.getItemMatcher().matches(item, iStack)) {
+            } else if (matcher.matches(iStack)) {
                 space += iStack.getAmount() >= itemMaxStackSize ? 0 : itemMaxStackSize - iStack.getAmount();
             }
         }
@@ -366,49 +377,63 @@ public class Util {
      */
     @Nullable
     public static ItemStack deserialize(@NotNull String config) throws InvalidConfigurationException {
-        if (yaml == null) {
-            DumperOptions yamlOptions = new DumperOptions();
-            yamlOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
-            yamlOptions.setIndent(2);
-            yaml = new Yaml(yamlOptions); //Caching it!
+        ItemStack cached = ITEM_DECODE_CACHE.get(config);
+        if (cached != null) {
+            return cached;
         }
+        ItemStack itemStack = deserializeYaml(config);
+        if (itemStack != null) {
+            ITEM_DECODE_CACHE.put(config, itemStack);
+        }
+        return itemStack;
+    }
+
+    /**
+     * Covert binary data created by {@link #serializeToBytes(ItemStack)} to ItemStack.
+     *
+     * @param data serialized ItemStack
+     * @return ItemStack iStack
+     * @throws InvalidConfigurationException when failed deserialize data
+     */
+    @NotNull
+    public static ItemStack deserialize(@NotNull byte[] data) throws InvalidConfigurationException {
+        Object key = ItemStackDecodeCache.key(data);
+        ItemStack cached = ITEM_DECODE_CACHE.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            ItemStack itemStack = BinaryItemStackCodec.decode(data);
+            ITEM_DECODE_CACHE.put(key, itemStack);
+            return itemStack;
+        } catch (IOException e) {
+            throw new InvalidConfigurationException("Exception in deserialize binary item", e);
+        }
+    }
+
+    /**
+     * Gets the cache of decoded ItemStacks
+     *
+     * @return The decode cache
+     */
+    @NotNull
+    public static ItemStackDecodeCache getItemDecodeCache() {
+        return ITEM_DECODE_CACHE;
+    }
+
+    @Nullable
+    private static ItemStack deserializeYaml(@NotNull String config) throws InvalidConfigurationException {
+        Yaml yaml = YAML.get();
         YamlConfiguration yamlConfiguration = new YamlConfiguration();
         Map<Object, Object> root = yaml.load(config);
         //noinspection unchecked
         Map<String, Object> item = (Map<String, Object>) root.get("item");
-        int itemDataVersion = Integer.parseInt(String.valueOf(item.getOrDefault("v", "0")));
         try {
-            // Try load the itemDataVersion to do some checks.
-            //noinspection deprecation
-            if (itemDataVersion > Bukkit.getUnsafe().getDataVersion()) {
-                Util.debugLog("WARNING: DataVersion not matched with ItemStack: " + config);
-                // okay we need some things to do
-                if (plugin.getConfig().getBoolean("shop.force-load-downgrade-items.enable")) {
-                    // okay it enabled
-                    Util.debugLog("QuickShop is trying force loading " + config);
-                    if (plugin.getConfig().getInt("shop.force-load-downgrade-items.method") == 0) { // Mode 0
-                        //noinspection deprecation
-                        item.put("v", Bukkit.getUnsafe().getDataVersion() - 1);
-                    } else { // Mode other
-                        //noinspection deprecation
-                        item.put("v", Bukkit.getUnsafe().getDataVersion());
-                    }
-                    // Okay we have hacked the dataVersion, now put it back
-                    root.put("item", item);
-                    config = yaml.dump(root);
-                    Util.debugLog("Updated, we will try load as hacked ItemStack: " + config);
-                } else {
-                    plugin
-                            .getLogger()
-                            .warning(
-                                    "Cannot load ItemStack "
-                                            + config
-                                            + " because it saved from higher Minecraft server version, the action will fail and you will receive a exception, PLELASE DON'T REPORT TO QUICKSHOP!");
-                    plugin
-                            .getLogger()
-                            .warning(
-                                    "You can try force load this ItemStack by our hacked ItemStack read util(shop.force-load-downgrade-items), but beware, the data may corrupt if you load on this lower Minecraft server version, Please backup your world and database before enable!");
-                }
+            if (patchItemDataVersion(item, config)) {
+                // Okay we have hacked the dataVersion, now put it back
+                root.put("item", item);
+                config = yaml.dump(root);
+                Util.debugLog("Updated, we will try load as hacked ItemStack: " + config);
             }
             yamlConfiguration.loadFromString(config);
             return yamlConfiguration.getItemStack("item");
@@ -417,6 +442,47 @@ public class Util {
         }
     }
 
+    /**
+     * Checks the data version of serialized ItemStack, and hacks it if force loading downgrade items enabled.
+     *
+     * @param item   The serialized ItemStack
+     * @param source The source of ItemStack, for logging
+     * @return true if the data version hacked
+     */
+    public static boolean patchItemDataVersion(@NotNull Map<String, Object> item, @NotNull Object source) {
+        int itemDataVersion = Integer.parseInt(String.valueOf(item.getOrDefault("v", "0")));
+        // Try load the itemDataVersion to do some checks.
+        //noinspection deprecation
+        if (itemDataVersion <= Bukkit.getUnsafe().getDataVersion()) {
+            return false;
+        }
+        Util.debugLog("WARNING: DataVersion not matched with ItemStack: " + source);
+        // okay we need some things to do
+        if (plugin.getConfig().getBoolean("shop.force-load-downgrade-items.enable")) {
+            // okay it enabled
+            Util.debugLog("QuickShop is trying force loading " + source);
+            if (plugin.getConfig().getInt("shop.force-load-downgrade-items.method") == 0) { // Mode 0
+                //noinspection deprecation
+                item.put("v", Bukkit.getUnsafe().getDataVersion() - 1);
+            } else { // Mode other
+                //noinspection deprecation
+                item.put("v", Bukkit.getUnsafe().getDataVersion());
+            }
+            return true;
+        }
+        plugin
+                .getLogger()
+                .warning(
+                        "Cannot load ItemStack "
+                                + source
+                                + " because it saved from higher Minecraft server version, the action will fail and you will receive a exception, PLELASE DON'T REPORT TO QUICKSHOP!");
+        plugin
+                .getLogger()
+                .warning(
+                        "You can try force load this ItemStack by our hacked ItemStack read util(shop.force-load-downgrade-items), but beware, the data may corrupt if you load on this lower Minecraft server version, Please backup your world and database before enable!");
+        return false;
+    }
+
     @NotNull
     public static List<String> getDebugLogs() {
         LOCK.readLock().lock();
@@ -689,15 +755,7 @@ public class Util {
      * @return The shops.
      */
     public static int getShopsInWorld(@NotNull String worldName) {
-        int cost = 0;
-        Iterator<Shop> iterator = plugin.getShopManager().getShopIterator();
-        while (iterator.hasNext()) {
-            Shop shop = iterator.next();
-            if (Objects.requireNonNull(shop.getLocation().getWorld()).getName().equals(worldName)) {
-                cost++;
-            }
-        }
-        return cost;
+        return plugin.getShopManager().getShopsByWorld(worldName).size();
     }
 
     /**
@@ -730,6 +788,8 @@ public class Util {
         }
         BLACKLIST.clear();
         SHOPABLES.clear();
+        // Decoded items depend on force-load-downgrade-items settings
+        ITEM_DECODE_CACHE.clear();
         RESTRICTED_PRICES.clear();
         CUSTOM_STACKSIZE.clear();
         devMode = plugin.getConfig().getBoolean("dev-mode");
@@ -1302,6 +1362,17 @@ public class Util {
         return cfg.saveToString();
     }
 
+    /**
+     * Covert ItemStack to compact binary data.
+     *
+     * @param iStack target ItemStack
+     * @return serialized itemStack, null if the ItemStack can't be stored as binary
+     */
+    @Nullable
+    public static byte[] serializeToBytes(@NotNull ItemStack iStack) {
+        return BinaryItemStackCodec.encode(iStack);
+    }
+
     /**
      * Return the Class name.
      *
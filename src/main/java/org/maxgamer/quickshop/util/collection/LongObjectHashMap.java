@@ -0,0 +1,206 @@
+/*
+ * This file is a part of project QuickShop, the name is LongObjectHashMap.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.util.collection;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * An open-addressing (linear probing) hash map keyed by primitive long.
+ * Lookups never box the key and never allocate.
+ * <p>
+ * This map is NOT thread-safe, guard it by yourself if it will be shared between threads.
+ * Null values are not allowed, a null slot means empty.
+ *
+ * @param <V> value type
+ */
+public class LongObjectHashMap<V> {
+    private static final int MIN_CAPACITY = 8;
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long required = (long) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+        int capacity = MIN_CAPACITY;
+        while (capacity < required && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long key) {
+        // Fibonacci hashing, spread the packed coordinates over the whole table
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slotOf(long key) {
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V get(long key) {
+        int slot = slotOf(key);
+        return slot == -1 ? null : (V) values[slot];
+    }
+
+    public boolean containsKey(long key) {
+        return slotOf(key) != -1;
+    }
+
+    /**
+     * Puts the value to map
+     *
+     * @param key   The key
+     * @param value The value, cannot be null
+     * @return The previous value, or null if there is no mapping
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V put(long key, @NotNull V value) {
+        int slot = hash(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V remove(long key) {
+        int slot = slotOf(key);
+        if (slot == -1) {
+            return null;
+        }
+        V previous = (V) values[slot];
+        // Backward shift deletion, keep the probe chains without tombstones
+        int gap = slot;
+        int next = (slot + 1) & mask;
+        while (values[next] != null) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = 0L;
+        values[gap] = null;
+        size--;
+        return previous;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            Object value = oldValues[i];
+            if (value == null) {
+                continue;
+            }
+            int slot = hash(oldKeys[i]) & mask;
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = value;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(@NotNull Consumer<? super V> consumer) {
+        for (Object value : values) {
+            if (value != null) {
+                consumer.accept((V) value);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachKeyValue(@NotNull KeyValueConsumer<? super V> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                consumer.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @FunctionalInterface
+    public interface KeyValueConsumer<V> {
+        void accept(long key, V value);
+    }
+}
@@ -26,6 +26,7 @@ import org.maxgamer.quickshop.QuickShop;
 import org.maxgamer.quickshop.api.economy.AbstractEconomy;
 import org.maxgamer.quickshop.api.economy.EconomyCore;
 import org.maxgamer.quickshop.api.shop.Shop;
+import org.maxgamer.quickshop.economy.CachingEconomyCore;
 import org.maxgamer.quickshop.economy.Economy_Vault;
 import org.maxgamer.quickshop.shop.ShopLoader;
 import org.maxgamer.quickshop.util.MsgUtil;
@@ -50,6 +51,9 @@ public class CollectorAdapter {
         Map<String, String> economy = new HashMap<>();
         try {
             EconomyCore economyCore = plugin.getEconomy();
+            if (economyCore instanceof CachingEconomyCore) {
+                economyCore = ((CachingEconomyCore) economyCore).getDelegate();
+            }
             //noinspection SwitchStatementWithTooFewBranches
             switch (AbstractEconomy.getNowUsing()) {
                 case VAULT:
@@ -0,0 +1,83 @@
+/*
+ * This file is a part of project QuickShop, the name is PackedPosition.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.util.location;
+
+import org.bukkit.Location;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Packs block and chunk coordinates into a single long, so they can be used as primitive map keys.
+ * <p>
+ * Block layout is the same as vanilla BlockPos: 26 bits X, 26 bits Z, 12 bits Y.
+ */
+public final class PackedPosition {
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1L;
+    private static final long Y_MASK = (1L << Y_BITS) - 1L;
+    private static final int X_SHIFT = XZ_BITS + Y_BITS;
+    private static final int Z_SHIFT = Y_BITS;
+
+    private PackedPosition() {
+    }
+
+    public static long block(int x, int y, int z) {
+        return ((x & XZ_MASK) << X_SHIFT) | ((z & XZ_MASK) << Z_SHIFT) | (y & Y_MASK);
+    }
+
+    public static long block(@NotNull Location location) {
+        return block(location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    public static int blockX(long packed) {
+        return (int) (packed >> X_SHIFT);
+    }
+
+    public static int blockY(long packed) {
+        return (int) (packed << (64 - Y_BITS) >> (64 - Y_BITS));
+    }
+
+    public static int blockZ(long packed) {
+        return (int) (packed << (64 - X_SHIFT) >> (64 - XZ_BITS));
+    }
+
+    public static long chunk(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the packed chunk key that contains given block coordinates
+     *
+     * @param blockX block x
+     * @param blockZ block z
+     * @return packed chunk key
+     */
+    public static long chunkOfBlock(int blockX, int blockZ) {
+        return chunk(blockX >> 4, blockZ >> 4);
+    }
+
+    public static int chunkX(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    public static int chunkZ(long packed) {
+        return (int) packed;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * This file is a part of project QuickShop, the name is OngoingFeeLog.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.util.logging.container;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+import java.util.UUID;
+
+@AllArgsConstructor
+@Data
+public class OngoingFeeLog implements ReadableLog {
+    private static int v = 1;
+    private boolean success;
+    private UUID owner;
+    private String currency;
+    private UUID taxAccount;
+    private double amount;
+    /**
+     * The fee of each shop charged in this transaction, keyed by shop position
+     */
+    private Map<String, Double> breakdown;
+    private int attempts;
+
+    @Override
+    public String toReadableLog() {
+        return "Ongoing fee " + (success ? "charged" : "failed to charge") + " from " + owner + " for " + amount + "(currency " + currency + ", " + breakdown.size() + " shops, attempts " + attempts + "), tax account is " + taxAccount + ", breakdown: " + breakdown;
+    }
+}
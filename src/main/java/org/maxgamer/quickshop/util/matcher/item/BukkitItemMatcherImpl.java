@@ -27,6 +27,7 @@ import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.maxgamer.quickshop.QuickShop;
+import org.maxgamer.quickshop.api.shop.CompiledItemMatcher;
 import org.maxgamer.quickshop.api.shop.ItemMatcher;
 import org.maxgamer.quickshop.util.Util;
 
@@ -103,4 +104,43 @@ public class BukkitItemMatcherImpl implements ItemMatcher {
         }
         return tester.isSimilar(original);
     }
+
+    /**
+     * Compiles a matcher for given original ItemStack, the shopItemId tag of original only read once
+     * and testers are not cloned.
+     *
+     * @param original The original ItemStack
+     * @return The compiled matcher
+     */
+    @Override
+    public @NotNull CompiledItemMatcher compile(@NotNull ItemStack original) {
+        ItemStack prototype = original.clone();
+        prototype.setAmount(1);
+        String shopItemId = readShopItemId(prototype);
+        return tester -> {
+            if (tester == null) {
+                return false;
+            }
+            if (shopItemId != null && shopItemId.equals(readShopItemId(tester))) {
+                return true;
+            }
+            return tester.isSimilar(prototype);
+        };
+    }
+
+    @Nullable
+    private String readShopItemId(@NotNull ItemStack itemStack) {
+        if (plugin.getNbtapi() == null) {
+            return null;
+        }
+        try {
+            String tag = new NBTItem(itemStack).getString("shopItemId");
+            return StringUtils.isNotEmpty(tag) ? tag : null;
+        } catch (Exception e) {
+            plugin.disableNBTAPI();
+            plugin.getLogger().log(Level.WARNING, "NBTAPI support is broken, dsiable and fallback... (You can safely ignore this)", e);
+            Util.debugLog("NBTAPI is broken, error: " + e.getMessage() + "\n stacktrace:  \n" + Arrays.toString(e.getStackTrace()));
+            return null;
+        }
+    }
 }
@@ -23,6 +23,7 @@ import de.tr7zw.nbtapi.NBTItem;
 import lombok.AllArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.attribute.Attribute;
 import org.bukkit.block.ShulkerBox;
 import org.bukkit.configuration.ConfigurationSection;
@@ -35,6 +36,7 @@ import org.bukkit.potion.PotionData;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.maxgamer.quickshop.QuickShop;
+import org.maxgamer.quickshop.api.shop.CompiledItemMatcher;
 import org.maxgamer.quickshop.api.shop.ItemMatcher;
 import org.maxgamer.quickshop.util.ReflectFactory;
 import org.maxgamer.quickshop.util.Util;
@@ -194,6 +196,121 @@ public class QuickShopItemMatcherImpl implements ItemMatcher, Reloadable {
         return requireStack.getType().equals(givenStack.getType());
     }
 
+    /**
+     * Compiles a matcher for given original ItemStack, the original will be fingerprinted once
+     * and the testers rejected by fingerprint skipping the meta checks.
+     *
+     * @param original The original ItemStack
+     * @return The compiled matcher
+     */
+    @Override
+    public @NotNull CompiledItemMatcher compile(@NotNull ItemStack original) {
+        return new CompiledMatcher(original);
+    }
+
+    @Nullable
+    private String readShopItemId(@NotNull ItemStack itemStack) {
+        if (plugin.getNbtapi() == null) {
+            return null;
+        }
+        try {
+            String tag = new NBTItem(itemStack).getString("shopItemId");
+            return StringUtils.isNotEmpty(tag) ? tag : null;
+        } catch (Exception e) {
+            plugin.disableNBTAPI();
+            plugin.getLogger().log(Level.WARNING, "NBTAPI support is broken, dsiable and fallback... (You can safely ignore this)", e);
+            Util.debugLog("NBTAPI is broken, error: " + e.getMessage() + "\n stacktrace:  \n" + Arrays.toString(e.getStackTrace()));
+            return null;
+        }
+    }
+
+    private static int displayNameHash(@NotNull ItemMeta meta) {
+        return meta.hasDisplayName() ? meta.getDisplayName().hashCode() : 0;
+    }
+
+    private static int loreHash(@NotNull ItemMeta meta) {
+        return meta.hasLore() ? Objects.hashCode(meta.getLore()) : 0;
+    }
+
+    private static int enchantsHash(@NotNull ItemMeta meta) {
+        return meta.hasEnchants() ? meta.getEnchants().hashCode() : 0;
+    }
+
+    /**
+     * Same result as {@link #matches(ItemStack, ItemStack)} with the original fixed, but never clones the tester.
+     * Amounts are ignored by isSimilar already, so the clones and setAmount(1) are not needed.
+     * <p>
+     * The work type and meta checks are read on every test, so reloading the config applies to compiled matchers too.
+     */
+    private class CompiledMatcher implements CompiledItemMatcher {
+        private final ItemStack prototype;
+        private final Material type;
+        private final boolean hasMeta;
+        @Nullable
+        private final ItemMeta meta;
+        private final int displayNameHash;
+        private final int loreHash;
+        private final int enchantsHash;
+        @Nullable
+        private final String shopItemId;
+
+        private CompiledMatcher(@NotNull ItemStack original) {
+            this.prototype = original.clone();
+            this.prototype.setAmount(1);
+            this.type = prototype.getType();
+            this.hasMeta = prototype.hasItemMeta();
+            this.meta = hasMeta ? prototype.getItemMeta() : null;
+            this.displayNameHash = meta == null ? 0 : displayNameHash(meta);
+            this.loreHash = meta == null ? 0 : loreHash(meta);
+            this.enchantsHash = meta == null ? 0 : enchantsHash(meta);
+            this.shopItemId = readShopItemId(prototype);
+        }
+
+        @Override
+        public boolean matches(@Nullable ItemStack tester) {
+            if (tester == null) {
+                Util.debugLog("Match failed: A stack is null: requireStack[" + prototype + "] givenStack[null]");
+                return false;
+            }
+            // Only the tester tag needs reading, no need to touch NBT if the original doesn't have one
+            if (shopItemId != null && shopItemId.equals(readShopItemId(tester))) {
+                return true;
+            }
+            // Different type is never similar nor equals
+            if (type != tester.getType()) {
+                return false;
+            }
+            if (workType == 1 || workType == 2) {
+                // Amounts are both 1 in the original, so equals is same as isSimilar
+                return prototype.isSimilar(tester);
+            }
+            boolean testerHasMeta = tester.hasItemMeta();
+            if (!hasMeta || !testerHasMeta) {
+                return prototype.isSimilar(tester) || hasMeta == testerHasMeta;
+            }
+            ItemMetaMatcher metaMatcher = itemMetaMatcher;
+            ItemMeta testerMeta = tester.getItemMeta();
+            // Fingerprint differs means the meta differs, isSimilar and the enabled meta check will both fail
+            if (testerMeta != null
+                    && ((metaMatcher.displayName && displayNameHash != displayNameHash(testerMeta))
+                    || (metaMatcher.lores && loreHash != loreHash(testerMeta))
+                    || (metaMatcher.enchs && enchantsHash != enchantsHash(testerMeta)))) {
+                return false;
+            }
+            if (prototype.isSimilar(tester)) {
+                return true;
+            }
+            //If givenStack don't have meta, try to generate one
+            if (testerMeta == null) {
+                testerMeta = Bukkit.getItemFactory().getItemMeta(tester.getType());
+                if (testerMeta == null) {
+                    return true;
+                }
+            }
+            return metaMatcher.matches(Objects.requireNonNull(meta), testerMeta);
+        }
+    }
+
     /**
      * Callback for reloading
      *
@@ -208,8 +325,14 @@ public class QuickShopItemMatcherImpl implements ItemMatcher, Reloadable {
     private static class ItemMetaMatcher {
 
         private final List<Matcher> matcherList = new ArrayList<>();
+        private final boolean displayName;
+        private final boolean lores;
+        private final boolean enchs;
 
         public ItemMetaMatcher(@NotNull ConfigurationSection itemMatcherConfig, @NotNull QuickShopItemMatcherImpl itemMatcher) {
+            this.displayName = itemMatcherConfig.getBoolean("displayname");
+            this.lores = itemMatcherConfig.getBoolean("lores");
+            this.enchs = itemMatcherConfig.getBoolean("enchs");
 
             addIfEnable(itemMatcherConfig, "damage", (meta1, meta2) -> {
                 if (meta1 instanceof Damageable != meta2 instanceof Damageable) {
@@ -576,6 +699,10 @@ public class QuickShopItemMatcherImpl implements ItemMatcher, Reloadable {
                     return true; // Passed check. givenStack still have no meta need to check.
                 }
             }
+            return matches(meta1, meta2);
+        }
+
+        boolean matches(ItemMeta meta1, ItemMeta meta2) {
             for (Matcher matcher : matcherList) {
                 if (!matcher.match(meta1, meta2)) {
                     return false;
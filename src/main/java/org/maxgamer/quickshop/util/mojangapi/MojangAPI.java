@@ -22,18 +22,29 @@ package org.maxgamer.quickshop.util.mojangapi;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.SneakyThrows;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.maxgamer.quickshop.util.HttpUtil;
 import org.maxgamer.quickshop.util.JsonUtil;
 import org.maxgamer.quickshop.util.Util;
 
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 public class MojangAPI {
@@ -63,6 +74,11 @@ public class MojangAPI {
         return new ResourcesAPI(mirror);
     }
 
+    @NotNull
+    public ProfileAPI getProfileAPI() {
+        return new ProfileAPI(mirror);
+    }
+
 
     @Data
     @AllArgsConstructor
@@ -228,5 +244,59 @@ public class MojangAPI {
         }
     }
 
+    public static class ProfileAPI {
+        /**
+         * The max names can be looked up in one request
+         */
+        public static final int MAX_NAMES_PER_REQUEST = 10;
+        private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+        private final String endpoint;
+
+        public ProfileAPI(@NotNull MojangApiMirror mirror) {
+            this.endpoint = mirror.getProfileApiRoot() + "/profiles/minecraft";
+        }
 
+        /**
+         * Looks up the uuid of player names in one request
+         *
+         * @param names The player names, at most {@link #MAX_NAMES_PER_REQUEST}
+         * @return The uuid by the name returned by server, the names not exist are absent
+         * @throws IOException The request failed
+         */
+        @NotNull
+        public Map<String, UUID> lookup(@NotNull Collection<String> names) throws IOException {
+            if (names.size() > MAX_NAMES_PER_REQUEST) {
+                throw new IllegalArgumentException("Too many names in one request: " + names.size());
+            }
+            Map<String, UUID> result = new HashMap<>();
+            if (names.isEmpty()) {
+                return result;
+            }
+            JsonArray request = new JsonArray();
+            names.forEach(request::add);
+            try (Response response = HttpUtil.makePost(endpoint, RequestBody.create(JsonUtil.toString(request), JSON))) {
+                ResponseBody body = response.body();
+                if (response.code() != 200 || body == null) {
+                    throw new IOException("Profile lookup failed with status " + response.code());
+                }
+                try {
+                    for (JsonElement element : JsonUtil.readElement(body.string()).getAsJsonArray()) {
+                        JsonObject profile = element.getAsJsonObject();
+                        result.put(profile.get("name").getAsString(), fromUndashed(profile.get("id").getAsString()));
+                    }
+                } catch (RuntimeException e) {
+                    throw new IOException("Invalid profile lookup response", e);
+                }
+            }
+            return result;
+        }
+
+        @NotNull
+        static UUID fromUndashed(@NotNull String id) {
+            if (id.length() != 32) {
+                throw new IllegalArgumentException("Invalid uuid " + id);
+            }
+            return new UUID(Long.parseUnsignedLong(id.substring(0, 16), 16), Long.parseUnsignedLong(id.substring(16), 16));
+        }
+    }
 }
@@ -21,4 +21,15 @@ public interface MojangApiMirror {
      * @return The url root
      */
     String getLibrariesRoot();
+
+    /**
+     * https://api.mojang.com
+     * <p>
+     * The mirrors don't proxy the profile lookups, so official server by default
+     *
+     * @return The url root
+     */
+    default String getProfileApiRoot() {
+        return "https://api.mojang.com";
+    }
 }
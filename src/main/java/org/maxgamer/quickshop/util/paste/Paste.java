@@ -31,10 +31,19 @@ import org.maxgamer.quickshop.QuickShop;
 import org.maxgamer.quickshop.api.database.WarpedResultSet;
 import org.maxgamer.quickshop.api.economy.AbstractEconomy;
 import org.maxgamer.quickshop.api.economy.EconomyCore;
+import org.maxgamer.quickshop.api.shop.AbstractDisplayItem;
+import org.maxgamer.quickshop.api.shop.DisplayType;
+import org.maxgamer.quickshop.database.AbstractPooledDatabaseCore;
+import org.maxgamer.quickshop.database.DatabaseManager;
+import org.maxgamer.quickshop.economy.CachingEconomyCore;
 import org.maxgamer.quickshop.economy.Economy_Vault;
+import org.maxgamer.quickshop.listener.ShopProtectionListener;
+import org.maxgamer.quickshop.shop.VirtualDisplayItem;
 import org.maxgamer.quickshop.util.MsgUtil;
 import org.maxgamer.quickshop.util.ReflectFactory;
 import org.maxgamer.quickshop.util.Util;
+import org.maxgamer.quickshop.watcher.LogWatcher;
+import org.maxgamer.quickshop.watcher.SignUpdateWatcher;
 
 import java.io.File;
 import java.lang.management.ManagementFactory;
@@ -86,6 +95,9 @@ public class Paste {
         finalReport.append("\tEconomy System: ");
         try {
             EconomyCore economyCore = plugin.getEconomy();
+            if (economyCore instanceof CachingEconomyCore) {
+                economyCore = ((CachingEconomyCore) economyCore).getDelegate();
+            }
             //noinspection SwitchStatementWithTooFewBranches
             switch (AbstractEconomy.getNowUsing()) {
                 case VAULT:
@@ -160,9 +172,60 @@ public class Paste {
         finalReport.append("\tDatabaseCore: ").append(plugin.getDatabaseManager().getDatabase().getName()).append("@").append(plugin.getDatabaseManager().getDatabase().getPlugin().getName()).append("\n");
         finalReport.append("\tGameLanguage Processor: ").append(MsgUtil.gameLanguage.getName()).append("@").append(MsgUtil.gameLanguage.getPlugin().getName()).append("\n");
         finalReport.append("================================================\n");
+        finalReport.append("Database Queue:\n");
+        DatabaseManager databaseManager = plugin.getDatabaseManager();
+        finalReport.append("\tQueue Depth: ").append(databaseManager.getQueueDepth()).append("\n");
+        finalReport.append("\tExecuted Tasks: ").append(databaseManager.getExecutedTasks().get()).append("\n");
+        finalReport.append("\tExecuted Batches: ").append(databaseManager.getExecutedBatches().get()).append("\n");
+        finalReport.append("\tCoalesced Tasks: ").append(databaseManager.getCoalescedTasks().get()).append("\n");
+        finalReport.append("\tBatch Size (last/max): ").append(databaseManager.getLastBatchSize()).append("/").append(databaseManager.getMaxObservedBatchSize()).append("\n");
+        finalReport.append("\tFlush Latency (last/max): ").append(databaseManager.getLastFlushTime()).append("ms/").append(databaseManager.getMaxFlushTime()).append("ms\n");
+        if (databaseManager.getDatabase() instanceof AbstractPooledDatabaseCore) {
+            AbstractPooledDatabaseCore pool = (AbstractPooledDatabaseCore) databaseManager.getDatabase();
+            finalReport.append("\tPool Connections (active/idle/total/max): ").append(pool.getActiveConnections()).append("/").append(pool.getIdleConnections()).append("/").append(pool.getTotalConnections()).append("/").append(pool.getMaxSize()).append("\n");
+            finalReport.append("\tPool Waiting Threads: ").append(pool.getWaitingThreads()).append("\n");
+            finalReport.append("\tPool Borrows: ").append(pool.getBorrowCount().get()).append(" (timeouts: ").append(pool.getBorrowTimeoutCount().get()).append(", avg wait: ").append(String.format("%.2f", pool.getAverageBorrowWait())).append("ms)\n");
+            finalReport.append("\tPool Connections Created/Closed: ").append(pool.getCreatedCount().get()).append("/").append(pool.getClosedCount().get()).append("\n");
+        }
+        finalReport.append("================================================\n");
         finalReport.append("Active shops on the server:\n");
         finalReport.append("\tTotal: ").append(plugin.getShopManager().getLoadedShops().size()).append("\n");
         finalReport.append("================================================\n");
+        if (AbstractDisplayItem.getNowUsing() == DisplayType.VIRTUALITEM) {
+            finalReport.append("Virtual Display Packets:\n");
+            finalReport.append("\tSent: ").append(VirtualDisplayItem.VirtualDisplayItemManager.getPacketsSent()).append("\n");
+            finalReport.append("\tPer Second: ").append(String.format("%.2f", VirtualDisplayItem.VirtualDisplayItemManager.getPacketsPerSecond())).append("\n");
+            finalReport.append("================================================\n");
+        }
+        ShopProtectionListener shopProtectionListener = plugin.getShopProtectionListener();
+        if (shopProtectionListener != null) {
+            finalReport.append("Hopper Protection:\n");
+            finalReport.append("\tFast Rejected/Inspected: ").append(shopProtectionListener.getHopperFastRejected().sum()).append("/").append(shopProtectionListener.getHopperInspected().sum()).append("\n");
+            finalReport.append("================================================\n");
+        }
+        SignUpdateWatcher signUpdateWatcher = plugin.getSignUpdateWatcher();
+        if (signUpdateWatcher != null) {
+            finalReport.append("Sign Updates:\n");
+            finalReport.append("\tQueue Depth: ").append(signUpdateWatcher.getQueueSize()).append("\n");
+            finalReport.append("\tApplied/Skipped/Deduplicated: ").append(signUpdateWatcher.getAppliedCount()).append("/").append(signUpdateWatcher.getSkippedCount()).append("/").append(signUpdateWatcher.getDeduplicatedCount()).append("\n");
+            finalReport.append("================================================\n");
+        }
+        if (plugin.getEconomy() instanceof CachingEconomyCore) {
+            CachingEconomyCore economyCache = (CachingEconomyCore) plugin.getEconomy();
+            finalReport.append("Economy Calls:\n");
+            economyCache.getLatencies().forEach((call, histogram) -> finalReport.append("\t").append(call.name()).append(": ").append(histogram).append("\n"));
+            finalReport.append("\tBalance Cache Hits/Misses: ").append(economyCache.getCacheHits().get()).append("/").append(economyCache.getCacheMisses().get()).append("\n");
+            finalReport.append("\tQueued/Merged Tax Deposits: ").append(economyCache.getPendingDeposits()).append("/").append(economyCache.getMergedDeposits().get()).append("\n");
+            finalReport.append("================================================\n");
+        }
+        LogWatcher logWatcher = plugin.getLogWatcher();
+        if (logWatcher != null) {
+            finalReport.append("Action Log:\n");
+            finalReport.append("\tQueue Depth: ").append(logWatcher.getQueueDepth()).append("\n");
+            finalReport.append("\tWritten/Dropped: ").append(logWatcher.getWrittenCount()).append("/").append(logWatcher.getDroppedCount()).append("\n");
+            finalReport.append("\tRotations: ").append(logWatcher.getRotationCount()).append("\n");
+            finalReport.append("================================================\n");
+        }
         finalReport.append("Worlds:\n");
         finalReport.append("\tTotal: ").append(plugin.getServer().getWorlds().size()).append("\n");
         for (World world : plugin.getServer().getWorlds()) {
@@ -0,0 +1,267 @@
+/*
+ * This file is a part of project QuickShop, the name is BinaryItemStackCodec.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.util.serialize;
+
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.maxgamer.quickshop.util.Util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary form of ItemStack.
+ * <p>
+ * Stores the same tree that {@link ConfigurationSerializable#serialize()} produces, but as tagged binary values,
+ * so decoding doesn't need to parse YAML. The values that can't be stored are rejected when encoding,
+ * the caller should keep the YAML form as fallback.
+ */
+public final class BinaryItemStackCodec {
+    private static final byte MAGIC = 'Q';
+    private static final byte VERSION = 1;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_INT = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_FLOAT = 5;
+    private static final byte TAG_BOOLEAN = 6;
+    private static final byte TAG_SHORT = 7;
+    private static final byte TAG_BYTE = 8;
+    private static final byte TAG_LIST = 9;
+    private static final byte TAG_MAP = 10;
+    private static final byte TAG_SERIALIZABLE = 11;
+
+    private BinaryItemStackCodec() {
+    }
+
+    /**
+     * Encodes the ItemStack
+     *
+     * @param itemStack The ItemStack
+     * @return The bytes, null if the ItemStack contains values can't be encoded
+     */
+    @Nullable
+    public static byte[] encode(@NotNull ItemStack itemStack) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(MAGIC);
+            out.writeByte(VERSION);
+            writeValue(out, itemStack);
+        } catch (IOException | IllegalArgumentException e) {
+            Util.debugLog("Cannot encode ItemStack to binary, fallback to YAML only: " + e.getMessage());
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes the ItemStack
+     *
+     * @param data The bytes created by {@link #encode(ItemStack)}
+     * @return The ItemStack
+     * @throws IOException The data is corrupted or not a ItemStack
+     */
+    @NotNull
+    public static ItemStack decode(@NotNull byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != MAGIC) {
+                throw new IOException("Not a binary ItemStack");
+            }
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary ItemStack version " + version);
+            }
+            if (in.readByte() != TAG_SERIALIZABLE) {
+                throw new IOException("Root value is not a serializable object");
+            }
+            String alias = readString(in);
+            Map<String, Object> map = readMap(in);
+            Util.patchItemDataVersion(map, map);
+            map.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, alias);
+            Object result = ConfigurationSerialization.deserializeObject(map);
+            if (!(result instanceof ItemStack)) {
+                throw new IOException("Root value is not a ItemStack: " + alias);
+            }
+            return (ItemStack) result;
+        } catch (RuntimeException e) {
+            throw new IOException("Failed to deserialize binary ItemStack", e);
+        }
+    }
+
+    private static void writeValue(@NotNull DataOutputStream out, @Nullable Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TAG_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TAG_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TAG_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TAG_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Short) {
+            out.writeByte(TAG_SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(TAG_BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(TAG_LIST);
+            writeVarInt(out, list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map) {
+            out.writeByte(TAG_MAP);
+            writeMap(out, (Map<?, ?>) value);
+        } else if (value instanceof ConfigurationSerializable) {
+            out.writeByte(TAG_SERIALIZABLE);
+            //noinspection unchecked
+            writeString(out, ConfigurationSerialization.getAlias((Class<? extends ConfigurationSerializable>) value.getClass()));
+            writeMap(out, ((ConfigurationSerializable) value).serialize());
+        } else {
+            throw new IllegalArgumentException("Unsupported value type " + value.getClass().getName());
+        }
+    }
+
+    private static void writeMap(@NotNull DataOutputStream out, @NotNull Map<?, ?> map) throws IOException {
+        writeVarInt(out, map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!(entry.getKey() instanceof String)) {
+                throw new IllegalArgumentException("Unsupported map key " + entry.getKey());
+            }
+            writeString(out, (String) entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    @Nullable
+    private static Object readValue(@NotNull DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return readString(in);
+            case TAG_INT:
+                return in.readInt();
+            case TAG_LONG:
+                return in.readLong();
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_FLOAT:
+                return in.readFloat();
+            case TAG_BOOLEAN:
+                return in.readBoolean();
+            case TAG_SHORT:
+                return in.readShort();
+            case TAG_BYTE:
+                return in.readByte();
+            case TAG_LIST:
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            case TAG_MAP:
+                return readMap(in);
+            case TAG_SERIALIZABLE:
+                String alias = readString(in);
+                Map<String, Object> map = readMap(in);
+                map.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, alias);
+                // Same as YAML does, the nested objects are deserialized before their parent
+                return ConfigurationSerialization.deserializeObject(map);
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    @NotNull
+    private static Map<String, Object> readMap(@NotNull DataInputStream in) throws IOException {
+        int size = readVarInt(in);
+        Map<String, Object> map = new LinkedHashMap<>(Math.max(4, size * 2));
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            map.put(key, readValue(in));
+        }
+        return map;
+    }
+
+    private static void writeString(@NotNull DataOutputStream out, @NotNull String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    @NotNull
+    private static String readString(@NotNull DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarInt(@NotNull DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(@NotNull DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IOException("Negative length " + value);
+                }
+                return value;
+            }
+        }
+        throw new IOException("VarInt too big");
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * This file is a part of project QuickShop, the name is ItemStackDecodeCache.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.util.serialize;
+
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Interns the decoded ItemStacks by their serialized form, so the shops selling same item only decode it once.
+ * <p>
+ * ItemStack is mutable, the cache keeps its own prototype and always hands out clones of it.
+ */
+public class ItemStackDecodeCache {
+    private final Map<Object, ItemStack> prototypes;
+    private long hitCount;
+    private long missCount;
+
+    public ItemStackDecodeCache(int maximumSize) {
+        this.prototypes = new LinkedHashMap<Object, ItemStack>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, ItemStack> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Wraps the binary form as cache key
+     *
+     * @param data The serialized bytes, must not be modified after
+     * @return The key
+     */
+    @NotNull
+    public static Object key(@NotNull byte[] data) {
+        return new BytesKey(data);
+    }
+
+    /**
+     * Gets a copy of decoded ItemStack
+     *
+     * @param key The serialized String or the key created by {@link #key(byte[])}
+     * @return The copy of ItemStack, null if not cached
+     */
+    @Nullable
+    public ItemStack get(@NotNull Object key) {
+        ItemStack prototype;
+        synchronized (this) {
+            prototype = prototypes.get(key);
+            if (prototype == null) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+        }
+        return prototype.clone();
+    }
+
+    public void put(@NotNull Object key, @NotNull ItemStack itemStack) {
+        ItemStack prototype = itemStack.clone();
+        synchronized (this) {
+            prototypes.put(key, prototype);
+        }
+    }
+
+    public synchronized void clear() {
+        prototypes.clear();
+    }
+
+    public synchronized int size() {
+        return prototypes.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private static class BytesKey {
+        private final byte[] data;
+        private final int hash;
+
+        private BytesKey(@NotNull byte[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BytesKey)) {
+                return false;
+            }
+            BytesKey other = (BytesKey) o;
+            return hash == other.hash && Arrays.equals(data, other.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
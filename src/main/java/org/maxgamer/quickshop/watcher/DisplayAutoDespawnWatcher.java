@@ -19,7 +19,6 @@
 
 package org.maxgamer.quickshop.watcher;
 
-import lombok.AllArgsConstructor;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -34,10 +33,22 @@ import org.maxgamer.quickshop.util.reload.ReloadResult;
 import org.maxgamer.quickshop.util.reload.ReloadStatus;
 import org.maxgamer.quickshop.util.reload.Reloadable;
 
-@AllArgsConstructor
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Spawns the displays near players and removes the others.
+ * <p>
+ * Only the shop chunks in range of players are visited, the shops with display spawned are
+ * tracked between runs, so the displays leaving range can be removed without scanning all shops.
+ */
 public class DisplayAutoDespawnWatcher extends BukkitRunnable implements Reloadable {
     private final QuickShop plugin;
     private int range;
+    // Shop hashCode is mutable, so keyed by runtime id
+    private Map<UUID, Shop> spawnedShops = new HashMap<>();
+    private boolean seeded;
 
     public DisplayAutoDespawnWatcher(@NotNull QuickShop plugin) {
         this.plugin = plugin;
@@ -47,6 +58,8 @@ public class DisplayAutoDespawnWatcher extends BukkitRunnable implements Reloada
 
     private void init() {
         this.range = plugin.getConfig().getInt("shop.display-despawn-range");
+        // Displays may spawned by others when reloading, check all of them once
+        this.seeded = false;
     }
 
     @Override
@@ -55,35 +68,79 @@ public class DisplayAutoDespawnWatcher extends BukkitRunnable implements Reloada
         return ReloadResult.builder().status(ReloadStatus.SUCCESS).build();
     }
 
+    /**
+     * Tracks the shop display spawned outside this watcher, it will be removed in next run if no player nearby
+     *
+     * @param shop The shop
+     */
+    public void trackSpawnedDisplay(@NotNull Shop shop) {
+        spawnedShops.put(shop.getRuntimeRandomUniqueId(), shop);
+    }
+
     @Override
     public void run() {
-        for (Shop shop : plugin.getShopManager().getLoadedShops()) {
-            //Shop may be deleted or unloaded when iterating
-            if (shop.isDeleted() || !shop.isLoaded() || shop.isDisableDisplay()) {
+        if (!seeded) {
+            for (Shop shop : plugin.getShopManager().getLoadedShops()) {
+                trackSpawnedDisplay(shop);
+            }
+            seeded = true;
+        }
+        Map<UUID, Shop> nearbyShops = new HashMap<>();
+        long rangeSquared = (long) range * range;
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            Location playerLocation = player.getLocation();
+            World world = playerLocation.getWorld();
+            if (world == null) {
                 continue;
             }
-            Location location = shop.getLocation();
-            World world = shop.getLocation().getWorld(); //Cache this, because it will took some time.
-            AbstractDisplayItem displayItem = shop.getDisplay();
-            if (displayItem != null) {
-                // Check the range has player?
-                boolean anyPlayerInRegion = false;
-                for (Player player : Bukkit.getOnlinePlayers()) {
-                    if ((player.getWorld() == world) && (player.getLocation().distance(location) <= range)) {
-                        anyPlayerInRegion = true;
-                        break;
+            String worldName = world.getName();
+            int minChunkX = (playerLocation.getBlockX() - range) >> 4;
+            int maxChunkX = (playerLocation.getBlockX() + range) >> 4;
+            int minChunkZ = (playerLocation.getBlockZ() - range) >> 4;
+            int maxChunkZ = (playerLocation.getBlockZ() + range) >> 4;
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    Map<Location, Shop> shops = plugin.getShopManager().getShops(worldName, chunkX, chunkZ);
+                    if (shops == null) {
+                        continue;
                     }
-                }
-                if (anyPlayerInRegion) {
-                    if (!displayItem.isSpawned()) {
-                        Util.debugLog("Respawning the shop " + shop + " the display, cause it was despawned and a player close to it");
-                        displayItem.spawn();
+                    for (Shop shop : shops.values()) {
+                        //Shop may be deleted or unloaded when iterating
+                        if (shop.isDeleted() || !shop.isLoaded() || shop.isDisableDisplay()) {
+                            continue;
+                        }
+                        Location location = shop.getLocation();
+                        double x = location.getX() - playerLocation.getX();
+                        double y = location.getY() - playerLocation.getY();
+                        double z = location.getZ() - playerLocation.getZ();
+                        if (x * x + y * y + z * z <= rangeSquared) {
+                            nearbyShops.put(shop.getRuntimeRandomUniqueId(), shop);
+                        }
                     }
-                } else if (displayItem.isSpawned()) {
-                    displayItem.remove();
                 }
             }
         }
+        for (Shop shop : nearbyShops.values()) {
+            AbstractDisplayItem displayItem = shop.getDisplay();
+            if (displayItem != null && !displayItem.isSpawned()) {
+                Util.debugLog("Respawning the shop " + shop + " the display, cause it was despawned and a player close to it");
+                displayItem.spawn();
+            }
+        }
+        for (Map.Entry<UUID, Shop> entry : spawnedShops.entrySet()) {
+            if (nearbyShops.containsKey(entry.getKey())) {
+                continue;
+            }
+            Shop shop = entry.getValue();
+            if (shop.isDeleted() || !shop.isLoaded() || shop.isDisableDisplay()) {
+                continue;
+            }
+            AbstractDisplayItem displayItem = shop.getDisplay();
+            if (displayItem != null && displayItem.isSpawned()) {
+                displayItem.remove();
+            }
+        }
+        spawnedShops = nearbyShops;
     }
 
 }
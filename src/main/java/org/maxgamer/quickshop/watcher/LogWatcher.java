@@ -19,110 +19,272 @@
 
 package org.maxgamer.quickshop.watcher;
 
-import lombok.SneakyThrows;
+import lombok.Getter;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 import org.apache.commons.compress.compressors.gzip.GzipParameters;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.jetbrains.annotations.NotNull;
 import org.maxgamer.quickshop.QuickShop;
+import org.maxgamer.quickshop.util.JsonUtil;
 
-import java.io.*;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Iterator;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
+/**
+ * Writes the action logs to qs.log.
+ * <p>
+ * The records are put into a bounded ring buffer without blocking the caller, and serialized and
+ * written by the log task through a buffered UTF-8 writer. The records are dropped and counted when
+ * the buffer is full. The log file is rotated by size and time, the rotated files are compressed
+ * in background.
+ */
 public class LogWatcher extends BukkitRunnable implements AutoCloseable {
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
     private static final DateTimeFormatter LOG_FILE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneId.systemDefault());
-    private final Queue<String> logs = new ConcurrentLinkedQueue<>();
-
-    private PrintWriter printWriter = null;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private final QuickShop plugin;
+    private final File log;
+    private final Path archivePath;
+    private final BlockingQueue<Record> records;
+    private final List<Record> drainBuffer = new ArrayList<>();
+    private final ExecutorService compressExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "QuickShop-LogCompressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long maxFileSize;
+    private final long rotateIntervalMillis;
+    private final AtomicLong droppedCount = new AtomicLong();
+    /**
+     * The records written to file
+     */
+    @Getter
+    private volatile long writtenCount;
+    @Getter
+    private volatile long rotationCount;
+    private FileChannel channel;
+    private Writer writer;
+    private long openedAt;
+    private boolean closed;
 
     public LogWatcher(QuickShop plugin, File log) {
+        this.plugin = plugin;
+        this.log = log;
+        this.archivePath = plugin.getDataFolder().toPath().resolve("logs");
+        this.records = new ArrayBlockingQueue<>(Math.max(64, plugin.getConfig().getInt("logging.buffer-size", 8192)));
+        this.maxFileSize = (long) (plugin.getConfig().getDouble("logging.file-size") * 1024 * 1024);
+        this.rotateIntervalMillis = TimeUnit.HOURS.toMillis(Math.max(0, plugin.getConfig().getLong("logging.rotate-interval", 24)));
         try {
-            boolean deleteFailed = false;
-            if (!log.exists()) {
-                //noinspection ResultOfMethodCallIgnored
-                log.createNewFile();
-            } else {
-                if ((log.length() / 1024f / 1024f) > plugin.getConfig().getDouble("logging.file-size")) {
-                    Path logPath = plugin.getDataFolder().toPath().resolve("logs");
-                    Files.createDirectories(logPath);
-                    //Find a available name
-                    Path targetPath;
-                    int i = 1;
-                    do {
-                        targetPath = logPath.resolve(ZonedDateTime.now().format(LOG_FILE_FORMATTER) + "-" + i + ".log.gz");
-                        i++;
-                    } while (Files.exists(targetPath));
-                    Files.createFile(targetPath);
-                    GzipParameters gzipParameters = new GzipParameters();
-                    gzipParameters.setFilename(log.getName());
-                    try (GzipCompressorOutputStream archiveOutputStream = new GzipCompressorOutputStream(new BufferedOutputStream(new FileOutputStream(targetPath.toFile())), gzipParameters)) {
-                        Files.copy(log.toPath(), archiveOutputStream);
-                        archiveOutputStream.finish();
-                        if (log.delete()) {
-                            //noinspection ResultOfMethodCallIgnored
-                            log.createNewFile();
-                            deleteFailed = false;
-                        } else {
-                            deleteFailed = true;
-                        }
-                    }
-                }
-            }
-            FileWriter logFileWriter;
-            if (deleteFailed) {
-                //If could not delete, just override it
-                logFileWriter = new FileWriter(log, false);
-            } else {
-                //Otherwise append
-                logFileWriter = new FileWriter(log, true);
+            if (log.exists() && log.length() > maxFileSize) {
+                archive();
             }
-
-            //TODO log file writer should close after use
-
-            printWriter = new PrintWriter(logFileWriter);
-        } catch (FileNotFoundException e) {
-            plugin.getLogger().log(Level.SEVERE, "Log file was not found!", e);
+            open();
         } catch (IOException e) {
             plugin.getLogger().log(Level.SEVERE, "Could not create the log file!", e);
         }
     }
 
-    @Override
-    @SneakyThrows
-    public void close() {
-        if (printWriter != null) {
-            printWriter.flush();
-            printWriter.close();
+    /**
+     * Queues a plain text log
+     *
+     * @param log The log
+     */
+    public void log(@NotNull String log) {
+        offer(new Record(System.currentTimeMillis(), log));
+    }
+
+    /**
+     * Queues a log object, it is serialized to JSON by the log task.
+     * The log object must not hold the live data changed later by server thread, copy it first.
+     *
+     * @param eventObject The log object
+     */
+    public void logEvent(@NotNull Object eventObject) {
+        offer(new Record(System.currentTimeMillis(), eventObject));
+    }
+
+    private void offer(@NotNull Record record) {
+        if (!records.offer(record)) {
+            droppedCount.incrementAndGet();
         }
     }
 
-    public void log(@NotNull String log) {
-        logs.add("[" + DATETIME_FORMATTER.format(Instant.now()) + "] " + log);
+    public int getQueueDepth() {
+        return records.size();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
     }
 
     @Override
-    public void run() {
-        if (printWriter == null) {
+    public synchronized void run() {
+        if (writer == null || closed) {
             //Waiting for init
             return;
         }
-        Iterator<String> iterator = logs.iterator();
-        while (iterator.hasNext()) {
-            String log = iterator.next();
-            printWriter.println(log);
-            iterator.remove();
+        try {
+            flushRecords();
+            if ((maxFileSize > 0 && channel.size() > maxFileSize)
+                    || (rotateIntervalMillis > 0 && System.currentTimeMillis() - openedAt >= rotateIntervalMillis && channel.size() > 0)) {
+                rotate();
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to write the log file", e);
+        }
+    }
+
+    private void flushRecords() throws IOException {
+        records.drainTo(drainBuffer);
+        if (drainBuffer.isEmpty()) {
+            return;
+        }
+        int written = 0;
+        try {
+            for (Record record : drainBuffer) {
+                String payload;
+                try {
+                    payload = record.payload instanceof String ? (String) record.payload : JsonUtil.getGson().toJson(record.payload);
+                } catch (RuntimeException e) {
+                    plugin.getLogger().log(Level.WARNING, "Failed to serialize the log " + record.payload.getClass().getSimpleName(), e);
+                    continue;
+                }
+                writer.write('[');
+                writer.write(DATETIME_FORMATTER.format(Instant.ofEpochMilli(record.time)));
+                writer.write("] ");
+                writer.write(payload);
+                writer.write(System.lineSeparator());
+                written++;
+            }
+            writer.flush();
+            writtenCount += written;
+        } finally {
+            drainBuffer.clear();
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(log.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        OutputStream outputStream = Channels.newOutputStream(channel);
+        writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void rotate() throws IOException {
+        writer.close();
+        writer = null;
+        try {
+            archive();
+        } finally {
+            open();
+        }
+        rotationCount++;
+    }
+
+    /**
+     * Moves current log file away and compresses it in background
+     */
+    private void archive() throws IOException {
+        Files.createDirectories(archivePath);
+        String prefix = ZonedDateTime.now().format(LOG_FILE_FORMATTER);
+        //Find a available name
+        Path targetPath;
+        Path pendingPath;
+        int i = 1;
+        do {
+            targetPath = archivePath.resolve(prefix + "-" + i + ".log.gz");
+            pendingPath = archivePath.resolve(prefix + "-" + i + ".log");
+            i++;
+        } while (Files.exists(targetPath) || Files.exists(pendingPath));
+        try {
+            Files.move(log.toPath(), pendingPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(log.toPath(), pendingPath);
+        }
+        Path source = pendingPath;
+        Path target = targetPath;
+        compressExecutor.execute(() -> compress(source, target));
+    }
+
+    private void compress(@NotNull Path source, @NotNull Path target) {
+        GzipParameters gzipParameters = new GzipParameters();
+        gzipParameters.setFilename(log.getName());
+        try (GzipCompressorOutputStream archiveOutputStream = new GzipCompressorOutputStream(new BufferedOutputStream(Files.newOutputStream(target)), gzipParameters)) {
+            Files.copy(source, archiveOutputStream);
+            archiveOutputStream.finish();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to compress the log file " + source + ", keeping it uncompressed", e);
+            try {
+                Files.deleteIfExists(target);
+            } catch (IOException ignored) {
+            }
+            return;
+        }
+        try {
+            Files.delete(source);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to delete the compressed log file " + source, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (writer != null) {
+            try {
+                flushRecords();
+                writer.close();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to close the log file", e);
+            }
+            writer = null;
+        }
+        compressExecutor.shutdown();
+        try {
+            if (!compressExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Log compression didn't finish in time, the rest will be left uncompressed.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Record {
+        private final long time;
+        private final Object payload;
+
+        private Record(long time, @NotNull Object payload) {
+            this.time = time;
+            this.payload = payload;
         }
-        printWriter.flush();
     }
 
 }
@@ -19,10 +19,13 @@
 
 package org.maxgamer.quickshop.watcher;
 
+import lombok.Getter;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.maxgamer.quickshop.QuickShop;
 import org.maxgamer.quickshop.api.economy.EconomyTransaction;
 import org.maxgamer.quickshop.api.event.ShopOngoingFeeEvent;
@@ -35,23 +38,46 @@ import org.maxgamer.quickshop.util.MsgUtil;
 import org.maxgamer.quickshop.util.PlayerFinder;
 import org.maxgamer.quickshop.util.Util;
 import org.maxgamer.quickshop.util.WarningSender;
+import org.maxgamer.quickshop.util.logging.container.OngoingFeeLog;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Check the shops after server booted up, make sure shop can correct self-deleted when container
- * lost.
+ * Charges the ongoing fee of shops.
+ * <p>
+ * The fees are grouped by owner, currency, world and tax account, each group is charged as one
+ * transaction. The groups are processed in the tick time budget, the groups failed to charge are
+ * retried later until reached the retry limit.
  */
 public class OngoingFeeWatcher extends BukkitRunnable {
     private final QuickShop plugin;
     private final WarningSender warningSender;
+    private final Queue<FeeGroup> pendingGroups = new ConcurrentLinkedQueue<>();
+    @Getter
+    private final BukkitRunnable chargeProcessor = new ChargeProcessor();
+    private final long tickBudgetNanos;
+    private final int maxRetries;
+    private final long retryDelay;
 
     public OngoingFeeWatcher(@NotNull QuickShop plugin) {
         this.plugin = plugin;
         this.warningSender = new WarningSender(plugin, 6000);
+        this.tickBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, plugin.getConfig().getInt("shop.ongoing-fee.tick-budget", 5)));
+        this.maxRetries = Math.max(0, plugin.getConfig().getInt("shop.ongoing-fee.max-retries", 3));
+        this.retryDelay = Math.max(1, plugin.getConfig().getLong("shop.ongoing-fee.retry-delay", 1200));
     }
 
+    /**
+     * Collects the shops need to pay and queues them by groups
+     */
     @Override
     public void run() {
         Util.debugLog("Run task for ongoing fee...");
@@ -59,57 +85,127 @@ public class OngoingFeeWatcher extends BukkitRunnable {
             Util.debugLog("Economy hadn't get ready.");
             return;
         }
-
-        boolean allowLoan = plugin.getConfig().getBoolean("shop.allow-economy-loan");
         boolean ignoreUnlimited = plugin.getConfig().getBoolean("shop.ongoing-fee.ignore-unlimited");
-        double gobalCost = plugin.getConfig().getDouble("shop.ongoing-fee.cost-per-shop");
+        Map<GroupKey, FeeGroup> groups = new LinkedHashMap<>();
         for (Shop shop : plugin.getShopManager().getAllShops()) {
             if ((!shop.isUnlimited() || !ignoreUnlimited) && !shop.isDeleted()) {
-                UUID shopOwner = shop.getOwner();
                 Location location = shop.getLocation();
                 if (!location.isWorldLoaded()) {
                     //ignore unloaded world
                     continue;
                 }
-                double cost = gobalCost;
-                World world = location.getWorld();
-                //We must check balance manually to avoid shop missing hell when tax account broken
-                if (allowLoan || plugin.getEconomy().getBalance(shopOwner, Objects.requireNonNull(world), shop.getCurrency()) >= cost) {
-                    Trader taxAccount;
-                    if (shop.getTaxAccount() != null) {
-                        taxAccount = Trader.adapt(PlayerFinder.findOfflinePlayerByUUID(shop.getTaxAccount()));
-                    } else {
-                        taxAccount = ((SimpleShopManager) plugin.getShopManager()).getCacheTaxAccount();
-                    }
-
-                    ShopOngoingFeeEvent event = new ShopOngoingFeeEvent(shop, shopOwner, cost);
-                    if (Util.fireCancellableEvent(event)) {
-                        continue;
-                    }
-
-                    cost = event.getCost();
-                    double finalCost = cost;
-
-                    Util.mainThreadRun(() -> {
-                        EconomyTransaction transaction = EconomyTransaction.builder()
-                                .allowLoan(allowLoan)
-                                .currency(shop.getCurrency())
-                                .core(plugin.getEconomy())
-                                .world(world)
-                                .amount(finalCost)
-                                .to(taxAccount == null ? null : taxAccount.getUniqueId())
-                                .from(shopOwner).build();
-
-                        boolean success = transaction.failSafeCommit();
-                        if (!success) {
-                            warningSender.sendWarn("Unable to deposit ongoing fee to tax account, the last error is " + transaction.getLastError());
-                        }
-                    });
-                } else {
+                GroupKey key = new GroupKey(shop.getOwner(), shop.getCurrency(), Objects.requireNonNull(location.getWorld()).getName(), shop.getTaxAccount());
+                groups.computeIfAbsent(key, FeeGroup::new).shops.add(shop);
+            }
+        }
+        pendingGroups.addAll(groups.values());
+        Util.debugLog("Queued " + groups.size() + " ongoing fee groups.");
+    }
+
+    public int getPendingGroups() {
+        return pendingGroups.size();
+    }
+
+    private void process(@NotNull FeeGroup group) {
+        World world = Bukkit.getWorld(group.key.world);
+        if (world == null) {
+            // World unloaded after collected, same as the shops in unloaded world
+            return;
+        }
+        boolean allowLoan = plugin.getConfig().getBoolean("shop.allow-economy-loan");
+        //We must check balance manually to avoid shop missing hell when tax account broken
+        double balance = allowLoan ? Double.MAX_VALUE : plugin.getEconomy().getBalance(group.key.owner, world, group.key.currency);
+        if (!group.shops.isEmpty()) {
+            double gobalCost = plugin.getConfig().getDouble("shop.ongoing-fee.cost-per-shop");
+            // Advance before the steps may throw, so a retry never fires the event or removes the shop again
+            while (group.nextShop < group.shops.size()) {
+                Shop shop = group.shops.get(group.nextShop++);
+                if (shop.isDeleted()) {
+                    continue;
+                }
+                if (balance < gobalCost) {
                     this.removeShop(shop);
+                    continue;
                 }
+                ShopOngoingFeeEvent event = new ShopOngoingFeeEvent(shop, group.key.owner, gobalCost);
+                if (Util.fireCancellableEvent(event)) {
+                    continue;
+                }
+                group.charges.add(new Charge(shop, event.getCost()));
+            }
+            group.shops.clear();
+            group.nextShop = 0;
+        }
+        // Charge the part the owner can pay, the rest is retried later
+        List<Charge> affordable = new ArrayList<>(group.charges.size());
+        List<Charge> deferred = new ArrayList<>();
+        double total = 0;
+        for (Charge charge : group.charges) {
+            if (charge.shop.isDeleted()) {
+                continue;
+            }
+            if (total + charge.cost <= balance) {
+                total += charge.cost;
+                affordable.add(charge);
+            } else {
+                deferred.add(charge);
+            }
+        }
+        // Only the charges not handed over yet are kept, a retry of this group must not queue the deferred ones again
+        group.charges.clear();
+        group.charges.addAll(affordable);
+        if (!deferred.isEmpty()) {
+            retry(group.withCharges(deferred), "Insufficient balance");
+        }
+        if (affordable.isEmpty()) {
+            return;
+        }
+        Trader taxAccount;
+        if (group.key.taxAccount != null) {
+            taxAccount = Trader.adapt(PlayerFinder.findOfflinePlayerByUUID(group.key.taxAccount));
+        } else {
+            taxAccount = ((SimpleShopManager) plugin.getShopManager()).getCacheTaxAccount();
+        }
+        double finalTotal = total;
+        Util.mainThreadRun(() -> {
+            // From now the retry is decided by the result, never by the exception handler of processor
+            group.charges.clear();
+            EconomyTransaction transaction = EconomyTransaction.builder()
+                    .allowLoan(allowLoan)
+                    .currency(group.key.currency)
+                    .core(plugin.getEconomy())
+                    .world(world)
+                    .amount(finalTotal)
+                    .to(taxAccount == null ? null : taxAccount.getUniqueId())
+                    .from(group.key.owner).build();
+            boolean success = transaction.failSafeCommit();
+            plugin.logEvent(new OngoingFeeLog(success, group.key.owner, group.key.currency, taxAccount == null ? null : taxAccount.getUniqueId(), finalTotal, breakdown(affordable), group.attempts + 1));
+            if (success) {
+                Util.debugLog("Charged ongoing fee " + finalTotal + " from " + group.key.owner + " for " + affordable.size() + " shops.");
+            } else {
+                retry(group.withCharges(affordable), transaction.getLastError());
             }
+        });
+    }
+
+    private void retry(@NotNull FeeGroup group, @Nullable String reason) {
+        if (group.attempts >= maxRetries) {
+            warningSender.sendWarn("Unable to charge ongoing fee of " + group.charges.size() + " shops from " + group.key.owner + " after " + (group.attempts + 1) + " attempts, the last error is " + reason);
+            return;
+        }
+        group.attempts++;
+        Util.debugLog("Ongoing fee of " + group.charges.size() + " shops from " + group.key.owner + " failed (" + reason + "), retry " + group.attempts + "/" + maxRetries + " later.");
+        plugin.getServer().getScheduler().runTaskLaterAsynchronously(plugin, () -> pendingGroups.add(group), retryDelay);
+    }
+
+    @NotNull
+    private static Map<String, Double> breakdown(@NotNull List<Charge> charges) {
+        Map<String, Double> breakdown = new LinkedHashMap<>();
+        for (Charge charge : charges) {
+            Location location = charge.shop.getLocation();
+            breakdown.put(Objects.requireNonNull(location.getWorld()).getName() + " " + location.getBlockX() + " " + location.getBlockY() + " " + location.getBlockZ(), charge.cost);
         }
+        return breakdown;
     }
 
     /**
@@ -133,4 +229,105 @@ public class OngoingFeeWatcher extends BukkitRunnable {
                 , null, null));
     }
 
+    /**
+     * Processes the queued groups in the tick time budget
+     */
+    private class ChargeProcessor extends BukkitRunnable {
+        @Override
+        public void run() {
+            if (pendingGroups.isEmpty() || plugin.getEconomy() == null) {
+                return;
+            }
+            long deadline = System.nanoTime() + tickBudgetNanos;
+            FeeGroup group;
+            while ((group = pendingGroups.poll()) != null) {
+                try {
+                    process(group);
+                } catch (RuntimeException e) {
+                    retry(group, e.getMessage());
+                }
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private static class GroupKey {
+        private final UUID owner;
+        @Nullable
+        private final String currency;
+        private final String world;
+        @Nullable
+        private final UUID taxAccount;
+
+        private GroupKey(@NotNull UUID owner, @Nullable String currency, @NotNull String world, @Nullable UUID taxAccount) {
+            this.owner = owner;
+            this.currency = currency;
+            this.world = world;
+            this.taxAccount = taxAccount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof GroupKey)) {
+                return false;
+            }
+            GroupKey other = (GroupKey) o;
+            return owner.equals(other.owner) && world.equals(other.world)
+                    && Objects.equals(currency, other.currency) && Objects.equals(taxAccount, other.taxAccount);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(owner, currency, world, taxAccount);
+        }
+    }
+
+    private static class FeeGroup {
+        private final GroupKey key;
+        /**
+         * The shops haven't fired fee event yet
+         */
+        private final List<Shop> shops = new ArrayList<>();
+        /**
+         * The index of next shop in {@link #shops} to fire fee event
+         */
+        private int nextShop;
+        /**
+         * The per shop fees confirmed by event
+         */
+        private final List<Charge> charges;
+        private int attempts;
+
+        private FeeGroup(@NotNull GroupKey key) {
+            this.key = key;
+            this.charges = new ArrayList<>();
+        }
+
+        private FeeGroup(@NotNull GroupKey key, @NotNull List<Charge> charges, int attempts) {
+            this.key = key;
+            this.charges = charges;
+            this.attempts = attempts;
+        }
+
+        @NotNull
+        private FeeGroup withCharges(@NotNull List<Charge> charges) {
+            return new FeeGroup(key, charges, attempts);
+        }
+    }
+
+    private static class Charge {
+        private final Shop shop;
+        private final double cost;
+
+        private Charge(@NotNull Shop shop, double cost) {
+            this.shop = shop;
+            this.cost = cost;
+        }
+    }
+
 }
@@ -19,29 +19,101 @@
 
 package org.maxgamer.quickshop.watcher;
 
+import lombok.Getter;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.jetbrains.annotations.NotNull;
+import org.maxgamer.quickshop.QuickShop;
 import org.maxgamer.quickshop.api.shop.Shop;
+import org.maxgamer.quickshop.shop.ContainerShop;
+import org.maxgamer.quickshop.shop.ShopSignCache;
+import org.maxgamer.quickshop.util.reload.ReloadResult;
+import org.maxgamer.quickshop.util.reload.ReloadStatus;
+import org.maxgamer.quickshop.util.reload.Reloadable;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
-public class SignUpdateWatcher extends BukkitRunnable {
-    private final Queue<Shop> signUpdateQueue = new LinkedList<>();
+/**
+ * Updates the queued shop signs in batch.
+ * <p>
+ * Each shop only queued once no matter how many times scheduled, the queue is processed in
+ * the tick time budget and the rest are left for next round.
+ */
+public class SignUpdateWatcher extends BukkitRunnable implements Reloadable {
+    private final QuickShop plugin;
+    // Shop hashCode is mutable, so keyed by runtime id
+    private final Map<UUID, Shop> signUpdateQueue = new LinkedHashMap<>();
+    private long tickBudgetNanos;
+    /**
+     * The schedules ignored since the shop already queued
+     */
+    @Getter
+    private long deduplicatedCount;
+    /**
+     * The updates that written at least one sign
+     */
+    @Getter
+    private long appliedCount;
+    /**
+     * The updates skipped since the signs already showing the text
+     */
+    @Getter
+    private long skippedCount;
+
+    public SignUpdateWatcher(@NotNull QuickShop plugin) {
+        this.plugin = plugin;
+        plugin.getReloadManager().register(this);
+        init();
+    }
+
+    private void init() {
+        this.tickBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, plugin.getConfig().getInt("shop.sign-update-tick-budget", 5)));
+    }
+
+    @Override
+    public ReloadResult reloadModule() {
+        init();
+        // Texts or formats may changed
+        ShopSignCache.invalidateAll();
+        return ReloadResult.builder().status(ReloadStatus.SUCCESS).build();
+    }
 
     public void scheduleSignUpdate(@NotNull Shop shop) {
-        if (signUpdateQueue.contains(shop)) {
-            return; // Ignore
+        if (signUpdateQueue.putIfAbsent(shop.getRuntimeRandomUniqueId(), shop) != null) {
+            deduplicatedCount++;
         }
-        signUpdateQueue.add(shop);
+    }
+
+    public int getQueueSize() {
+        return signUpdateQueue.size();
     }
 
     @Override
     public void run() {
-        Shop shop = signUpdateQueue.poll();
-        while (shop != null && !shop.isDeleted()) {
-            shop.setSignText();
-            shop = signUpdateQueue.poll();
+        long deadline = System.nanoTime() + tickBudgetNanos;
+        Iterator<Shop> iterator = signUpdateQueue.values().iterator();
+        while (iterator.hasNext()) {
+            Shop shop = iterator.next();
+            iterator.remove();
+            if (shop.isDeleted()) {
+                continue;
+            }
+            if (shop instanceof ContainerShop) {
+                if (((ContainerShop) shop).updateSignText() > 0) {
+                    appliedCount++;
+                } else {
+                    skippedCount++;
+                }
+            } else {
+                shop.setSignText();
+                appliedCount++;
+            }
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
         }
     }
 
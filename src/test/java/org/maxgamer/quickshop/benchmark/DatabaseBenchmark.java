@@ -0,0 +1,82 @@
+/*
+ * This file is a part of project QuickShop, the name is DatabaseBenchmark.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.benchmark;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.maxgamer.quickshop.QuickShop;
+import org.maxgamer.quickshop.database.DatabaseManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queued shop updates flushed to the SQLite database of the test server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatabaseBenchmark {
+    private static final int UPDATES = 1000;
+    /**
+     * Distinct shops updated per flush, less than updates means some of them coalesced in queue
+     */
+    @Param({"1000", "100"})
+    public int distinctShops;
+    private QuickShop plugin;
+    private Method runTask;
+    private ItemStack item;
+
+    @Setup(Level.Trial)
+    public void setup(QuickShopFixture fixture) throws NoSuchMethodException {
+        this.plugin = fixture.plugin;
+        this.runTask = DatabaseManager.class.getDeclaredMethod("runTask");
+        this.runTask.setAccessible(true);
+        this.item = new ItemStack(Material.DIAMOND);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(UPDATES)
+    public void updateAndFlush() throws InvocationTargetException, IllegalAccessException {
+        for (int i = 0; i < UPDATES; i++) {
+            int shop = i % distinctShops;
+            plugin.getDatabaseHelper().updateShop("00000000-0000-0000-0000-000000000000", item, 0, 0, 1.0D,
+                    shop, 64, 0, "world", "", null, false, null);
+        }
+        runTask.invoke(plugin.getDatabaseManager());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is a part of project QuickShop, the name is InventoryBenchmark.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.benchmark;
+
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.maxgamer.quickshop.util.Util;
+import org.maxgamer.quickshop.util.matcher.item.QuickShopItemMatcherImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item matching and the stock/space counting of a double chest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryBenchmark {
+    private QuickShopItemMatcherImpl matcher;
+    private ItemStack plain;
+    private ItemStack plainOther;
+    private ItemStack enchanted;
+    private ItemStack enchantedOther;
+    private Inventory inventory;
+
+    @Setup(Level.Trial)
+    public void setup(QuickShopFixture fixture) {
+        matcher = new QuickShopItemMatcherImpl(fixture.plugin);
+        plain = new ItemStack(Material.DIAMOND, 1);
+        plainOther = new ItemStack(Material.DIAMOND, 64);
+        enchanted = new ItemStack(Material.DIAMOND_SWORD, 1);
+        enchanted.addUnsafeEnchantment(Enchantment.DAMAGE_ALL, 5);
+        enchantedOther = enchanted.clone();
+        inventory = fixture.server.createInventory(null, 54);
+        // Half filled with the shop item, mixed with other items
+        for (int i = 0; i < 54; i += 2) {
+            inventory.setItem(i, new ItemStack(Material.DIAMOND, 32));
+            if (i % 6 == 0) {
+                inventory.setItem(i + 1, new ItemStack(Material.STONE, 64));
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean matchesPlain() {
+        return matcher.matches(plain, plainOther);
+    }
+
+    @Benchmark
+    public boolean matchesEnchanted() {
+        return matcher.matches(enchanted, enchantedOther);
+    }
+
+    @Benchmark
+    public boolean matchesDifferentType() {
+        return matcher.matches(plain, enchanted);
+    }
+
+    @Benchmark
+    public int countItems() {
+        return Util.countItems(inventory, plain);
+    }
+
+    @Benchmark
+    public int countSpace() {
+        return Util.countSpace(inventory, plain);
+    }
+}
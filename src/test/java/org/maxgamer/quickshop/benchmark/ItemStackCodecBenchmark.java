@@ -0,0 +1,103 @@
+/*
+ * This file is a part of project QuickShop, the name is ItemStackCodecBenchmark.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.benchmark;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import org.bukkit.Material;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+import org.maxgamer.quickshop.util.Util;
+import org.maxgamer.quickshop.util.serialize.BinaryItemStackCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding the shop item from YAML and from the binary form.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemStackCodecBenchmark {
+    private ItemStack itemStack;
+    private String yaml;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        MockBukkit.mock();
+        itemStack = new ItemStack(Material.DIAMOND_SWORD, 1);
+        yaml = Util.serialize(itemStack);
+        binary = BinaryItemStackCodec.encode(itemStack);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Benchmark
+    public String yamlEncode() {
+        return Util.serialize(itemStack);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return BinaryItemStackCodec.encode(itemStack);
+    }
+
+    @Benchmark
+    public ItemStack yamlDecode() throws InvalidConfigurationException {
+        YamlConfiguration configuration = new YamlConfiguration();
+        configuration.loadFromString(yaml);
+        return configuration.getItemStack("item");
+    }
+
+    @Benchmark
+    public ItemStack binaryDecode() throws IOException {
+        return BinaryItemStackCodec.decode(binary);
+    }
+
+    @Benchmark
+    public ItemStack cachedBinaryDecode() throws InvalidConfigurationException {
+        return Util.deserialize(binary);
+    }
+
+    @Benchmark
+    public ItemStack cachedYamlDecode() throws InvalidConfigurationException {
+        return Util.deserialize(yaml);
+    }
+}
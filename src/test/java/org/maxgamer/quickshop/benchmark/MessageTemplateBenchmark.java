@@ -0,0 +1,77 @@
+/*
+ * This file is a part of project QuickShop, the name is MessageTemplateBenchmark.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.benchmark;
+
+import org.maxgamer.quickshop.api.localization.text.postprocessor.PostProcessor;
+import org.maxgamer.quickshop.localization.text.MessageTemplate;
+import org.maxgamer.quickshop.localization.text.postprocessing.impl.ColorProcessor;
+import org.maxgamer.quickshop.localization.text.postprocessing.impl.FillerProcessor;
+import org.maxgamer.quickshop.localization.text.postprocessing.impl.PlaceHolderApiProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rendering a message through the post processors and through the compiled template.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageTemplateBenchmark {
+    private static final String RAW = "&aSuccessfully purchased &e{0}x {1} &afor &e{2}&a.";
+    private final Object[] args = {"16", "Diamond", "$128.00"};
+    private List<PostProcessor> postProcessors;
+    private MessageTemplate template;
+
+    @Setup(Level.Trial)
+    public void setup(QuickShopFixture fixture) {
+        postProcessors = Arrays.asList(new ColorProcessor(), new FillerProcessor(), new PlaceHolderApiProcessor());
+        template = MessageTemplate.compile(RAW);
+    }
+
+    @Benchmark
+    public String postProcessors() {
+        String text = RAW;
+        for (PostProcessor postProcessor : postProcessors) {
+            text = postProcessor.process(text, null, args);
+        }
+        return text;
+    }
+
+    @Benchmark
+    public String compiledTemplate() {
+        return template.render(FillerProcessor.toStrings(args));
+    }
+}
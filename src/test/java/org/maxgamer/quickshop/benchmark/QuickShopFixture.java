@@ -0,0 +1,138 @@
+/*
+ * This file is a part of project QuickShop, the name is QuickShopFixture.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.benchmark;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.WorldMock;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.maxgamer.quickshop.QuickShop;
+import org.maxgamer.quickshop.api.shop.Shop;
+import org.maxgamer.quickshop.api.shop.ShopType;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+
+/**
+ * MockBukkit server with QuickShop loaded, shared by the benchmarks need the plugin.
+ * <p>
+ * Setup runs on the benchmark thread, so MockBukkit treats it as the main thread.
+ */
+@State(Scope.Benchmark)
+public class QuickShopFixture {
+    public ServerMock server;
+    public QuickShop plugin;
+    public WorldMock world;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = MockBukkit.mock();
+        System.getProperties().setProperty("org.maxgamer.quickshop.util.envcheck.skip.SIGNATURE_VERIFY", "true");
+        System.getProperties().setProperty("org.maxgamer.quickshop.util.envcheck.skip.POTENTIAL_INFECTION_CHARACTERISTICS_CHECK", "true");
+        //Prevent network flow to OTA
+        try {
+            Field crowdinOtaHost = Class.forName("org.maxgamer.quickshop.localization.text.distributions.crowdin.CrowdinOTA").getDeclaredField("CROWDIN_OTA_HOST");
+            crowdinOtaHost.setAccessible(true);
+            crowdinOtaHost.set(null, "http://0.0.0.0");
+        } catch (NoSuchFieldException | IllegalAccessException | ClassNotFoundException e) {
+            e.printStackTrace();
+        }
+        world = server.addSimpleWorld("world");
+        plugin = MockBukkit.load(QuickShop.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    /**
+     * Creates a shop only answers the lookups done by ShopManager, no block or database needed.
+     *
+     * @param location The shop location
+     * @param item     The shop item
+     * @return The shop
+     */
+    @NotNull
+    public static Shop fakeShop(@NotNull Location location, @NotNull ItemStack item) {
+        return fakeShop(location, item, UUID.randomUUID());
+    }
+
+    /**
+     * Creates a shop without location and item, for the index tests don't need a server.
+     *
+     * @param runtimeId The runtime id of shop
+     * @return The shop
+     */
+    @NotNull
+    public static Shop fakeShop(@NotNull UUID runtimeId) {
+        return fakeShop(null, null, runtimeId);
+    }
+
+    @NotNull
+    private static Shop fakeShop(@Nullable Location location, @Nullable ItemStack item, @NotNull UUID runtimeId) {
+        UUID owner = UUID.randomUUID();
+        return (Shop) Proxy.newProxyInstance(Shop.class.getClassLoader(), new Class<?>[]{Shop.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getLocation":
+                    return location;
+                case "getOwner":
+                    return owner;
+                case "getItem":
+                    return item;
+                case "getCurrency":
+                    return null;
+                case "getShopType":
+                    return ShopType.SELLING;
+                case "getRuntimeRandomUniqueId":
+                    return runtimeId;
+                case "isLoaded":
+                case "isDeleted":
+                case "isUnlimited":
+                    return false;
+                case "isValid":
+                    return true;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "FakeShop" + location;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    @NotNull
+    public static ItemStack sampleItem() {
+        return new ItemStack(Material.DIAMOND);
+    }
+}
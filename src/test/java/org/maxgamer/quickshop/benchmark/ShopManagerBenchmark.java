@@ -0,0 +1,90 @@
+/*
+ * This file is a part of project QuickShop, the name is ShopManagerBenchmark.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.benchmark;
+
+import org.bukkit.Location;
+import org.maxgamer.quickshop.api.shop.Shop;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shop lookups by location, the path every interact, inventory and protection event goes through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShopManagerBenchmark {
+    @Param({"1000", "100000"})
+    public int shops;
+    private Location[] hits;
+    private Location[] misses;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup(QuickShopFixture fixture) {
+        hits = new Location[shops];
+        misses = new Location[shops];
+        int side = (int) Math.ceil(Math.sqrt(shops));
+        for (int i = 0; i < shops; i++) {
+            // Spread over chunks, a shop every 3 blocks
+            int x = (i % side) * 3;
+            int z = (i / side) * 3;
+            hits[i] = new Location(fixture.world, x, 64, z);
+            misses[i] = new Location(fixture.world, x + 1, 64, z);
+            fixture.plugin.getShopManager().loadShop(fixture.world.getName(), QuickShopFixture.fakeShop(hits[i], QuickShopFixture.sampleItem()));
+        }
+    }
+
+    @Benchmark
+    public Shop getShopHit(QuickShopFixture fixture) {
+        return fixture.plugin.getShopManager().getShop(hits[next()], true);
+    }
+
+    @Benchmark
+    public Shop getShopMiss(QuickShopFixture fixture) {
+        return fixture.plugin.getShopManager().getShop(misses[next()], true);
+    }
+
+    @Benchmark
+    public Shop getShopIncludeAttachedCached(QuickShopFixture fixture) {
+        return fixture.plugin.getShopManager().getShopIncludeAttached(hits[next()]);
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = index + 1 == shops ? 0 : index + 1;
+        return index;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is a part of project QuickShop, the name is ShopRuntimeIndexBenchmark.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.benchmark;
+
+import org.maxgamer.quickshop.api.shop.Shop;
+import org.maxgamer.quickshop.shop.ShopRuntimeIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shop lookups by runtime id, the cost should stay flat while the shop amount grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShopRuntimeIndexBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int shops;
+    private ShopRuntimeIndex index;
+    private UUID[] ids;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        index = new ShopRuntimeIndex();
+        ids = new UUID[shops];
+        for (int i = 0; i < shops; i++) {
+            ids[i] = UUID.randomUUID();
+            index.add(QuickShopFixture.fakeShop(ids[i]));
+        }
+    }
+
+    @Benchmark
+    public Shop get() {
+        cursor = (cursor + 31) % shops;
+        return index.get(ids[cursor]);
+    }
+}
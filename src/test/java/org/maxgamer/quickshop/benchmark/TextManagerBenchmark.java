@@ -0,0 +1,69 @@
+/*
+ * This file is a part of project QuickShop, the name is TextManagerBenchmark.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.benchmark;
+
+import org.maxgamer.quickshop.QuickShop;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering the messages sent on every shop interaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextManagerBenchmark {
+    private QuickShop plugin;
+
+    @Setup(Level.Trial)
+    public void setup(QuickShopFixture fixture) {
+        this.plugin = fixture.plugin;
+    }
+
+    @Benchmark
+    public String plainMessage() {
+        return plugin.text().of("not-looking-at-shop").forLocale();
+    }
+
+    @Benchmark
+    public String messageWithArguments() {
+        return plugin.text().of("integrations-check-failed-create", "WorldGuard").forLocale();
+    }
+
+    @Benchmark
+    public List<String> messageList() {
+        return plugin.text().ofList("updatenotify.list", "5.1.2.0", "5.1.1.0").forLocale();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is a part of project QuickShop, the name is HistoryRecordTest.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.database;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.maxgamer.quickshop.util.logging.container.EconomyTransactionLog;
+import org.maxgamer.quickshop.util.logging.container.PlayerEconomyPreCheckLog;
+import org.maxgamer.quickshop.util.logging.container.PluginGlobalAlertLog;
+
+import java.util.UUID;
+
+public class HistoryRecordTest {
+
+    @Test
+    public void testMapColumns() {
+        UUID from = UUID.randomUUID();
+        UUID to = UUID.randomUUID();
+        HistoryRecord transaction = HistoryRecord.of(100L, new EconomyTransactionLog(true, from, to, null, 0, null, 12.5, null));
+        Assertions.assertEquals("EconomyTransactionLog", transaction.getType());
+        Assertions.assertEquals(from, transaction.getActor());
+        Assertions.assertEquals(to, transaction.getOwner());
+        Assertions.assertEquals(Double.valueOf(12.5), transaction.getTotal());
+        Assertions.assertNull(transaction.getWorld());
+
+        HistoryRecord preCheck = HistoryRecord.of(100L, new PlayerEconomyPreCheckLog(true, from, 3));
+        Assertions.assertEquals(from, preCheck.getActor());
+        Assertions.assertEquals(Double.valueOf(3), preCheck.getTotal());
+
+        HistoryRecord alert = HistoryRecord.of(100L, new PluginGlobalAlertLog("alert"));
+        Assertions.assertEquals(100L, alert.getTime());
+        Assertions.assertNull(alert.getActor());
+        Assertions.assertNull(alert.getTotal());
+    }
+
+    @Test
+    public void testItemKey() {
+        String item = "item:\n  ==: org.bukkit.inventory.ItemStack\n  v: 2975\n  type: FIREWORK_ROCKET\n  meta:\n    ==: ItemMeta\n    firework-effects:\n    - type: BALL\n";
+        Assertions.assertEquals("FIREWORK_ROCKET", HistoryRecord.itemKey(item));
+        Assertions.assertNull(HistoryRecord.itemKey("item: broken"));
+        Assertions.assertNull(HistoryRecord.itemKey(null));
+    }
+}
@@ -25,11 +25,16 @@ import org.bukkit.Server;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
 import org.bukkit.generator.BiomeProvider;
 import org.bukkit.generator.ChunkGenerator;
+import org.bukkit.plugin.EventExecutor;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.PluginLoader;
+import org.bukkit.plugin.RegisteredListener;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.junit.jupiter.api.Assertions;
@@ -37,14 +42,16 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Logger;
 
 public class ListenerContainerTest {
+    private static final EventExecutor EXECUTOR = (listener, event) -> {
+    };
 
-    @Test
-    public void testMatches() {
-        Plugin testPlugin = new Plugin() {
+    private static Plugin createPlugin(String name) {
+        return new Plugin() {
             @NotNull
             @Override
             public File getDataFolder() {
@@ -157,7 +164,7 @@ public class ListenerContainerTest {
             @NotNull
             @Override
             public String getName() {
-                return "QuickTest";
+                return name;
             }
 
             @Override
@@ -176,10 +183,41 @@ public class ListenerContainerTest {
                 return null;
             }
         };
+    }
+
+    @Test
+    public void testMatches() {
+        Plugin testPlugin = createPlugin("QuickTest");
         ListenerContainer listenerContainerA = new ListenerContainer(null, "@QuickTest");
         ListenerContainer listenerContainerB = new ListenerContainer(null, "@QuickTestBad");
         Assertions.assertTrue(listenerContainerA.matches(this.getClass(), testPlugin));
         Assertions.assertFalse(listenerContainerB.matches(this.getClass(), testPlugin));
     }
 
+    @Test
+    public void testFilteredListenerCache() {
+        HandlerList handlers = new HandlerList();
+        Plugin allowed = createPlugin("QuickAllowed");
+        Plugin blocked = createPlugin("QuickBlocked");
+        handlers.register(new RegisteredListener(new Listener() {
+        }, EXECUTOR, EventPriority.NORMAL, allowed, false));
+        handlers.register(new RegisteredListener(new Listener() {
+        }, EXECUTOR, EventPriority.NORMAL, blocked, false));
+        FilteredListenerCache cache = new FilteredListenerCache();
+        cache.setIgnoredListener(Collections.singletonList(new ListenerContainer(null, "@QuickBlocked")));
+        RegisteredListener[] filtered = cache.get(handlers);
+        Assertions.assertEquals(1, filtered.length);
+        Assertions.assertSame(allowed, filtered[0].getPlugin());
+        Assertions.assertSame(filtered, cache.get(handlers));
+        // Baked array changed
+        handlers.register(new RegisteredListener(new Listener() {
+        }, EXECUTOR, EventPriority.HIGH, allowed, false));
+        Assertions.assertEquals(2, cache.get(handlers).length);
+        // Blacklist changed
+        cache.setIgnoredListener(Collections.emptyList());
+        Assertions.assertEquals(3, cache.get(handlers).length);
+        // Invalid regex is not a match instead of throwing
+        Assertions.assertFalse(new ListenerContainer(null, "org.[broken").matches(this.getClass(), allowed));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+/*
+ * This file is a part of project QuickShop, the name is ListenerDispatchBenchmark.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.eventmanager;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.RegisteredListener;
+import org.jetbrains.annotations.NotNull;
+import org.maxgamer.quickshop.benchmark.QuickShopFixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per event overhead of firing an event through QSEventManager, with and without the filtered listener cache.
+ * <p>
+ * Lives in the eventmanager package since the dispatch and the cache are package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerDispatchBenchmark {
+    private static final List<String> RULES = Arrays.asList("@SomeProtection", "com.example.protection.Listener", "net\\.example\\..*Guard");
+    private static final EventExecutor EXECUTOR = (listener, event) -> {
+    };
+    private QSEventManager eventManager;
+    private List<ListenerContainer> ignored;
+    private BenchEvent event;
+
+    @Setup(Level.Trial)
+    public void setup(QuickShopFixture fixture) {
+        fixture.plugin.getConfig().set("shop.protection-checking-listener-blacklist", RULES);
+        eventManager = new QSEventManager(fixture.plugin);
+        ignored = RULES.stream().map(rule -> new ListenerContainer(null, rule)).collect(Collectors.toList());
+        BenchEvent.HANDLERS.unregisterAll();
+        for (int i = 0; i < 30; i++) {
+            BenchEvent.HANDLERS.register(new RegisteredListener(new Listener() {
+            }, EXECUTOR, EventPriority.values()[i % EventPriority.values().length], fixture.plugin, false));
+        }
+        event = new BenchEvent();
+    }
+
+    @Benchmark
+    public void fireCached() {
+        eventManager.fireEvent(event);
+    }
+
+    @Benchmark
+    public void fireUncached() {
+        eventManager.dispatch(event, FilteredListenerCache.filter(BenchEvent.HANDLERS.getRegisteredListeners(), ignored));
+    }
+
+    public static class BenchEvent extends Event {
+        private static final HandlerList HANDLERS = new HandlerList();
+
+        public static HandlerList getHandlerList() {
+            return HANDLERS;
+        }
+
+        @NotNull
+        @Override
+        public HandlerList getHandlers() {
+            return HANDLERS;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * This file is a part of project QuickShop, the name is MessageTemplateTest.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.localization.text;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.maxgamer.quickshop.TestBukkitBase;
+import org.maxgamer.quickshop.util.MsgUtil;
+import org.maxgamer.quickshop.util.Util;
+
+public class MessageTemplateTest extends TestBukkitBase {
+    private static final String[] SAMPLES = {
+            "",
+            "&aPlain text",
+            "&eShop at {0} sells {1}x {2}",
+            "{0}{1}",
+            "Missing {3} and {01} and {x} and {",
+            "&c%player_name% has {0}",
+            "{{0}}"
+    };
+
+    @Test
+    public void testSameAsPostProcessors() {
+        String[] args = {"A", "2", null};
+        for (String sample : SAMPLES) {
+            MessageTemplate template = MessageTemplate.compile(sample);
+            Assertions.assertEquals(MsgUtil.fillArgs(Util.parseColours(sample), args), template.render(args), sample);
+        }
+    }
+
+    @Test
+    public void testPlaceholders() {
+        Assertions.assertTrue(MessageTemplate.compile("&c%player_name% has {0}").hasPlaceholders());
+        Assertions.assertFalse(MessageTemplate.compile("&aPlain {0}").hasPlaceholders());
+        // The arguments are not scanned
+        Assertions.assertFalse(MessageTemplate.compile("{0}").hasPlaceholders());
+    }
+}
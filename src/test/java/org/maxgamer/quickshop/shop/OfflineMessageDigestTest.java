@@ -0,0 +1,49 @@
+/*
+ * This file is a part of project QuickShop, the name is OfflineMessageDigestTest.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.shop;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class OfflineMessageDigestTest {
+    @Test
+    public void testMergeAndSummary() {
+        OfflineMessageDigest digest = new OfflineMessageDigest(2);
+        // Newest first, as loaded from database
+        Assertions.assertEquals(-1, digest.getNewestTime());
+        Assertions.assertTrue(digest.add("c", 30));
+        Assertions.assertTrue(digest.add("b", 20));
+        Assertions.assertTrue(digest.add("c", 10));
+        Assertions.assertTrue(digest.isFull());
+        Assertions.assertFalse(digest.add("a", 40));
+        Assertions.assertEquals(3, digest.getScanned());
+        // The message not added is not read, so it never be removed
+        Assertions.assertEquals(30, digest.getNewestTime());
+        Assertions.assertEquals(7, digest.getRemaining(10));
+        Assertions.assertEquals(0, digest.getRemaining(2));
+        List<OfflineMessageDigest.Entry> entries = digest.getEntries();
+        Assertions.assertEquals("b", entries.get(0).getJson());
+        Assertions.assertEquals(1, entries.get(0).getRepeats());
+        Assertions.assertEquals("c", entries.get(1).getJson());
+        Assertions.assertEquals(2, entries.get(1).getRepeats());
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * This file is a part of project QuickShop, the name is ShopIndexTest.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.shop;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.maxgamer.quickshop.benchmark.QuickShopFixture;
+
+import java.util.UUID;
+
+public class ShopIndexTest {
+
+    @Test
+    public void testShopOrAttached() {
+        ShopIndex index = new ShopIndex();
+        Assertions.assertFalse(index.isShopOrAttached("world", 0, 64, 0));
+        // Next to the chunk border, so the attached half is in another chunk
+        index.put("world", 15, -60, 3, QuickShopFixture.fakeShop(UUID.randomUUID()));
+        index.put("world", 17, -60, 3, QuickShopFixture.fakeShop(UUID.randomUUID()));
+        Assertions.assertTrue(index.isShopOrAttached("world", 15, -60, 3));
+        Assertions.assertTrue(index.isShopOrAttached("world", 16, -60, 3));
+        Assertions.assertTrue(index.isShopOrAttached("world", 14, -60, 3));
+        Assertions.assertTrue(index.isShopOrAttached("world", 15, -60, 2));
+        Assertions.assertFalse(index.isShopOrAttached("world", 14, -60, 2));
+        Assertions.assertFalse(index.isShopOrAttached("world", 15, -59, 3));
+        Assertions.assertFalse(index.isShopOrAttached("world_nether", 15, -60, 3));
+
+        index.remove("world", 15, -60, 3);
+        Assertions.assertFalse(index.isShopOrAttached("world", 15, -60, 3));
+        Assertions.assertFalse(index.isShopOrAttached("world", 14, -60, 3));
+        // Still next to the other shop
+        Assertions.assertTrue(index.isShopOrAttached("world", 16, -60, 3));
+
+        index.remove("world", 17, -60, 3);
+        Assertions.assertFalse(index.isShopOrAttached("world", 16, -60, 3));
+        Assertions.assertFalse(index.isShopOrAttached("world", 17, -60, 3));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is a part of project QuickShop, the name is ShopLoaderBenchmark.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.shop;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.maxgamer.quickshop.benchmark.QuickShopFixture;
+import org.maxgamer.quickshop.util.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding the shop rows from a SQLite result set, the work done by the decode threads of ShopLoader.
+ * <p>
+ * Lives in the shop package since the row classes are only constructable here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShopLoaderBenchmark {
+    private static final int ROWS = 1000;
+    private Connection connection;
+    private ShopLoader shopLoader;
+
+    @Setup(Level.Trial)
+    public void setup(QuickShopFixture fixture) throws SQLException {
+        shopLoader = new ShopLoader(fixture.plugin);
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE shops (owner VARCHAR(255) NOT NULL, price double(32, 2) NOT NULL, itemConfig TEXT NOT NULL, x INTEGER(32) NOT NULL, y INTEGER(32) NOT NULL, z INTEGER(32) NOT NULL, world VARCHAR(128) NOT NULL, unlimited boolean, type boolean, extra TEXT, currency TEXT, disableDisplay INTEGER, taxAccount VARCHAR(255), itemBinary BLOB, PRIMARY KEY (x, y, z, world))");
+        }
+        ItemStack[] items = {new ItemStack(Material.DIAMOND), new ItemStack(Material.IRON_INGOT), new ItemStack(Material.OAK_LOG, 16)};
+        try (PreparedStatement ps = connection.prepareStatement("INSERT INTO shops VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                ItemStack item = items[i % items.length];
+                ps.setString(1, SimpleShopModerator.serialize(new SimpleShopModerator(UUID.randomUUID())));
+                ps.setDouble(2, 10);
+                ps.setString(3, Util.serialize(item));
+                ps.setInt(4, i);
+                ps.setInt(5, 64);
+                ps.setInt(6, 0);
+                ps.setString(7, fixture.world.getName());
+                ps.setBoolean(8, false);
+                ps.setInt(9, 0);
+                ps.setString(10, "");
+                ps.setString(11, null);
+                ps.setInt(12, 0);
+                ps.setString(13, null);
+                ps.setBytes(14, Util.serializeToBytes(item));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public int decodeRows() throws SQLException {
+        int decoded = 0;
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery("SELECT * FROM shops")) {
+            while (rs.next()) {
+                ShopLoader.ShopDatabaseInfo data = shopLoader.new ShopDatabaseInfo(new ShopLoader.ShopRawDatabaseInfo(rs));
+                if (data.getItem() != null) {
+                    decoded++;
+                }
+            }
+        }
+        return decoded;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * This file is a part of project QuickShop, the name is ShopRuntimeIndexTest.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.shop;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.maxgamer.quickshop.api.shop.Shop;
+import org.maxgamer.quickshop.benchmark.QuickShopFixture;
+
+import java.util.UUID;
+
+public class ShopRuntimeIndexTest {
+
+    @Test
+    public void testAddRemove() {
+        ShopRuntimeIndex index = new ShopRuntimeIndex();
+        UUID id = UUID.randomUUID();
+        Shop shop = QuickShopFixture.fakeShop(id);
+        index.add(shop);
+        Assertions.assertSame(shop, index.get(id));
+        // Removing another shop with same id must not drop the indexed one
+        index.remove(QuickShopFixture.fakeShop(id));
+        Assertions.assertSame(shop, index.get(id));
+        index.remove(shop);
+        Assertions.assertNull(index.get(id));
+    }
+}
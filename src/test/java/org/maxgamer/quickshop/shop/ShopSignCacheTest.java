@@ -0,0 +1,61 @@
+/*
+ * This file is a part of project QuickShop, the name is ShopSignCacheTest.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.shop;
+
+import org.bukkit.Location;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.maxgamer.quickshop.api.chat.ComponentPackage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ShopSignCacheTest {
+
+    @Test
+    public void testRenderOnlyWhenKeyChanged() {
+        ShopSignCache cache = new ShopSignCache();
+        List<ComponentPackage> first = cache.render(Arrays.asList("en_us", 5), ArrayList::new);
+        Assertions.assertSame(first, cache.render(Arrays.asList("en_us", 5), ArrayList::new));
+        List<ComponentPackage> second = cache.render(Arrays.asList("en_us", 4), ArrayList::new);
+        Assertions.assertNotSame(first, second);
+        ShopSignCache.invalidateAll();
+        Assertions.assertNotSame(second, cache.render(Arrays.asList("en_us", 4), ArrayList::new));
+    }
+
+    @Test
+    public void testWrittenSigns() {
+        ShopSignCache cache = new ShopSignCache();
+        Location sign = new Location(null, 1, 64, 1);
+        List<ComponentPackage> lines = cache.render(Arrays.asList("en_us", 5), ArrayList::new);
+        Assertions.assertFalse(cache.isWritten(lines, sign));
+        cache.markWritten(lines, sign);
+        Assertions.assertTrue(cache.isWritten(lines, sign));
+        Assertions.assertFalse(cache.isWritten(lines, new Location(null, 2, 64, 1)));
+        // Re-rendered lines are not on the sign yet
+        List<ComponentPackage> changed = cache.render(Arrays.asList("en_us", 4), ArrayList::new);
+        Assertions.assertFalse(cache.isWritten(changed, sign));
+        // Lines set by others
+        cache.markWritten(changed, sign);
+        cache.markWritten(new ArrayList<>(), sign);
+        Assertions.assertFalse(cache.isWritten(changed, sign));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is a part of project QuickShop, the name is ShopStockTrackerTest.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.shop;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ShopStockTrackerTest {
+
+    @Test
+    public void testCountOnlyAfterInvalidated() {
+        ShopStockTracker tracker = new ShopStockTracker();
+        AtomicInteger counted = new AtomicInteger();
+        Assertions.assertFalse(tracker.isCounted());
+        Assertions.assertEquals(5, tracker.getStock(() -> {
+            counted.incrementAndGet();
+            return 5;
+        }));
+        Assertions.assertEquals(5, tracker.getStock(() -> {
+            counted.incrementAndGet();
+            return 100;
+        }));
+        Assertions.assertEquals(0, tracker.getSpace(() -> {
+            counted.incrementAndGet();
+            return 0;
+        }));
+        Assertions.assertEquals(0, tracker.getSpace(() -> {
+            counted.incrementAndGet();
+            return 9;
+        }));
+        Assertions.assertEquals(2, counted.get());
+        Assertions.assertTrue(tracker.isCounted());
+
+        tracker.invalidate();
+        Assertions.assertFalse(tracker.isCounted());
+        Assertions.assertEquals(7, tracker.getStock(() -> 7));
+        Assertions.assertEquals(3, tracker.getSpace(() -> 3));
+    }
+
+    @Test
+    public void testNoCachingWhileChanging() {
+        ShopStockTracker tracker = new ShopStockTracker();
+        Assertions.assertEquals(5, tracker.getStock(() -> 5));
+        tracker.markChanging();
+        // Counted before the change applied, must not be kept
+        Assertions.assertEquals(5, tracker.getStock(() -> 5));
+        Assertions.assertFalse(tracker.isCounted());
+        tracker.settle();
+        Assertions.assertEquals(4, tracker.getStock(() -> 4));
+        Assertions.assertEquals(4, tracker.getStock(() -> 100));
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * This file is a part of project QuickShop, the name is LatencyHistogramTest.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testRecord() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assertions.assertEquals(0, histogram.getPercentileMillis(99));
+        for (int i = 0; i < 98; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(20));
+        histogram.record(TimeUnit.SECONDS.toNanos(3));
+        Assertions.assertEquals(100, histogram.getCount());
+        Assertions.assertEquals(0.1, histogram.getPercentileMillis(50));
+        Assertions.assertEquals(25, histogram.getPercentileMillis(99));
+        Assertions.assertEquals(3000, histogram.getPercentileMillis(100));
+        Assertions.assertEquals(3000, histogram.getMaxMillis());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is a part of project QuickShop, the name is PlayerProfileResolverTest.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.maxgamer.quickshop.util.PlayerFinder.PlayerProfile;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class PlayerProfileResolverTest {
+    private static final UUID FALLBACK_UUID = UUID.randomUUID();
+
+    @Test
+    public void testCoalesceAndBatch() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch blocking = new CountDownLatch(1);
+        Map<String, PlayerProfile> resolved = new HashMap<>();
+        PlayerProfileResolver resolver = new PlayerProfileResolver(name -> {
+            if (name.equals("first")) {
+                entered.countDown();
+                await(blocking);
+            }
+            return null;
+        }, names -> {
+            Map<String, UUID> found = new HashMap<>();
+            for (String name : names) {
+                if (!name.equals("nobody")) {
+                    found.put(name.toUpperCase(), UUID.nameUUIDFromBytes(name.getBytes()));
+                }
+            }
+            return found;
+        }, 10, name -> new PlayerProfile(name, FALLBACK_UUID), profile -> {
+            synchronized (resolved) {
+                resolved.put(profile.getName(), profile);
+            }
+        });
+        try {
+            CompletableFuture<PlayerProfile> first = resolver.resolve("first");
+            await(entered);
+            // Queued while the resolver thread is busy
+            CompletableFuture<PlayerProfile> sameName = resolver.resolve("Player0");
+            Assertions.assertSame(sameName, resolver.resolve("PLAYER0"));
+            for (int i = 1; i < 11; i++) {
+                resolver.resolve("player" + i);
+            }
+            CompletableFuture<PlayerProfile> nobody = resolver.resolve("nobody");
+            blocking.countDown();
+
+            Assertions.assertEquals("FIRST", first.get(5, TimeUnit.SECONDS).getName());
+            Assertions.assertEquals(UUID.nameUUIDFromBytes("player0".getBytes()), sameName.get(5, TimeUnit.SECONDS).getUuid());
+            Assertions.assertEquals(FALLBACK_UUID, nobody.get(5, TimeUnit.SECONDS).getUuid());
+            // first, then 12 queued names in batches of 10
+            Assertions.assertEquals(3, resolver.getRemoteRequests());
+            Assertions.assertEquals(0, resolver.getPendingCount());
+            synchronized (resolved) {
+                Assertions.assertEquals(13, resolved.size());
+            }
+        } finally {
+            resolver.shutdown();
+        }
+    }
+
+    @Test
+    public void testProfileCacheRoundTrip() throws Exception {
+        java.io.File file = java.nio.file.Files.createTempFile("profiles", ".txt").toFile();
+        file.deleteOnExit();
+        UUID uuid = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        PlayerProfileCache cache = new PlayerProfileCache(file, TimeUnit.DAYS.toMillis(1));
+        cache.put("Alice", uuid);
+        // Renamed
+        cache.put("Alicia", uuid);
+        cache.put("Bob", other);
+        cache.save();
+
+        PlayerProfileCache loaded = new PlayerProfileCache(file, TimeUnit.DAYS.toMillis(1));
+        Assertions.assertEquals(2, loaded.load());
+        Assertions.assertNull(loaded.getUUID("alice"));
+        Assertions.assertEquals(uuid, loaded.getUUID("ALICIA"));
+        Assertions.assertEquals("Bob", loaded.getName(other));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is a part of project QuickShop, the name is LongObjectHashMapTest.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.util.collection;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class LongObjectHashMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        Assertions.assertNull(map.put(1L, "a"));
+        Assertions.assertEquals("a", map.put(1L, "b"));
+        Assertions.assertEquals("b", map.get(1L));
+        Assertions.assertTrue(map.containsKey(1L));
+        Assertions.assertEquals("b", map.remove(1L));
+        Assertions.assertNull(map.get(1L));
+        Assertions.assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        Random random = new Random(20221018L);
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            long key = random.nextInt(2000) - 1000;
+            switch (random.nextInt(3)) {
+                case 0:
+                    Assertions.assertEquals(expected.put(key, key * 3), map.put(key, key * 3));
+                    break;
+                case 1:
+                    Assertions.assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    Assertions.assertEquals(expected.get(key), map.get(key));
+            }
+            Assertions.assertEquals(expected.size(), map.size());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * This file is a part of project QuickShop, the name is CompiledItemMatcherTest.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.util.matcher.item;
+
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.maxgamer.quickshop.QuickShop;
+import org.maxgamer.quickshop.TestBukkitBase;
+import org.maxgamer.quickshop.api.shop.CompiledItemMatcher;
+import org.maxgamer.quickshop.api.shop.ItemMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Differential tests, the compiled matchers must answer same as the plain matches for every pair of items.
+ */
+public class CompiledItemMatcherTest extends TestBukkitBase {
+
+    @AfterEach
+    public void resetWorkType() {
+        QuickShop.getInstance().getConfig().set("matcher.work-type", 0);
+    }
+
+    @Test
+    public void testQuickShopMatcherWorkTypes() {
+        QuickShop plugin = QuickShop.getInstance();
+        QuickShopItemMatcherImpl matcher = new QuickShopItemMatcherImpl(plugin);
+        for (int workType = 0; workType <= 2; workType++) {
+            plugin.getConfig().set("matcher.work-type", workType);
+            matcher.reloadModule();
+            assertSameResults(matcher, "work-type " + workType);
+        }
+    }
+
+    @Test
+    public void testQuickShopMatcherWithChecksDisabled() {
+        QuickShop plugin = QuickShop.getInstance();
+        plugin.getConfig().set("matcher.item.displayname", false);
+        plugin.getConfig().set("matcher.item.lores", false);
+        plugin.getConfig().set("matcher.item.enchs", false);
+        try {
+            QuickShopItemMatcherImpl matcher = new QuickShopItemMatcherImpl(plugin);
+            assertSameResults(matcher, "fingerprint checks disabled");
+        } finally {
+            plugin.getConfig().set("matcher.item.displayname", true);
+            plugin.getConfig().set("matcher.item.lores", true);
+            plugin.getConfig().set("matcher.item.enchs", true);
+        }
+    }
+
+    @Test
+    public void testBukkitMatcher() {
+        assertSameResults(new BukkitItemMatcherImpl(QuickShop.getInstance()), "bukkit");
+    }
+
+    @Test
+    public void testReloadAppliesToCompiled() {
+        QuickShop plugin = QuickShop.getInstance();
+        QuickShopItemMatcherImpl matcher = new QuickShopItemMatcherImpl(plugin);
+        ItemStack named = item(Material.DIAMOND_SWORD, meta -> meta.setDisplayName("Sword"));
+        ItemStack damaged = item(Material.DIAMOND_SWORD, meta -> {
+            meta.setDisplayName("Sword");
+            ((Damageable) meta).setDamage(10);
+        });
+        CompiledItemMatcher compiled = matcher.compile(damaged);
+        // Less damaged item allowed by the damage check, but not similar
+        Assertions.assertTrue(compiled.matches(named));
+        plugin.getConfig().set("matcher.work-type", 1);
+        matcher.reloadModule();
+        Assertions.assertFalse(compiled.matches(named));
+    }
+
+    @Test
+    public void testTesterNotModified() {
+        QuickShopItemMatcherImpl matcher = new QuickShopItemMatcherImpl(QuickShop.getInstance());
+        ItemStack original = new ItemStack(Material.DIAMOND, 16);
+        ItemStack tester = new ItemStack(Material.DIAMOND, 64);
+        CompiledItemMatcher compiled = matcher.compile(original);
+        Assertions.assertTrue(compiled.matches(tester));
+        Assertions.assertFalse(compiled.matches(null));
+        Assertions.assertEquals(64, tester.getAmount());
+        // Later changes of original don't affect the compiled matcher
+        original.setType(Material.STONE);
+        Assertions.assertTrue(compiled.matches(tester));
+    }
+
+    private void assertSameResults(ItemMatcher matcher, String name) {
+        List<ItemStack> samples = samples();
+        for (ItemStack original : samples) {
+            CompiledItemMatcher compiled = matcher.compile(original);
+            for (ItemStack tester : samples) {
+                ItemStack originalCopy = original.clone();
+                originalCopy.setAmount(1);
+                ItemStack testerCopy = tester.clone();
+                testerCopy.setAmount(1);
+                boolean expected = matcher.matches(originalCopy, testerCopy);
+                Assertions.assertEquals(expected, compiled.matches(tester), name + ": " + original + " <- " + tester);
+            }
+        }
+    }
+
+    private List<ItemStack> samples() {
+        List<ItemStack> samples = new ArrayList<>();
+        samples.add(new ItemStack(Material.DIAMOND));
+        samples.add(new ItemStack(Material.DIAMOND, 64));
+        samples.add(new ItemStack(Material.STONE));
+        samples.add(new ItemStack(Material.DIAMOND_SWORD));
+        samples.add(item(Material.DIAMOND, meta -> meta.setDisplayName("Gem")));
+        samples.add(item(Material.DIAMOND, meta -> meta.setDisplayName("Other gem")));
+        samples.add(item(Material.DIAMOND, meta -> meta.setLore(Arrays.asList("a", "b"))));
+        samples.add(item(Material.DIAMOND, meta -> meta.setLore(Arrays.asList("a", "c"))));
+        samples.add(item(Material.DIAMOND, meta -> {
+            meta.setDisplayName("Gem");
+            meta.setLore(Arrays.asList("a", "b"));
+        }));
+        samples.add(item(Material.DIAMOND, meta -> meta.addItemFlags(ItemFlag.HIDE_ENCHANTS)));
+        samples.add(item(Material.DIAMOND_SWORD, meta -> meta.addEnchant(Enchantment.DAMAGE_ALL, 1, true)));
+        samples.add(item(Material.DIAMOND_SWORD, meta -> meta.addEnchant(Enchantment.DAMAGE_ALL, 5, true)));
+        samples.add(item(Material.DIAMOND_SWORD, meta -> {
+            meta.addEnchant(Enchantment.DAMAGE_ALL, 5, true);
+            meta.addEnchant(Enchantment.DURABILITY, 3, true);
+        }));
+        samples.add(item(Material.DIAMOND_SWORD, meta -> ((Damageable) meta).setDamage(10)));
+        samples.add(item(Material.DIAMOND_SWORD, meta -> ((Damageable) meta).setDamage(100)));
+        samples.add(item(Material.DIAMOND_SWORD, meta -> {
+            meta.setDisplayName("Sword");
+            ((Damageable) meta).setDamage(10);
+        }));
+        samples.add(item(Material.DIAMOND_SWORD, meta -> meta.setDisplayName("Sword")));
+        samples.add(item(Material.DIAMOND_SWORD, meta -> meta.setCustomModelData(1)));
+        return samples;
+    }
+
+    private ItemStack item(Material material, Consumer<ItemMeta> modifier) {
+        ItemStack itemStack = new ItemStack(material);
+        ItemMeta meta = itemStack.getItemMeta();
+        modifier.accept(meta);
+        itemStack.setItemMeta(meta);
+        return itemStack;
+    }
+}
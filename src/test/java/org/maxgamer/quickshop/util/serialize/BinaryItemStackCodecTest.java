@@ -0,0 +1,76 @@
+/*
+ * This file is a part of project QuickShop, the name is BinaryItemStackCodecTest.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.util.serialize;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+public class BinaryItemStackCodecTest {
+
+    @BeforeAll
+    public static void setup() {
+        MockBukkit.mock();
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        ItemStack itemStack = new ItemStack(Material.DIAMOND, 5);
+        byte[] data = BinaryItemStackCodec.encode(itemStack);
+        Assertions.assertNotNull(data);
+        Assertions.assertEquals(itemStack, BinaryItemStackCodec.decode(data));
+    }
+
+    @Test
+    public void testCorruptedData() {
+        Assertions.assertThrows(IOException.class, () -> BinaryItemStackCodec.decode(new byte[]{'Q', 1, 42}));
+        Assertions.assertThrows(IOException.class, () -> BinaryItemStackCodec.decode(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    public void testDecodeCacheHandsOutCopies() {
+        ItemStackDecodeCache cache = new ItemStackDecodeCache(2);
+        byte[] data = BinaryItemStackCodec.encode(new ItemStack(Material.IRON_INGOT));
+        Assertions.assertNotNull(data);
+        Assertions.assertNull(cache.get(ItemStackDecodeCache.key(data)));
+        cache.put(ItemStackDecodeCache.key(data), new ItemStack(Material.IRON_INGOT));
+        // Equal content, different array
+        ItemStack first = cache.get(ItemStackDecodeCache.key(data.clone()));
+        Assertions.assertNotNull(first);
+        first.setAmount(10);
+        ItemStack second = cache.get(ItemStackDecodeCache.key(data));
+        Assertions.assertNotNull(second);
+        Assertions.assertEquals(1, second.getAmount());
+        cache.put("a", new ItemStack(Material.STONE));
+        cache.put("b", new ItemStack(Material.STONE));
+        Assertions.assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is a part of project QuickShop, the name is LogWatcherTest.java
+ *  Copyright (C) PotatoCraft Studio and contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the
+ *  Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package org.maxgamer.quickshop.watcher;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.maxgamer.quickshop.QuickShop;
+import org.maxgamer.quickshop.TestBukkitBase;
+import org.maxgamer.quickshop.util.logging.container.PluginGlobalAlertLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+public class LogWatcherTest extends TestBukkitBase {
+
+    @Test
+    public void testWriteRecords() throws IOException {
+        File file = new File(QuickShop.getInstance().getDataFolder(), "test-qs.log");
+        Files.deleteIfExists(file.toPath());
+        LogWatcher logWatcher = new LogWatcher(QuickShop.getInstance(), file);
+        try {
+            logWatcher.log("商店 created");
+            logWatcher.logEvent(new PluginGlobalAlertLog("alert"));
+            Assertions.assertEquals(2, logWatcher.getQueueDepth());
+            logWatcher.run();
+            Assertions.assertEquals(0, logWatcher.getQueueDepth());
+            Assertions.assertEquals(2, logWatcher.getWrittenCount());
+            String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            Assertions.assertTrue(content.contains("商店 created"));
+            Assertions.assertTrue(content.contains("alert"));
+        } finally {
+            logWatcher.close();
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @Test
+    public void testDropWhenFull() throws IOException {
+        QuickShop plugin = QuickShop.getInstance();
+        Object bufferSize = plugin.getConfig().get("logging.buffer-size");
+        plugin.getConfig().set("logging.buffer-size", 64);
+        File file = new File(plugin.getDataFolder(), "test-drop-qs.log");
+        Files.deleteIfExists(file.toPath());
+        LogWatcher logWatcher = new LogWatcher(plugin, file);
+        try {
+            for (int i = 0; i < 100; i++) {
+                logWatcher.log("record " + i);
+            }
+            Assertions.assertEquals(64, logWatcher.getQueueDepth());
+            Assertions.assertEquals(36, logWatcher.getDroppedCount());
+            logWatcher.run();
+            Assertions.assertEquals(64, logWatcher.getWrittenCount());
+        } finally {
+            logWatcher.close();
+            plugin.getConfig().set("logging.buffer-size", bufferSize);
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @Test
+    public void testRotateBySize() throws IOException {
+        QuickShop plugin = QuickShop.getInstance();
+        Object fileSize = plugin.getConfig().get("logging.file-size");
+        // About 100 bytes
+        plugin.getConfig().set("logging.file-size", 0.0001);
+        File file = new File(plugin.getDataFolder(), "test-rotate-qs.log");
+        Files.deleteIfExists(file.toPath());
+        LogWatcher logWatcher = new LogWatcher(plugin, file);
+        try {
+            for (int i = 0; i < 10; i++) {
+                logWatcher.log("a record long enough to fill the log file " + i);
+            }
+            logWatcher.run();
+            Assertions.assertEquals(1, logWatcher.getRotationCount());
+            Assertions.assertEquals(0, Files.size(file.toPath()));
+            logWatcher.log("after rotation");
+            logWatcher.run();
+            Assertions.assertEquals(1, logWatcher.getRotationCount());
+        } finally {
+            logWatcher.close();
+            plugin.getConfig().set("logging.file-size", fileSize);
+            Files.deleteIfExists(file.toPath());
+        }
+        Path archivePath = plugin.getDataFolder().toPath().resolve("logs");
+        try (Stream<Path> archived = Files.list(archivePath)) {
+            Assertions.assertTrue(archived.anyMatch(path -> path.getFileName().toString().endsWith(".log.gz")));
+        }
+    }
+}